@@ -1,3 +1,8 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.List;
 import java.util.Random;
 
@@ -18,32 +23,41 @@ import java.util.Random;
  */
 public abstract class Actor
 {
-	// A shared random number generator.
-	private static final Random rand = Randomizer.getRandom();
-	// The amount of steps the actor can leave after being diseased.
-	private static final int DISEASED_STEPS_TILL_DEATH = Integer.parseInt(Config.getProperty("disease.DISEASED_STEPS_TILL_DEATH"));
-	// The probability of an actor being created sick.
-	private static final double DISEASE_PROBABILITY = Double.parseDouble(Config.getProperty("disease.DISEASE_PROBABILITY"));
-	// The probability of an actor getting sick from another actor.
-	private static final double DISEASE_SPREAD_PROBABILITY = Double.parseDouble(Config.getProperty("disease.DISEASED_SPREAD_PROBABILITY"));
-	// The probability of an actor getting sick randomly.
-	private static final double DISEASE_MUTATION_PROBABILITY = Double.parseDouble(Config.getProperty("disease.DISEASE_MUTATION_PROBABILITY"));
-	
-	// The age of the actor.
-	private int age;
+	// Atomic access to whether an actor is alive, so that two predators cannot both eat it.
+	private static final VarHandle ALIVE;
+	
+	static {
+		try {
+			ALIVE = MethodHandles.lookup().findVarHandle(Actor.class, "alive", boolean.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	// The simulation the actor belongs to.
+	private SimulationContext context;
+	// The traits of the actor's species.
+	private SpeciesTraits traits;
+	// The step at which the actor was born, from which its age is worked out.
+	private int bornStep;
 	// Whether the actor is alive or not.
-	private boolean alive;
+	private volatile boolean alive;
 	// The actor's field.
 	private Field field;
 	// The actor's position in the field.
-	private Location location;
+	private volatile Location location;
 	// Whether the actor is healthy or not.
 	private Boolean isHealthy = true;
-	// The number of steps the actor has been sick.
-	private int sickStepCount = 0;
+	// The step at which the actor got sick.
+	private int sickSince;
+	// Whether the actor is in its field's list of actors spreading disease.
+	private boolean spreadingDisease;
+	// The number of sick neighbours the actor was exposed to in the current step.
+	private int exposures;
 	
 	/**
-	 * A constructor for an instance of an actor.
+	 * A constructor for an instance of an actor. The actor is not on the
+	 * field, nor alive, until place is called once it is fully built.
 	 *
 	 * @param randomStats If true, the actor is created with random age and
 	 *                    possibly diseased.
@@ -52,15 +66,43 @@ public abstract class Actor
 	 */
 	public Actor(boolean randomStats, Field field, Location location)
 	{
-		alive = true;
+		context = field.getContext();
+		traits = context.getTraits(getClass());
 		this.field = field;
-		setLocation(location);
-		age = 0;
+		this.location = location;
+		bornStep = context.getStep();
 		
 		if (randomStats) {
-			age = rand.nextInt(getMaxAge());
-			setDisease(DISEASE_PROBABILITY);
-		} else setDisease(DISEASE_MUTATION_PROBABILITY);
+			bornStep -= getRand().nextInt(getMaxAge());
+			setDisease(context.getDiseaseProbability());
+		} else setDisease(context.getDiseaseMutationProbability());
+		scheduleExpiry();
+	}
+	
+	/**
+	 * Put a newly created actor on its field, at the location it was created
+	 * for. Until then no other actor can find it, so no other actor sees it
+	 * half built. While actors act on several threads, another actor may
+	 * have taken the location since it was found free, and then the actor is
+	 * never born.
+	 *
+	 * @return true If the actor was placed, and is alive.
+	 */
+	public boolean place()
+	{
+		// Alive and counted before another thread can find it, so that it can be eaten as soon as it can be seen.
+		alive = true;
+		field.addToPopulation(this);
+		if (!field.isConcurrent()) {
+			field.place(this, location);
+		} else if (!field.claim(this, location)) {
+			// Never seen by another actor, so no other thread can have killed it.
+			alive = false;
+			field.removeFromPopulation(this);
+			location = null;
+			return false;
+		}
+		return true;
 	}
 	
 	/**
@@ -69,9 +111,33 @@ public abstract class Actor
 	 *
 	 * @return the number of steps since becoming diseased.
 	 */
-	public static int getDiseasedStepsTillDeath()
+	public int getDiseasedStepsTillDeath()
+	{
+		return context.getDiseasedStepsTillDeath();
+	}
+	
+	/**
+	 * @return The simulation the actor belongs to.
+	 */
+	protected SimulationContext getContext()
+	{
+		return context;
+	}
+	
+	/**
+	 * @return The traits of the actor's species.
+	 */
+	protected SpeciesTraits getTraits()
 	{
-		return DISEASED_STEPS_TILL_DEATH;
+		return traits;
+	}
+	
+	/**
+	 * @return The environment of the simulation the actor belongs to.
+	 */
+	protected Environment getEnvironment()
+	{
+		return context.getEnvironment();
 	}
 	
 	/**
@@ -93,11 +159,11 @@ public abstract class Actor
 	}
 	
 	/**
-	 * @return The shared random number.
+	 * @return The random number generator of the simulation.
 	 */
 	protected Random getRand()
 	{
-		return rand;
+		return context.getRandom();
 	}
 	
 	/**
@@ -106,14 +172,39 @@ public abstract class Actor
 	 */
 	protected void setDead()
 	{
-		alive = false;
+		kill();
 		if (location != null) {
-			field.clear(location);
+			field.release(this, location);
 			location = null;
 			field = null;
 		}
 	}
 	
+	/**
+	 * Kill the actor on behalf of another actor, such as a predator eating
+	 * it. Of several actors trying to kill it at once, on one thread or on
+	 * several, only one succeeds. Unlike setDead, the actor keeps its field
+	 * and location, as it may still be acting on another thread.
+	 *
+	 * @return true If the actor was alive and this call killed it.
+	 */
+	protected boolean kill()
+	{
+		// Read before the actor can set itself dead, after which it forgets its field.
+		Field field = this.field;
+		if (!ALIVE.compareAndSet(this, true, false)) {
+			return false;
+		}
+		Location location = this.location;
+		if (field != null) {
+			field.removeFromPopulation(this);
+			if (location != null) {
+				field.release(this, location);
+			}
+		}
+		return true;
+	}
+	
 	/**
 	 * Returns the number of steps taken by the actor after becoming diseased.
 	 *
@@ -121,15 +212,44 @@ public abstract class Actor
 	 */
 	protected int getSickStepCount()
 	{
-		return sickStepCount;
+		return isHealthy ? 0 : context.getStep() - sickSince;
+	}
+	
+	/**
+	 * Return the step at which the actor is due to die of old age or, if it
+	 * is sick, of its disease. An actor dies of age once it is older than its
+	 * maximum age, and of disease at the end of its last sick step.
+	 *
+	 * @return The step at which the actor is due to die.
+	 */
+	protected int getExpiryStep()
+	{
+		int expiry = bornStep + getMaxAge() + 1;
+		if (!isHealthy) {
+			expiry = Math.min(expiry, sickSince + getDiseasedStepsTillDeath() + 1);
+		}
+		return expiry;
 	}
 	
 	/**
-	 * Increments the steps taken after becoming diseased by one.
+	 * Schedule the actor to be checked again at the step it is due to die.
+	 * Called whenever something changes that step.
 	 */
-	protected void incrementSickStepCount()
+	protected void scheduleExpiry()
 	{
-		sickStepCount++;
+		context.scheduleExpiry(this, getExpiryStep());
+	}
+	
+	/**
+	 * Called by the simulation at a step the actor was scheduled for. The
+	 * actor dies if it is still due to die by now; it may have been
+	 * rescheduled for later since, for example by eating.
+	 */
+	protected void expire()
+	{
+		if (alive && getExpiryStep() <= context.getStep()) {
+			setDead();
+		}
 	}
 	
 	/**
@@ -156,6 +276,45 @@ public abstract class Actor
 		field.place(this, newLocation);
 	}
 	
+	/**
+	 * Move the actor to the given location if no other actor is there. While
+	 * actors act on several threads, another actor may claim the location
+	 * first, in which case the actor stays where it is.
+	 *
+	 * @param newLocation The location to move to.
+	 * @return true If the actor moved.
+	 */
+	protected boolean moveTo(Location newLocation)
+	{
+		if (!field.claim(this, newLocation)) {
+			return false;
+		}
+		Location oldLocation = location;
+		location = newLocation;
+		field.release(this, oldLocation);
+		if (!alive) {
+			// Killed on another thread while moving, perhaps before the location was set.
+			field.release(this, newLocation);
+		}
+		return true;
+	}
+	
+	/**
+	 * Move the actor to a free adjacent location, trying them in a random
+	 * order until one is not taken first by another actor.
+	 *
+	 * @return The location moved to, or null if there was none free.
+	 */
+	protected Location moveToFreeAdjacentLocation()
+	{
+		for (Location next : field.getFreeAdjacentLocations(location)) {
+			if (moveTo(next)) {
+				return next;
+			}
+		}
+		return null;
+	}
+	
 	/**
 	 * Return the actor's field.
 	 *
@@ -171,7 +330,7 @@ public abstract class Actor
 	 */
 	protected int getAge()
 	{
-		return age;
+		return context.getStep() - bornStep;
 	}
 	
 	/**
@@ -181,49 +340,126 @@ public abstract class Actor
 	 */
 	protected void setAge(int newAge)
 	{
-		age = newAge;
+		bornStep = context.getStep() - newAge;
+		scheduleExpiry();
 	}
 	
 	/**
-	 * Increase the age of the actor.
-	 * This could result in the actor's death if the maximum age is reached.
+	 * Set the actor to being diseased or not based on a probability.
+	 *
+	 * @param probability The probability of the actor getting diseased.
 	 */
-	protected void incrementAge()
+	protected void setDisease(double probability)
 	{
-		age++;
-		if (age > getMaxAge()) {
-			setDead();
+		if (getRand().nextDouble() <= probability && isHealthy) {
+			becomeDiseased();
 		}
 	}
 	
 	/**
-	 * Set the actor to being diseased or not based on a probability.
-	 *
-	 * @param probability The probability of the actor getting diseased.
+	 * Make the actor diseased. If it can spread the disease, it starts
+	 * infecting its neighbours at the end of every step.
 	 */
-	protected void setDisease(double probability)
+	protected void becomeDiseased()
 	{
-		if (getRand().nextDouble() <= probability) {
-			isHealthy = false;
+		isHealthy = false;
+		sickSince = context.getStep();
+		scheduleExpiry();
+		startSpreadingDisease();
+	}
+	
+	/**
+	 * Add the actor to its field's list of actors spreading disease, if it can
+	 * spread the disease and is not in the list already.
+	 */
+	private void startSpreadingDisease()
+	{
+		if (canSpreadDisease() && !spreadingDisease && field != null) {
+			spreadingDisease = true;
+			field.addDiseaseSpreader(this);
 		}
 	}
 	
 	/**
-	 * Iterates through the surrounding locations of the actor.
-	 * If there is an actor in the surrounding locations there is a probability of them getting infected.
+	 * Stop the actor from spreading disease, for a copy of an actor that
+	 * spreads it elsewhere. The field drops it from its list of actors
+	 * spreading disease.
 	 */
-	protected void infect()
+	protected void stopSpreadingDisease()
 	{
-		List<Location> adjLoc = field.adjacentLocations(location);
-		for (Location location : adjLoc) {
-			Actor actor = field.getActorAt(location);
-			if (actor != null) {
-				actor.setDisease(DISEASE_SPREAD_PROBABILITY);
-			}
-			
+		spreadingDisease = false;
+	}
+	
+	/**
+	 * @return true If the actor is in its field's list of actors spreading disease.
+	 */
+	protected boolean isSpreadingDisease()
+	{
+		return spreadingDisease;
+	}
+	
+	/**
+	 * Count one more sick neighbour the actor was exposed to in this step.
+	 *
+	 * @return The number of sick neighbours the actor was exposed to so far.
+	 */
+	protected int addExposure()
+	{
+		return ++exposures;
+	}
+	
+	/**
+	 * Return the number of sick neighbours the actor was exposed to in this
+	 * step and start counting again from zero.
+	 *
+	 * @return The number of sick neighbours the actor was exposed to.
+	 */
+	protected int takeExposures()
+	{
+		int count = exposures;
+		exposures = 0;
+		return count;
+	}
+	
+	/**
+	 * Write the state of the actor that changes as it lives, so that a copy
+	 * of it can be created in another process.
+	 *
+	 * @param out Where to write the state.
+	 * @throws IOException If the state cannot be written.
+	 */
+	protected void writeState(DataOutput out) throws IOException
+	{
+		out.writeInt(getAge());
+		out.writeBoolean(isHealthy);
+		out.writeInt(getSickStepCount());
+	}
+	
+	/**
+	 * Replace the state of the actor with one written by writeState.
+	 *
+	 * @param in Where to read the state from.
+	 * @throws IOException If the state cannot be read.
+	 */
+	protected void readState(DataInput in) throws IOException
+	{
+		bornStep = context.getStep() - in.readInt();
+		isHealthy = in.readBoolean();
+		sickSince = context.getStep() - in.readInt();
+		scheduleExpiry();
+		if (!isHealthy) {
+			startSpreadingDisease();
 		}
 	}
 	
+	/**
+	 * @return true If the actor infects its neighbours while it is diseased.
+	 */
+	protected boolean canSpreadDisease()
+	{
+		return false;
+	}
+	
 	/**
 	 * Generate a number representing the number of births,
 	 * if the actor can reproduce at this step.
@@ -247,6 +483,23 @@ public abstract class Actor
 	 */
 	abstract protected void act(List<Actor> newActors);
 	
+	/**
+	 * Let part of a list of actors of this actor's species act. The simulator
+	 * calls this on any actor of the species rather than act() on each of
+	 * them, so that the actors of one species act one after another.
+	 *
+	 * @param sameSpecies The actors, all of this actor's species.
+	 * @param from        The index of the first actor to act.
+	 * @param to          The index after the last actor to act.
+	 * @param newActors   A list to receive newly born actors.
+	 */
+	protected void actAll(List<Actor> sameSpecies, int from, int to, List<Actor> newActors)
+	{
+		for (int i = from; i < to; i++) {
+			sameSpecies.get(i).act(newActors);
+		}
+	}
+	
 	/**
 	 * Check if the current actor is from the same class as the provided actor.
 	 *
@@ -1,3 +1,6 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
@@ -13,8 +16,10 @@ public abstract class Animal extends Actor
 {
 	// The gender of the animal.
 	private Gender gender;
-	// The food level of the animal that is increased by eating.
-	private int foodLevel;
+	// The step at which the animal starves unless it eats, from which its food level is worked out.
+	private int starveStep;
+	// The food level of an animal that does not need to eat.
+	private int storedFoodLevel;
 	
 	/**
 	 * Create an animal. An animal can be created as a new born (age zero
@@ -38,39 +43,59 @@ public abstract class Animal extends Actor
 	
 	/**
 	 * A method representing what the animals do - move, look for food and possibly breed.
-	 * In the process, it might die of hunger, get diseased (from mutation
-	 * or from eating a diseased prey), die of disease, or of old age.
+	 * In the process, it might get diseased (from mutation or from eating a
+	 * diseased prey) or die from overcrowding. Deaths from hunger, disease and
+	 * old age are scheduled by the simulation and happen at the start of a step.
 	 *
 	 * @param newAnimals A list to return newly born animals.
 	 */
 	public void act(List<Actor> newAnimals)
 	{
-		incrementAge();
-		incrementHunger();
 		if (isActive()) {
 			Location newLocation = null;
 			if (isHealthy()) {
 				giveBirth(newAnimals);
-				// Move towards a source of food if found.
+				// Move towards a source of food if found, or else towards prey in sight.
 				newLocation = findFood();
-			} else {
-				incrementSickStepCount();
-				infect();
-			}
-			if (newLocation == null) {
-				// No food found - try to move to a free location.
-				newLocation = getField().freeAdjacentLocation(getLocation());
+				if (newLocation == null) {
+					newLocation = approachPrey();
+				}
 			}
-			// See if it was possible to move.
-			if (newLocation != null) {
-				setLocation(newLocation);
+			// Move to where food was found. If none was found, or another actor
+			// got there first, try to move to a free location.
+			if (newLocation == null || !moveTo(newLocation)) {
+				newLocation = moveToFreeAdjacentLocation();
 			}
-			if (newLocation == null || getSickStepCount() >= getDiseasedStepsTillDeath()) {
+			// Death condition: Overcrowding.
+			if (newLocation == null) {
 				setDead();
 			}
 		}
 	}
 	
+	/**
+	 * @return true, as a diseased animal infects its neighbours.
+	 */
+	protected boolean canSpreadDisease()
+	{
+		return true;
+	}
+	
+	/**
+	 * Return the step at which the animal is due to die, which for an animal
+	 * that needs to eat may be when it starves.
+	 *
+	 * @return The step at which the animal is due to die.
+	 */
+	protected int getExpiryStep()
+	{
+		int expiry = super.getExpiryStep();
+		if (!getDisabledHunger()) {
+			expiry = Math.min(expiry, starveStep);
+		}
+		return expiry;
+	}
+	
 	/**
 	 * @return The max food value of the animal.
 	 */
@@ -101,22 +126,28 @@ public abstract class Animal extends Actor
 	
 	/**
 	 * Look for food that the animal can eat in locations adjacent to the current location.
-	 * Only the first live prey is eaten.
+	 * Only the first live prey is eaten. An animal that eats plants can also graze
+	 * on the field's layer of plants at an adjacent location that is free.
 	 *
 	 * @return Where food was found, or null if it wasn't.
 	 */
 	protected Location findFood()
 	{
+		Vegetation vegetation = getTraits().isPlantEater() ? getField().getVegetation() : null;
 		List<Location> adjacent = getField().adjacentLocations(getLocation());
 		Iterator<Location> it = adjacent.iterator();
 		while (it.hasNext()) {
 			Location where = it.next();
 			Actor animal = getField().getActorAt(where);
+			if (animal == null && vegetation != null && vegetation.eat(where.getRow(), where.getCol())) {
+				setFoodLevel(vegetation.getCalories());
+				return where;
+			}
 			for (String preyString : getCanEat()) {
 				if (animal != null && preyString.equals(animal.getClass().getName())) {
-					if (animal.isActive()) {
-						animal.setDead();
-						setFoodLevel(Integer.parseInt(Config.getProperty(preyString.toLowerCase() + ".CALORIES")));
+					// Only one predator can kill a prey, even if several try at once.
+					if (animal.kill()) {
+						setFoodLevel(animal.getTraits().getCalories());
 						return where;
 					}
 				}
@@ -125,12 +156,62 @@ public abstract class Animal extends Actor
 		return null;
 	}
 	
+	/**
+	 * Look for the nearest prey within the animal's sight (SIGHT_RADIUS), for
+	 * an animal that found no food next to it. If it sees none, follow the
+	 * scent of food (SCENT_RANGE) instead.
+	 *
+	 * @return The next location towards food, or null if the animal neither sees nor smells any.
+	 */
+	protected Location approachPrey()
+	{
+		SpatialIndex spatialIndex = getField().getSpatialIndex();
+		int sightRadius = getTraits().getSightRadius();
+		if (sightRadius > 1 && spatialIndex != null) {
+			Location prey = spatialIndex.findNearestPrey(this, sightRadius);
+			if (prey != null) {
+				return getField().stepTowards(getLocation(), prey);
+			}
+		}
+		FlowField flowField = getField().getFlowField();
+		if (getTraits().getScentRange() > 0 && flowField != null) {
+			return flowField.stepTowardsFood(this);
+		}
+		return null;
+	}
+	
+	/**
+	 * Write the state of the animal, including its gender and food level.
+	 *
+	 * @param out Where to write the state.
+	 * @throws IOException If the state cannot be written.
+	 */
+	protected void writeState(DataOutput out) throws IOException
+	{
+		super.writeState(out);
+		out.writeByte(gender.ordinal());
+		out.writeInt(getFoodLevel());
+	}
+	
+	/**
+	 * Replace the state of the animal with one written by writeState.
+	 *
+	 * @param in Where to read the state from.
+	 * @throws IOException If the state cannot be read.
+	 */
+	protected void readState(DataInput in) throws IOException
+	{
+		super.readState(in);
+		gender = Gender.values()[in.readByte()];
+		setFoodLevel(in.readInt());
+	}
+	
 	/**
 	 * Set the gender of the animal in a random manner.
 	 */
 	protected void setAnimalGender()
 	{
-		Random rand = Randomizer.getRandom();
+		Random rand = getRand();
 		
 		if (rand.nextDouble() >= 0.5) gender = Gender.FEMALE;
 		else {
@@ -151,20 +232,26 @@ public abstract class Animal extends Actor
 	 */
 	protected int getFoodLevel()
 	{
-		return foodLevel;
+		return getDisabledHunger() ? storedFoodLevel : starveStep - getContext().getStep();
 	}
 	
 	/**
-	 * Set the food level of the animal.
+	 * Set the food level of the animal. An animal that needs to eat loses one
+	 * level every step and starves when it has none left.
 	 */
 	protected void setFoodLevel(int newFoodLevel)
 	{
-		foodLevel = newFoodLevel;
+		storedFoodLevel = newFoodLevel;
+		starveStep = getContext().getStep() + newFoodLevel;
+		if (!getDisabledHunger()) {
+			scheduleExpiry();
+		}
 	}
 	
 	/**
 	 * An animal can reproduce if it has reached the breeding age or is not above the
-	 * maximum breeding age. If it breeds sexually, it needs to find a partner from the opposite gender as well.
+	 * maximum breeding age. If it breeds sexually, it needs to find a partner from the opposite gender as well,
+	 * next to it or, if it sees further (SIGHT_RADIUS), within sight.
 	 *
 	 * @return true if the animal can reproduce, false otherwise.
 	 */
@@ -182,25 +269,16 @@ public abstract class Animal extends Actor
 						hasMateNearby = true;
 				}
 			}
+			SpatialIndex spatialIndex = getField().getSpatialIndex();
+			int sightRadius = getTraits().getSightRadius();
+			if (isWithinBreedingAge && !hasMateNearby && sightRadius > 1 && spatialIndex != null) {
+				hasMateNearby = spatialIndex.hasMateWithin(this, sightRadius);
+			}
 			return isWithinBreedingAge && hasMateNearby;
 		}
 		return isWithinBreedingAge;
 	}
 	
-	/**
-	 * If the animal needs to eat in order to survive, make this animal more hungry.
-	 * This could result in the animal's death.
-	 */
-	protected void incrementHunger()
-	{
-		if (!getDisabledHunger()) {
-			foodLevel--;
-			if (foodLevel <= 0) {
-				setDead();
-			}
-		}
-	}
-	
 	/**
 	 * Enum containing all possible values of the animals gender.
 	 */
@@ -1,3 +1,5 @@
+import java.util.EnumSet;
+
 /**
  * A class representing the breeding limitations of the animal based on the weather.
  *
@@ -16,7 +18,7 @@ public abstract class AnimalSeasonalBreeding extends Animal
 	@Override
 	/**
 	 * An animal can reproduce if it has reached the breeding age or is not above the
-	 * maximum breeding age. It also needs to be in its unique optimal weather conditions, specified in the
+	 * maximum breeding age. It also needs to be in one of its optimal weather conditions, specified in the
 	 * config file.
 	 * If breeding is sexual for the animal, it needs to find a partner from the opposite gender.
 	 *
@@ -24,35 +26,14 @@ public abstract class AnimalSeasonalBreeding extends Animal
 	 */
 	protected boolean canReproduce()
 	{
-		for (String weather : getActiveWeather()) {
-			if (Environment.getCurrentWeatherString().equals(weather)) {
-				break;
-			} else {
-				return false;
-			}
-		}
-		boolean isWithinBreedingAge = getAge() >= getReproductionAge() && getAge() <= getMaxReproductionAge();
-		//if the animal is gendered, check for a possible mate nearby
-		if (isGenderedReproduction()) {
-			boolean hasMateNearby = false;
-			for (Location location : getField().adjacentLocations(getLocation())) {
-				Actor actor = getField().getActorAt(location);
-				if (actor != null && isSameSpecie(actor)) {
-					Animal animal = (Animal) actor;
-					if (getGender() != animal.getGender())
-						hasMateNearby = true;
-				}
-			}
-			return isWithinBreedingAge && hasMateNearby;
-		}
-		return isWithinBreedingAge;
+		return getContext().isBreedingNow(getTraits()) && super.canReproduce();
 	}
 	
 	/**
-	 * Return a list of the weathers that the animal breeds in.
+	 * Return the weathers that the animal breeds in.
 	 *
-	 * @return A list of the weathers that the animal breeds in.
+	 * @return The weathers that the animal breeds in.
 	 */
-	abstract protected String[] getActiveWeather();
+	abstract protected EnumSet<Environment.Weather> getBreedingWeather();
 }
 
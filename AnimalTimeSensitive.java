@@ -1,3 +1,4 @@
+import java.util.EnumSet;
 import java.util.List;
 
 /**
@@ -15,7 +16,7 @@ public abstract class AnimalTimeSensitive extends Animal
 	}
 	
 	/**
-	 * Animal always grows in age and hunger. If the currentTime matches the specified activeTime (either Day/Night)
+	 * Animal always grows in age and hunger. If the species is active at the current time of day (either Day/Night)
 	 * animal is able to give birth, find food and moves to a new location provided it is not sick.
 	 * It can die from overcrowding or disease.
 	 *
@@ -24,50 +25,36 @@ public abstract class AnimalTimeSensitive extends Animal
 	@Override
 	public void act(List<Actor> newAnimals)
 	{
-		incrementAge();
-		incrementHunger();
+		if (!getContext().isActiveNow(getTraits())) {
+			return;
+		}
 		if (isActive()) {
 			Location newLocation = null;
 			
-			if (Environment.getCurrentTimeOfDayString().equals(getActiveTime())) {
-				if (isHealthy()) {
-					//if healthy and current time matches specified activeTime: exhibits the following additional behaviour
-					giveBirth(newAnimals);
-					// Move towards a source of food if found.
-					newLocation = findFood();
-					if (newLocation == null) {
-						// No food found - try to move to a free location.
-						newLocation = getField().freeAdjacentLocation(getLocation());
-					} else {
-						newLocation = getField().freeAdjacentLocation(getLocation());
-					}
+			if (isHealthy()) {
+				//if healthy and current time matches specified activeTime: exhibits the following additional behaviour
+				giveBirth(newAnimals);
+				// Eat if food is found, then move to a free location, or towards prey in sight if there was none.
+				if (findFood() == null) {
+					newLocation = approachPrey();
+				}
+				if (newLocation == null || !moveTo(newLocation)) {
+					newLocation = moveToFreeAdjacentLocation();
 				}
-			} else {
-				// Stay in current place.
-				newLocation = getLocation();
 			}
 			
-			// If the animals is sick, infect nearby actors and increments sick counter.
-			if (!isHealthy()) {
-				incrementSickStepCount();
-				infect();
-			}
-			// See if it was possible to move.
-			if (newLocation != null) {
-				setLocation(newLocation);
-			}
-			// Death conditions: either Overcrowding or Disease.
-			if (newLocation == null || getSickStepCount() >= getDiseasedStepsTillDeath()) {
+			// Death condition: Overcrowding.
+			if (newLocation == null) {
 				setDead();
 			}
 		}
 	}
 	
 	/**
-	 * Return a list of the time of day that the animal is active in.
+	 * Return the times of day that the animal is active in.
 	 *
-	 * @return A list of the time of day that the animal is active in.
+	 * @return The times of day that the animal is active in, empty if it is never active.
 	 */
-	protected abstract String getActiveTime();
+	protected abstract EnumSet<Environment.TimeOfDay> getActiveTimes();
 }
 
@@ -0,0 +1,443 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A headless harness measuring the simulation end to end. It runs one of a set of
+ * standard scenarios through the Simulator for a number of steps and prints a
+ * JSON report with the step rate, the step latency percentiles, the peak heap,
+ * the heap used per actor and the time spent in garbage collection.
+ * <p>
+ * Usage: BenchmarkHarness scenario [steps] [warmupSteps]
+ * <p>
+ * where scenario is one of sparse, dense, predator-heavy, disease-outbreak and
+ * huge (a 4000x4000 field), or all to run every scenario. Each scenario runs
+ * with its own copy of the configuration. With all, every scenario is run in its
+ * own child JVM, so that the heap and GC figures of one scenario do not include
+ * the garbage of another, and the reports are printed as a JSON array.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class BenchmarkHarness
+{
+	// The number of steps measured if none is given.
+	private static final int DEFAULT_STEPS = 500;
+	// The number of steps run before measuring if none is given.
+	private static final int DEFAULT_WARMUP_STEPS = 50;
+	
+	// The scenario being run.
+	private Scenario scenario;
+	// The number of steps to measure.
+	private int steps;
+	// The number of steps to run before measuring.
+	private int warmupSteps;
+	
+	/**
+	 * Create a harness for the given scenario.
+	 *
+	 * @param scenario    The scenario to run.
+	 * @param steps       The number of steps to measure.
+	 * @param warmupSteps The number of steps to run before measuring.
+	 */
+	public BenchmarkHarness(Scenario scenario, int steps, int warmupSteps)
+	{
+		this.scenario = scenario;
+		this.steps = steps;
+		this.warmupSteps = warmupSteps;
+	}
+	
+	/**
+	 * Run the scenario named by the first argument and print its report.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		if (args.length == 0) {
+			System.err.println("Usage: BenchmarkHarness <scenario|all> [steps] [warmupSteps]");
+			System.err.println("Scenarios: " + Arrays.toString(Scenario.names()));
+			System.exit(2);
+		}
+		int steps = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_STEPS;
+		int warmupSteps = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_WARMUP_STEPS;
+		if (args[0].equalsIgnoreCase("all")) {
+			System.out.println(runAllScenarios(steps, warmupSteps));
+		} else {
+			System.out.println(new BenchmarkHarness(Scenario.forName(args[0]), steps, warmupSteps).run());
+		}
+	}
+	
+	/**
+	 * Run every scenario in a child JVM with the same class path and heap limit.
+	 *
+	 * @param steps       The number of steps to measure.
+	 * @param warmupSteps The number of steps to run before measuring.
+	 * @return A JSON array of the reports.
+	 */
+	private static String runAllScenarios(int steps, int warmupSteps) throws IOException, InterruptedException
+	{
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		List<String> reports = new ArrayList<>();
+		for (Scenario scenario : Scenario.values()) {
+			List<String> command = new ArrayList<>();
+			command.add(java);
+			command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+			command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), BenchmarkHarness.class.getName(),
+					scenario.getName(), Integer.toString(steps), Integer.toString(warmupSteps)));
+			Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+			StringBuilder report = new StringBuilder();
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					report.append(line).append('\n');
+				}
+			}
+			if (process.waitFor() != 0) {
+				System.err.println("Scenario " + scenario.getName() + " failed.");
+				continue;
+			}
+			reports.add(report.toString().trim());
+		}
+		return "[\n" + String.join(",\n", reports) + "\n]";
+	}
+	
+	/**
+	 * Set up the scenario, run it and measure it.
+	 *
+	 * @return The JSON report of the run.
+	 */
+	public String run()
+	{
+		Config config = new Config(Config.getDefault());
+		scenario.apply(config);
+		// Measure the simulation, not the profiler.
+		config.setValue("simulator.PROFILING", "false");
+		int depth = scenario.getDepth() > 0 ? scenario.getDepth() : Integer.parseInt(config.getValue("simulator.DEFAULT_DEPTH"));
+		int width = scenario.getWidth() > 0 ? scenario.getWidth() : Integer.parseInt(config.getValue("simulator.DEFAULT_WIDTH"));
+		
+		long heapBefore = usedHeapAfterGc();
+		Simulator simulator = new Simulator(new SimulationContext(config), depth, width, false);
+		long heapAfterSetup = usedHeapAfterGc();
+		int initialActors = simulator.getActorCount();
+		
+		for (int i = 0; i < warmupSteps && simulator.getActorCount() > 0; i++) {
+			simulator.simulateOneStep();
+		}
+		
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			pool.resetPeakUsage();
+		}
+		long gcTimeBefore = getGcTime();
+		long gcCountBefore = getGcCount();
+		long[] latencies = new long[steps];
+		int stepsRun = 0;
+		long start = System.nanoTime();
+		while (stepsRun < steps && simulator.getActorCount() > 0) {
+			long stepStart = System.nanoTime();
+			simulator.simulateOneStep();
+			latencies[stepsRun++] = System.nanoTime() - stepStart;
+		}
+		long elapsed = System.nanoTime() - start;
+		long gcTime = getGcTime() - gcTimeBefore;
+		long gcCount = getGcCount() - gcCountBefore;
+		long peakHeap = getPeakHeap();
+		
+		long[] measured = Arrays.copyOf(latencies, stepsRun);
+		Arrays.sort(measured);
+		long total = 0;
+		for (long latency : measured) {
+			total += latency;
+		}
+		
+		Report report = new Report();
+		report.add("scenario", scenario.getName());
+		report.add("depth", depth);
+		report.add("width", width);
+		report.add("steps", steps);
+		report.add("stepsRun", stepsRun);
+		report.add("warmupSteps", warmupSteps);
+		report.add("initialActors", initialActors);
+		report.add("finalActors", simulator.getActorCount());
+		report.add("stepsPerSecond", stepsRun == 0 ? 0 : stepsRun / (elapsed / 1e9));
+		report.add("stepLatencyMeanMillis", stepsRun == 0 ? 0 : total / 1e6 / stepsRun);
+		report.add("stepLatencyP50Millis", percentile(measured, 0.50) / 1e6);
+		report.add("stepLatencyP99Millis", percentile(measured, 0.99) / 1e6);
+		report.add("stepLatencyMaxMillis", stepsRun == 0 ? 0 : measured[stepsRun - 1] / 1e6);
+		report.add("peakHeapBytes", peakHeap);
+		report.add("heapAfterSetupBytes", heapAfterSetup);
+		// Includes the field itself, so small populations on large fields look expensive.
+		report.add("bytesPerActor", initialActors == 0 ? 0 : (double) (heapAfterSetup - heapBefore) / initialActors);
+		report.add("gcTimeMillis", gcTime);
+		report.add("gcCount", gcCount);
+		report.add("maxHeapBytes", Runtime.getRuntime().maxMemory());
+		report.add("availableProcessors", Runtime.getRuntime().availableProcessors());
+		report.add("javaVersion", System.getProperty("java.version"));
+		simulator.close();
+		return report.toString();
+	}
+	
+	/**
+	 * @param sorted    Sorted latencies.
+	 * @param fraction  The fraction of latencies at or below the percentile.
+	 * @return The latency at the given percentile, using the nearest rank.
+	 */
+	private static long percentile(long[] sorted, double fraction)
+	{
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(fraction * sorted.length);
+		return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+	}
+	
+	/**
+	 * @return The heap used after a full garbage collection.
+	 */
+	private static long usedHeapAfterGc()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+	/**
+	 * @return The sum of the peak usage of all heap memory pools since they were reset.
+	 */
+	private static long getPeakHeap()
+	{
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+	
+	/**
+	 * @return The total time spent in garbage collection, in milliseconds.
+	 */
+	private static long getGcTime()
+	{
+		long time = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			time += Math.max(0, collector.getCollectionTime());
+		}
+		return time;
+	}
+	
+	/**
+	 * @return The total number of garbage collections.
+	 */
+	private static long getGcCount()
+	{
+		long count = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, collector.getCollectionCount());
+		}
+		return count;
+	}
+	
+	/**
+	 * Enum containing the standard scenarios. A scenario may change the size of
+	 * the field, the density of the initial population, the share of predators
+	 * and any other property of the config file.
+	 */
+	public enum Scenario
+	{
+		SPARSE("sparse", 0, 0, 0.02, 1),
+		DENSE("dense", 0, 0, 0.6, 1),
+		PREDATOR_HEAVY("predator-heavy", 0, 0, -1, 5),
+		DISEASE_OUTBREAK("disease-outbreak", 0, 0, -1, 1,
+				"disease.DISEASE_PROBABILITY", "0.2",
+				"disease.DISEASED_SPREAD_PROBABILITY", "0.3"),
+		HUGE("huge", 4000, 4000, -1, 1);
+		
+		// The name used on the command line.
+		private final String name;
+		// The size of the field, 0 to use the size from the config file.
+		private final int depth, width;
+		// The density of the initial population, negative to keep the config file's.
+		private final double density;
+		// The factor applied to the creation probability of predators.
+		private final double predatorFactor;
+		// Pairs of property names and values to override.
+		private final String[] overrides;
+		
+		Scenario(String name, int depth, int width, double density, double predatorFactor, String... overrides)
+		{
+			this.name = name;
+			this.depth = depth;
+			this.width = width;
+			this.density = density;
+			this.predatorFactor = predatorFactor;
+			this.overrides = overrides;
+		}
+		
+		/**
+		 * @param name The name of a scenario.
+		 * @return The scenario with the given name.
+		 */
+		public static Scenario forName(String name)
+		{
+			for (Scenario scenario : values()) {
+				if (scenario.name.equalsIgnoreCase(name)) {
+					return scenario;
+				}
+			}
+			throw new IllegalArgumentException("Unknown scenario " + name + ", expected one of " + Arrays.toString(names()));
+		}
+		
+		/**
+		 * @return The names of all scenarios.
+		 */
+		public static String[] names()
+		{
+			String[] names = new String[values().length];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = values()[i].name;
+			}
+			return names;
+		}
+		
+		/**
+		 * Override the properties of a configuration for this scenario.
+		 *
+		 * @param config The configuration of the simulation to run.
+		 */
+		public void apply(Config config)
+		{
+			for (int i = 0; i + 1 < overrides.length; i += 2) {
+				config.setValue(overrides[i], overrides[i + 1]);
+			}
+			double totalDensity = density;
+			if (totalDensity < 0) {
+				totalDensity = 0;
+				for (String property : config.getKeysContaining("CREATION_PROBABILITY")) {
+					totalDensity += Double.parseDouble(config.getValue(property));
+				}
+			}
+			if (predatorFactor != 1) {
+				for (String property : config.getKeysContaining("CREATION_PROBABILITY")) {
+					if (isPredator(config, new PropertyLine(property, config).getClassString())) {
+						double probability = Double.parseDouble(config.getValue(property));
+						config.setValue(property, Double.toString(probability * predatorFactor));
+					}
+				}
+			}
+			PopulationGenerator.setDensity(config, totalDensity);
+		}
+		
+		/**
+		 * Check whether a species eats other animals, according to its CAN_EAT
+		 * property in the configuration.
+		 *
+		 * @param config      The configuration of the simulation.
+		 * @param classString The unqualified class name of the species.
+		 * @return true If the species eats at least one kind of animal.
+		 */
+		private static boolean isPredator(Config config, String classString)
+		{
+			String canEat = config.getValue(classString + ".CAN_EAT");
+			if (canEat == null) {
+				return false;
+			}
+			for (String prey : canEat.split(", ")) {
+				try {
+					Class<?> cls = Class.forName(prey.trim(), false, Scenario.class.getClassLoader());
+					if (Animal.class.isAssignableFrom(cls)) {
+						return true;
+					}
+				} catch (ClassNotFoundException e) {
+					// Not a class of the simulation, so not an animal.
+				}
+			}
+			return false;
+		}
+		
+		/**
+		 * @return The name used on the command line.
+		 */
+		public String getName()
+		{
+			return name;
+		}
+		
+		/**
+		 * @return The depth of the field, 0 to use the config file's.
+		 */
+		public int getDepth()
+		{
+			return depth;
+		}
+		
+		/**
+		 * @return The width of the field, 0 to use the config file's.
+		 */
+		public int getWidth()
+		{
+			return width;
+		}
+	}
+	
+	/**
+	 * A flat JSON object built one field at a time.
+	 */
+	private static class Report
+	{
+		private final StringBuilder json = new StringBuilder();
+		
+		/**
+		 * Add a string field.
+		 */
+		public void add(String name, String value)
+		{
+			appendName(name);
+			json.append('"').append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+		}
+		
+		/**
+		 * Add a whole number field.
+		 */
+		public void add(String name, long value)
+		{
+			appendName(name);
+			json.append(value);
+		}
+		
+		/**
+		 * Add a decimal number field.
+		 */
+		public void add(String name, double value)
+		{
+			appendName(name);
+			json.append(String.format(Locale.ROOT, "%.3f", value));
+		}
+		
+		/**
+		 * Start a new field.
+		 */
+		private void appendName(String name)
+		{
+			json.append(json.length() == 0 ? "{\n  \"" : ",\n  \"").append(name).append("\": ");
+		}
+		
+		/**
+		 * @return The JSON object.
+		 */
+		public String toString()
+		{
+			return json.length() == 0 ? "{}" : json + "\n}";
+		}
+	}
+}
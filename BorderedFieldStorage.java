@@ -0,0 +1,201 @@
+import java.util.Arrays;
+
+/**
+ * Field storage that keeps every location in one flat array surrounded by a
+ * border of one location on every side. The border holds a sentinel that is
+ * never free and never an actor, so looking at the neighbours of a location
+ * needs no checks of whether they are inside the field.
+ * <p>
+ * The locations are stored row by row, or, if a tile size is given, in square
+ * tiles of that many rows and columns stored one after another, so that the
+ * neighbours of most locations are in the same few cache lines rather than
+ * in three rows far apart.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class BorderedFieldStorage implements FieldStorage
+{
+	// Fills the border, so that the locations outside the field are never free.
+	private static final Object BORDER = new Object();
+	
+	// The actor at each location, null at an empty one and BORDER around the field.
+	private Object[] cells;
+	// The depth and width of the field.
+	private int depth, width;
+	// The width of a row of the array, the field and its border, when the locations are stored row by row.
+	private int stride;
+	// The number of bits of a coordinate that select a location within its tile, or 0 if there are no tiles.
+	private int tileBits;
+	// Selects the position of a coordinate within its tile.
+	private int tileMask;
+	// The number of tiles across the field and its border.
+	private int tilesAcross;
+	// The difference between the index of a location and those of its neighbours, when there are no tiles.
+	private int[] neighbourOffsets;
+	
+	/**
+	 * Create storage for a field of the given size.
+	 *
+	 * @param depth    The depth of the field.
+	 * @param width    The width of the field.
+	 * @param tileSize The depth and width of a tile, a power of two, or 0 to store the locations row by row.
+	 */
+	public BorderedFieldStorage(int depth, int width, int tileSize)
+	{
+		if (tileSize < 0 || (tileSize & (tileSize - 1)) != 0 || tileSize == 1) {
+			throw new IllegalArgumentException("The tile size must be 0 or a power of two: " + tileSize);
+		}
+		this.depth = depth;
+		this.width = width;
+		stride = width + 2;
+		if (tileSize > 0) {
+			tileBits = Integer.numberOfTrailingZeros(tileSize);
+			tileMask = tileSize - 1;
+			tilesAcross = (width + 2 + tileMask) >> tileBits;
+			int tilesDown = (depth + 2 + tileMask) >> tileBits;
+			cells = new Object[tilesDown * tilesAcross << 2 * tileBits];
+		} else {
+			cells = new Object[(depth + 2) * stride];
+		}
+		neighbourOffsets = new int[8];
+		for (int i = 0; i < 8; i++) {
+			neighbourOffsets[i] = NEIGHBOUR_ROWS[i] * stride + NEIGHBOUR_COLS[i];
+		}
+		for (int row = -1; row <= depth; row++) {
+			cells[index(row, -1)] = BORDER;
+			cells[index(row, width)] = BORDER;
+		}
+		for (int col = 0; col < width; col++) {
+			cells[index(-1, col)] = BORDER;
+			cells[index(depth, col)] = BORDER;
+		}
+	}
+	
+	/**
+	 * @param row The row of the location, from -1 to depth.
+	 * @param col The column of the location, from -1 to width.
+	 * @return The index of the location in the array.
+	 */
+	private int index(int row, int col)
+	{
+		row++;
+		col++;
+		if (tileBits == 0) {
+			return row * stride + col;
+		}
+		int tile = (row >> tileBits) * tilesAcross + (col >> tileBits);
+		return tile << 2 * tileBits | (row & tileMask) << tileBits | (col & tileMask);
+	}
+	
+	/**
+	 * @param row The row of the location.
+	 * @param col The column of the location.
+	 * @return The actor at the location, or null if there is none.
+	 */
+	public Actor get(int row, int col)
+	{
+		return (Actor) cells[index(row, col)];
+	}
+	
+	/**
+	 * @param row   The row of the location.
+	 * @param col   The column of the location.
+	 * @param actor The actor to store, or null to empty the location.
+	 */
+	public void set(int row, int col, Actor actor)
+	{
+		cells[index(row, col)] = actor;
+	}
+	
+	/**
+	 * Find which of the eight neighbours of a location are empty, without
+	 * checking whether they are inside the field: those outside hold the
+	 * border.
+	 *
+	 * @param row   The row of the location.
+	 * @param col   The column of the location.
+	 * @param depth The depth of the field.
+	 * @param width The width of the field.
+	 * @return A bit set with bit i set if neighbour i is free.
+	 */
+	public int freeNeighbours(int row, int col, int depth, int width)
+	{
+		int free = 0;
+		if (tileBits == 0) {
+			int index = (row + 1) * stride + col + 1;
+			for (int i = 0; i < 8; i++) {
+				if (cells[index + neighbourOffsets[i]] == null) {
+					free |= 1 << i;
+				}
+			}
+		} else {
+			for (int i = 0; i < 8; i++) {
+				if (cells[index(row + NEIGHBOUR_ROWS[i], col + NEIGHBOUR_COLS[i])] == null) {
+					free |= 1 << i;
+				}
+			}
+		}
+		return free;
+	}
+	
+	/**
+	 * Look up the actors at the eight neighbours of a location, without
+	 * checking whether they are inside the field.
+	 *
+	 * @param row        The row of the location.
+	 * @param col        The column of the location.
+	 * @param depth      The depth of the field.
+	 * @param width      The width of the field.
+	 * @param neighbours Filled with the actor at neighbour i, or null if it is empty or outside the field.
+	 */
+	public void getNeighbours(int row, int col, int depth, int width, Actor[] neighbours)
+	{
+		if (tileBits == 0) {
+			int index = (row + 1) * stride + col + 1;
+			for (int i = 0; i < 8; i++) {
+				Object cell = cells[index + neighbourOffsets[i]];
+				neighbours[i] = cell instanceof Actor ? (Actor) cell : null;
+			}
+		} else {
+			for (int i = 0; i < 8; i++) {
+				Object cell = cells[index(row + NEIGHBOUR_ROWS[i], col + NEIGHBOUR_COLS[i])];
+				neighbours[i] = cell instanceof Actor ? (Actor) cell : null;
+			}
+		}
+	}
+	
+	/**
+	 * Empty every location of the field, leaving the border.
+	 */
+	public void clear()
+	{
+		for (int row = 0; row < depth; row++) {
+			if (tileBits == 0) {
+				int start = index(row, 0);
+				Arrays.fill(cells, start, start + width, null);
+			} else {
+				for (int col = 0; col < width; col++) {
+					cells[index(row, col)] = null;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Visit every location that holds an actor, row by row.
+	 *
+	 * @param visitor What to do with each actor.
+	 */
+	public void forEachActor(ActorVisitor visitor)
+	{
+		for (int row = 0; row < depth; row++) {
+			for (int col = 0; col < width; col++) {
+				Object cell = cells[index(row, col)];
+				if (cell != null) {
+					visitor.visit(row, col, (Actor) cell);
+				}
+			}
+		}
+	}
+}
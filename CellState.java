@@ -0,0 +1,95 @@
+/**
+ * A class containing only static methods that pack the visible state of a single
+ * field cell into one byte.
+ * <p>
+ * The low four bits hold a species code (0 for an empty cell, 1 to 15 for a
+ * species), the next bit is set if the actor is diseased, and the two bits above
+ * that hold the gender of animals. Plants have neither gender bit set.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class CellState
+{
+	// The packed state of an empty cell.
+	public static final byte EMPTY = 0;
+	// The largest species code that fits in a packed cell.
+	public static final int MAX_SPECIES_CODE = 0x0F;
+	// The number of color indexes (see getColorIndex).
+	public static final int COLOR_COUNT = 0x20;
+	
+	// Bit masks of the packed cell.
+	private static final int SPECIES_MASK = 0x0F;
+	private static final int DISEASED_BIT = 0x10;
+	private static final int MALE_BIT = 0x20;
+	private static final int FEMALE_BIT = 0x40;
+	
+	/**
+	 * Pack the state of an actor into a single byte.
+	 *
+	 * @param speciesCode The code of the actor's species, between 1 and MAX_SPECIES_CODE.
+	 * @param actor       The actor to pack.
+	 * @return The packed state of the cell occupied by the actor.
+	 */
+	public static byte pack(int speciesCode, Actor actor)
+	{
+		int cell = speciesCode & SPECIES_MASK;
+		if (!actor.isHealthy()) {
+			cell |= DISEASED_BIT;
+		}
+		if (actor instanceof Animal) {
+			cell |= ((Animal) actor).getGender() == Animal.Gender.MALE ? MALE_BIT : FEMALE_BIT;
+		}
+		return (byte) cell;
+	}
+	
+	/**
+	 * @param cell A packed cell.
+	 * @return The species code of the cell, 0 if the cell is empty.
+	 */
+	public static int getSpeciesCode(byte cell)
+	{
+		return cell & SPECIES_MASK;
+	}
+	
+	/**
+	 * @param cell A packed cell.
+	 * @return The species code and diseased bit of the cell, which are all that decide its color, less than COLOR_COUNT.
+	 */
+	public static int getColorIndex(byte cell)
+	{
+		return cell & (SPECIES_MASK | DISEASED_BIT);
+	}
+	
+	/**
+	 * @param speciesCode The code of a species.
+	 * @return The color index of a diseased actor of the species.
+	 */
+	public static int getDiseasedColorIndex(int speciesCode)
+	{
+		return speciesCode & SPECIES_MASK | DISEASED_BIT;
+	}
+	
+	/**
+	 * @param cell A packed cell.
+	 * @return true If the cell holds a diseased actor.
+	 */
+	public static boolean isDiseased(byte cell)
+	{
+		return (cell & DISEASED_BIT) != 0;
+	}
+	
+	/**
+	 * @param cell A packed cell.
+	 * @return The gender of the animal in the cell, or null if the cell does not hold an animal.
+	 */
+	public static Animal.Gender getGender(byte cell)
+	{
+		if ((cell & MALE_BIT) != 0) {
+			return Animal.Gender.MALE;
+		} else if ((cell & FEMALE_BIT) != 0) {
+			return Animal.Gender.FEMALE;
+		}
+		return null;
+	}
+}
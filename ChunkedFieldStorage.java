@@ -0,0 +1,248 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Field storage for very large, mostly empty fields. The field is split into
+ * square chunks of CHUNK_SIZE by CHUNK_SIZE locations, and a chunk is only
+ * allocated while it holds an actor, so memory and iteration grow with the
+ * number of actors rather than with the area of the field.
+ * <p>
+ * A chunk holding few actors keeps them in a short sorted list of positions,
+ * and only switches to an array of every location once it is busy, so that
+ * actors scattered thinly over a huge field do not each cost a whole chunk.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class ChunkedFieldStorage implements FieldStorage
+{
+	// The number of bits of a coordinate that select a location within its chunk.
+	private static final int CHUNK_BITS = 6;
+	// The depth and width of a chunk.
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	// Selects the position of a coordinate within its chunk.
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	// The most actors a chunk keeps in its list before storing every location.
+	private static final int SPARSE_LIMIT = CHUNK_SIZE * CHUNK_SIZE / 16;
+	
+	// The allocated chunks, keyed by their chunk row and column.
+	private HashMap<Long, Chunk> chunks;
+	// The chunk used last, which is usually the one used next.
+	private Chunk lastChunk;
+	
+	/**
+	 * Create empty chunked storage.
+	 */
+	public ChunkedFieldStorage()
+	{
+		chunks = new HashMap<>();
+	}
+	
+	/**
+	 * @param row The row of the location.
+	 * @param col The column of the location.
+	 * @return The actor at the location, or null if there is none.
+	 */
+	public Actor get(int row, int col)
+	{
+		Chunk chunk = getChunk(row, col);
+		return chunk == null ? null : chunk.get(index(row, col));
+	}
+	
+	/**
+	 * Store an actor, allocating its chunk if needed. A chunk left without
+	 * actors is freed.
+	 *
+	 * @param row   The row of the location.
+	 * @param col   The column of the location.
+	 * @param actor The actor to store, or null to empty the location.
+	 */
+	public void set(int row, int col, Actor actor)
+	{
+		Chunk chunk = getChunk(row, col);
+		if (chunk == null) {
+			if (actor == null) {
+				return;
+			}
+			chunk = new Chunk(row >> CHUNK_BITS, col >> CHUNK_BITS);
+			chunks.put(key(row, col), chunk);
+			lastChunk = chunk;
+		}
+		chunk.set(index(row, col), actor);
+		if (chunk.occupied == 0) {
+			chunks.remove(key(row, col));
+			lastChunk = null;
+		}
+	}
+	
+	/**
+	 * Free every chunk.
+	 */
+	public void clear()
+	{
+		chunks.clear();
+		lastChunk = null;
+	}
+	
+	/**
+	 * Visit every location that holds an actor, skipping the chunks that
+	 * are not allocated.
+	 *
+	 * @param visitor What to do with each actor.
+	 */
+	public void forEachActor(ActorVisitor visitor)
+	{
+		for (Chunk chunk : chunks.values()) {
+			int firstRow = chunk.chunkRow << CHUNK_BITS;
+			int firstCol = chunk.chunkCol << CHUNK_BITS;
+			if (chunk.cells != null) {
+				for (int i = 0; i < chunk.cells.length; i++) {
+					if (chunk.cells[i] != null) {
+						visitor.visit(firstRow + (i >> CHUNK_BITS), firstCol + (i & CHUNK_MASK), chunk.cells[i]);
+					}
+				}
+			} else {
+				for (int i = 0; i < chunk.occupied; i++) {
+					visitor.visit(firstRow + (chunk.positions[i] >> CHUNK_BITS), firstCol + (chunk.positions[i] & CHUNK_MASK), chunk.actors[i]);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return The number of chunks allocated.
+	 */
+	public int getChunkCount()
+	{
+		return chunks.size();
+	}
+	
+	/**
+	 * @param row The row of a location.
+	 * @param col The column of a location.
+	 * @return The chunk holding the location, or null if it is not allocated.
+	 */
+	private Chunk getChunk(int row, int col)
+	{
+		Chunk chunk = lastChunk;
+		if (chunk != null && chunk.chunkRow == row >> CHUNK_BITS && chunk.chunkCol == col >> CHUNK_BITS) {
+			return chunk;
+		}
+		chunk = chunks.get(key(row, col));
+		if (chunk != null) {
+			lastChunk = chunk;
+		}
+		return chunk;
+	}
+	
+	/**
+	 * @param row The row of a location.
+	 * @param col The column of a location.
+	 * @return The key of the chunk holding the location.
+	 */
+	private static Long key(int row, int col)
+	{
+		return ((long) (row >> CHUNK_BITS) << 32) | (col >> CHUNK_BITS);
+	}
+	
+	/**
+	 * @param row The row of a location.
+	 * @param col The column of a location.
+	 * @return The position of the location within its chunk.
+	 */
+	private static int index(int row, int col)
+	{
+		return ((row & CHUNK_MASK) << CHUNK_BITS) | (col & CHUNK_MASK);
+	}
+	
+	/**
+	 * A square block of locations and the actors in it.
+	 */
+	private static class Chunk
+	{
+		// The row and column of the chunk, in chunks.
+		private final int chunkRow, chunkCol;
+		// The actor at each location of the chunk, row by row, or null while the actors are listed.
+		private Actor[] cells;
+		// The positions within the chunk of the listed actors, in ascending order.
+		private short[] positions = new short[4];
+		// The listed actors, in the same order as their positions.
+		private Actor[] actors = new Actor[4];
+		// The number of locations holding an actor.
+		private int occupied;
+		
+		/**
+		 * @param chunkRow The row of the chunk, in chunks.
+		 * @param chunkCol The column of the chunk, in chunks.
+		 */
+		private Chunk(int chunkRow, int chunkCol)
+		{
+			this.chunkRow = chunkRow;
+			this.chunkCol = chunkCol;
+		}
+		
+		/**
+		 * @param index The position of a location within the chunk.
+		 * @return The actor at the location, or null if there is none.
+		 */
+		private Actor get(int index)
+		{
+			if (cells != null) {
+				return cells[index];
+			}
+			int listed = Arrays.binarySearch(positions, 0, occupied, (short) index);
+			return listed >= 0 ? actors[listed] : null;
+		}
+		
+		/**
+		 * @param index The position of a location within the chunk.
+		 * @param actor The actor to store, or null to empty the location.
+		 */
+		private void set(int index, Actor actor)
+		{
+			if (cells != null) {
+				if (cells[index] == null && actor != null) {
+					occupied++;
+				} else if (cells[index] != null && actor == null) {
+					occupied--;
+				}
+				cells[index] = actor;
+				return;
+			}
+			int listed = Arrays.binarySearch(positions, 0, occupied, (short) index);
+			if (listed >= 0) {
+				if (actor != null) {
+					actors[listed] = actor;
+				} else {
+					occupied--;
+					System.arraycopy(positions, listed + 1, positions, listed, occupied - listed);
+					System.arraycopy(actors, listed + 1, actors, listed, occupied - listed);
+					actors[occupied] = null;
+				}
+			} else if (actor != null) {
+				if (occupied == SPARSE_LIMIT) {
+					// The chunk is busy enough for an array of every location to be smaller.
+					cells = new Actor[CHUNK_SIZE * CHUNK_SIZE];
+					for (int i = 0; i < occupied; i++) {
+						cells[positions[i]] = actors[i];
+					}
+					positions = null;
+					actors = null;
+					cells[index] = actor;
+					occupied++;
+					return;
+				}
+				if (occupied == positions.length) {
+					positions = Arrays.copyOf(positions, occupied * 2);
+					actors = Arrays.copyOf(actors, occupied * 2);
+				}
+				int insert = -listed - 1;
+				System.arraycopy(positions, insert, positions, insert + 1, occupied - insert);
+				System.arraycopy(actors, insert, actors, insert + 1, occupied - insert);
+				positions[insert] = (short) index;
+				actors[insert] = actor;
+				occupied++;
+			}
+		}
+	}
+}
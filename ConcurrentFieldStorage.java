@@ -0,0 +1,109 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Field storage that actors acting on several threads at once can share. It
+ * keeps every location in one array, like DenseFieldStorage, but claims and
+ * releases locations with compare-and-set, so that two actors never end up in
+ * the same location and an actor leaving a location never empties it of
+ * another actor that moved in.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class ConcurrentFieldStorage implements FieldStorage
+{
+	// Atomic access to the elements of the array of locations.
+	private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(Actor[].class);
+	
+	// The actor at each location, row by row.
+	private Actor[] cells;
+	// The width of the field.
+	private int width;
+	
+	/**
+	 * Create storage for a field of the given size.
+	 *
+	 * @param depth The depth of the field.
+	 * @param width The width of the field.
+	 */
+	public ConcurrentFieldStorage(int depth, int width)
+	{
+		this.width = width;
+		cells = new Actor[depth * width];
+	}
+	
+	/**
+	 * @param row The row of the location.
+	 * @param col The column of the location.
+	 * @return The actor at the location, or null if there is none.
+	 */
+	public Actor get(int row, int col)
+	{
+		// Acquire, so that an actor placed by another thread is seen fully created.
+		return (Actor) CELLS.getAcquire(cells, row * width + col);
+	}
+	
+	/**
+	 * @param row   The row of the location.
+	 * @param col   The column of the location.
+	 * @param actor The actor to store, or null to empty the location.
+	 */
+	public void set(int row, int col, Actor actor)
+	{
+		CELLS.setRelease(cells, row * width + col, actor);
+	}
+	
+	/**
+	 * @param row   The row of the location.
+	 * @param col   The column of the location.
+	 * @param actor The actor to store.
+	 * @return true If the location was empty and now holds the actor.
+	 */
+	public boolean claim(int row, int col, Actor actor)
+	{
+		return CELLS.compareAndSet(cells, row * width + col, null, actor);
+	}
+	
+	/**
+	 * @param row   The row of the location.
+	 * @param col   The column of the location.
+	 * @param actor The actor leaving the location.
+	 */
+	public void release(int row, int col, Actor actor)
+	{
+		CELLS.compareAndSet(cells, row * width + col, actor, null);
+	}
+	
+	/**
+	 * @return true, as locations are claimed and released atomically.
+	 */
+	public boolean isConcurrent()
+	{
+		return true;
+	}
+	
+	/**
+	 * Empty every location.
+	 */
+	public void clear()
+	{
+		Arrays.fill(cells, null);
+	}
+	
+	/**
+	 * Visit every location that holds an actor, row by row.
+	 *
+	 * @param visitor What to do with each actor.
+	 */
+	public void forEachActor(ActorVisitor visitor)
+	{
+		for (int index = 0; index < cells.length; index++) {
+			Actor actor = cells[index];
+			if (actor != null) {
+				visitor.visit(index / width, index % width, actor);
+			}
+		}
+	}
+}
@@ -3,20 +3,22 @@ import java.util.HashSet;
 import java.util.Properties;
 
 /**
- * Singleton class to load and add retrieval functionality to a configuration
+ * Class to load and add retrieval functionality to a configuration
  * file 'config.cfg' in the source directory using the Java properties API.
  * <p>
- * This is a singleton class.
+ * The configuration loaded from the file is a singleton, available through the
+ * static methods. A simulation with its own parameters uses a copy of it,
+ * which can be changed without affecting any other simulation.
  *
  * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
  * @version 2018.02.21
  */
 public class Config
 {
-	// The instance of the Config class
+	// The instance of the Config class loaded from config.cfg.
 	private static Config instance;
 	// Loaded information from the config.cfg file.
-	private static Properties configFile;
+	private Properties configFile;
 	
 	/**
 	 * Load the property list from config.cfg.
@@ -31,6 +33,30 @@ public class Config
 		}
 	}
 	
+	/**
+	 * Create a copy of a configuration. Changes to the copy do not affect
+	 * the original.
+	 *
+	 * @param original - the configuration to copy.
+	 */
+	public Config(Config original)
+	{
+		configFile = new java.util.Properties();
+		configFile.putAll(original.configFile);
+	}
+	
+	/**
+	 * Returns the configuration loaded from config.cfg, loading it if
+	 * this has not been done yet.
+	 *
+	 * @return the configuration loaded from config.cfg.
+	 */
+	public static synchronized Config getDefault()
+	{
+		if (instance == null) instance = new Config();
+		return instance;
+	}
+	
 	/**
 	 * Returns the string value associated with given string key.
 	 * If an instance of the Config class has not yet been created, and therefore
@@ -41,8 +67,32 @@ public class Config
 	 */
 	public static String getProperty(String key)
 	{
-		if (instance == null) instance = new Config();
-		return instance.getValue(key);
+		return getDefault().getValue(key);
+	}
+	
+	/**
+	 * Returns the string value associated with given string key, or the given
+	 * default value if the config file does not define the key.
+	 *
+	 * @param key          - string property name that is associated with a value.
+	 * @param defaultValue - value to return if the property is not defined.
+	 * @return the value associated with given string key, or the default value.
+	 */
+	public static String getProperty(String key, String defaultValue)
+	{
+		return getDefault().getValue(key, defaultValue);
+	}
+	
+	/**
+	 * Overrides the value of a property for the rest of the run.
+	 * Only simulations created after the override see the new value.
+	 *
+	 * @param key   - string property name to override.
+	 * @param value - the new value of the property.
+	 */
+	public static void setProperty(String key, String value)
+	{
+		getDefault().setValue(key, value);
 	}
 	
 	/**
@@ -55,13 +105,7 @@ public class Config
 	 */
 	public static HashSet<String> getPropertiesContaining(String substring)
 	{
-		HashSet<String> set = new HashSet<>();
-		Enumeration<?> enumeration = Config.configFile.propertyNames();
-		while (enumeration.hasMoreElements()) {
-			String key = (String) enumeration.nextElement();
-			if (key.contains(substring)) set.add(key);
-		}
-		return set;
+		return getDefault().getKeysContaining(substring);
 	}
 	
 	/**
@@ -70,9 +114,51 @@ public class Config
 	 * @param key - string property name that is associated with a value.
 	 * @return the value associated with given string key, also as a string.
 	 */
-	private String getValue(String key)
+	public String getValue(String key)
 	{
 		return configFile.getProperty(key);
 	}
+	
+	/**
+	 * Returns the string value associated with given string key, or the given
+	 * default value if this configuration does not define the key.
+	 *
+	 * @param key          - string property name that is associated with a value.
+	 * @param defaultValue - value to return if the property is not defined.
+	 * @return the value associated with given string key, or the default value.
+	 */
+	public String getValue(String key, String defaultValue)
+	{
+		String value = getValue(key);
+		return value == null ? defaultValue : value.trim();
+	}
+	
+	/**
+	 * Overrides the value of a property in this configuration.
+	 *
+	 * @param key   - string property name to override.
+	 * @param value - the new value of the property.
+	 */
+	public void setValue(String key, String value)
+	{
+		configFile.setProperty(key, value);
+	}
+	
+	/**
+	 * Returns a Set of strings containing all property names of this
+	 * configuration that contain a given substring.
+	 *
+	 * @param substring - substring to search for in property names.
+	 * @return Set containing all property names that contain the substring.
+	 */
+	public HashSet<String> getKeysContaining(String substring)
+	{
+		HashSet<String> set = new HashSet<>();
+		Enumeration<?> enumeration = configFile.propertyNames();
+		while (enumeration.hasMoreElements()) {
+			String key = (String) enumeration.nextElement();
+			if (key.contains(substring)) set.add(key);
+		}
+		return set;
+	}
 }
-
@@ -0,0 +1,71 @@
+import java.util.Arrays;
+
+/**
+ * Field storage that keeps every location in one array. It is the fastest to
+ * look up, but its memory grows with the area of the field.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class DenseFieldStorage implements FieldStorage
+{
+	// The actor at each location.
+	private Actor[][] cells;
+	
+	/**
+	 * Create storage for a field of the given size.
+	 *
+	 * @param depth The depth of the field.
+	 * @param width The width of the field.
+	 */
+	public DenseFieldStorage(int depth, int width)
+	{
+		cells = new Actor[depth][width];
+	}
+	
+	/**
+	 * @param row The row of the location.
+	 * @param col The column of the location.
+	 * @return The actor at the location, or null if there is none.
+	 */
+	public Actor get(int row, int col)
+	{
+		return cells[row][col];
+	}
+	
+	/**
+	 * @param row   The row of the location.
+	 * @param col   The column of the location.
+	 * @param actor The actor to store, or null to empty the location.
+	 */
+	public void set(int row, int col, Actor actor)
+	{
+		cells[row][col] = actor;
+	}
+	
+	/**
+	 * Empty every location.
+	 */
+	public void clear()
+	{
+		for (Actor[] row : cells) {
+			Arrays.fill(row, null);
+		}
+	}
+	
+	/**
+	 * Visit every location that holds an actor, row by row.
+	 *
+	 * @param visitor What to do with each actor.
+	 */
+	public void forEachActor(ActorVisitor visitor)
+	{
+		for (int row = 0; row < cells.length; row++) {
+			for (int col = 0; col < cells[row].length; col++) {
+				if (cells[row][col] != null) {
+					visitor.visit(row, col, cells[row][col]);
+				}
+			}
+		}
+	}
+}
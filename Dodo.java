@@ -10,30 +10,6 @@ import java.util.List;
  */
 public class Dodo extends Animal
 {
-	// Property prefix used in the config file.
-	private static String propertyPrefix = Dodo.class.getName().toLowerCase() + ".";
-	// The age at which a dodo can start to breed.
-	private static final int REPRODUCTION_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "REPRODUCTION_AGE"));
-	// The age at which the dodo stops breeding.
-	private static final int MAX_REPRODUCTION_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_REPRODUCTION_AGE"));
-	// The age to which a dodo can live.
-	private static final int MAX_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_AGE"));
-	// The likelihood of a dodo breeding.
-	private static final double REPRODUCTION_PROBABILITY = Float.parseFloat(Config.getProperty(propertyPrefix + "REPRODUCTION_PROBABILITY"));
-	// The maximum number of births a dodo can have per step.
-	private static final int MAX_OFFSPRING = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_OFFSPRING"));
-	// The amount of steps an animal can go after eating the dodo.
-	private static final int CALORIES = Integer.parseInt(Config.getProperty(propertyPrefix + "CALORIES"));
-	// The level of food the dodo needs to reach in order to stop eating.
-	private static final int MAX_FOOD_VALUE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_FOOD_VALUE"));
-	// The type of reproduction the dodo has.
-	private static final boolean GENDERED_REPRODUCTION = Boolean.parseBoolean(Config.getProperty(propertyPrefix + "GENDERED_REPRODUCTION"));
-	// A list of the type of food the dodo can eat.
-	private static final String[] CAN_EAT = Config.getProperty(propertyPrefix + "CAN_EAT").split(", ");
-	// Whether the dodo needs to eat food in order to survive.
-	private static final boolean DISABLED_HUNGER = Boolean.parseBoolean(Config.getProperty(propertyPrefix + "DISABLE_HUNGER"));
-	
-	
 	/**
 	 * Create a dodo. A dodo can be created as a new born (age zero
 	 * and not hungry) or with a random age and food level.
@@ -64,7 +40,9 @@ public class Dodo extends Animal
 		for (int b = 0; b < births && free.size() > 0; b++) {
 			Location loc = free.remove(0);
 			Dodo young = new Dodo(false, getField(), loc);
-			newDodos.add(young);
+			if (young.place()) {
+				newDodos.add(young);
+			}
 		}
 	}
 	
@@ -73,7 +51,7 @@ public class Dodo extends Animal
 	 */
 	public int getMaxFoodValue()
 	{
-		return MAX_FOOD_VALUE;
+		return getTraits().getMaxFoodValue();
 	}
 	
 	/**
@@ -81,7 +59,7 @@ public class Dodo extends Animal
 	 */
 	public int getMaxAge()
 	{
-		return MAX_AGE;
+		return getTraits().getMaxAge();
 	}
 	
 	/**
@@ -89,7 +67,7 @@ public class Dodo extends Animal
 	 */
 	public double getReproductionProbability()
 	{
-		return REPRODUCTION_PROBABILITY;
+		return getTraits().getReproductionProbability();
 	}
 	
 	/**
@@ -97,7 +75,7 @@ public class Dodo extends Animal
 	 */
 	public int getMaxOffspring()
 	{
-		return MAX_OFFSPRING;
+		return getTraits().getMaxOffspring();
 	}
 	
 	/**
@@ -105,7 +83,7 @@ public class Dodo extends Animal
 	 */
 	public int getReproductionAge()
 	{
-		return REPRODUCTION_AGE;
+		return getTraits().getReproductionAge();
 	}
 	
 	/**
@@ -113,7 +91,7 @@ public class Dodo extends Animal
 	 */
 	public int getMaxReproductionAge()
 	{
-		return MAX_REPRODUCTION_AGE;
+		return getTraits().getMaxReproductionAge();
 	}
 	
 	/**
@@ -121,7 +99,7 @@ public class Dodo extends Animal
 	 */
 	public String[] getCanEat()
 	{
-		return CAN_EAT;
+		return getTraits().getCanEat();
 	}
 	
 	/**
@@ -129,7 +107,7 @@ public class Dodo extends Animal
 	 */
 	public boolean isGenderedReproduction()
 	{
-		return GENDERED_REPRODUCTION;
+		return getTraits().isGenderedReproduction();
 	}
 	
 	/**
@@ -148,6 +126,6 @@ public class Dodo extends Animal
 	 */
 	protected boolean getDisabledHunger()
 	{
-		return DISABLED_HUNGER;
+		return getTraits().getDisabledHunger();
 	}
 }
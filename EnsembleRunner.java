@@ -0,0 +1,197 @@
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs many replicates of the same configuration with different seeds and
+ * summarises the population of every species at every step across them: the
+ * mean with its 95% confidence interval, the standard deviation and the
+ * 5%, 50% and 95% quantiles.
+ * <p>
+ * The statistics are updated as the replicates run, so no replicate keeps its
+ * history and memory does not grow with the number of replicates. Replicates
+ * run on a fixed pool of threads, one per processor by default.
+ * <p>
+ * Usage: EnsembleRunner [replicates=100] [steps=500] [firstSeed=1] [threads=n] [out=file.csv] [key=value...]
+ * <p>
+ * where every key=value overrides a property of the config file.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class EnsembleRunner
+{
+	// The number of replicates if none is given.
+	private static final int DEFAULT_REPLICATES = 100;
+	// The number of steps of every replicate if none is given.
+	private static final int DEFAULT_STEPS = 500;
+	// The quantiles estimated at every step.
+	private static final double[] QUANTILES = {0.05, 0.5, 0.95};
+	// The z-score of a 95% confidence interval.
+	private static final double Z_95 = 1.959964;
+	
+	// The configuration every replicate runs with.
+	private Config config;
+	// The number of steps of every replicate.
+	private int steps;
+	// The species that are counted.
+	private List<Class> species;
+	// The statistics of every species at every step.
+	private RunningStatistics[][] statistics;
+	
+	/**
+	 * Create an ensemble of a configuration.
+	 *
+	 * @param config The configuration every replicate runs with.
+	 * @param steps  The number of steps of every replicate.
+	 */
+	public EnsembleRunner(Config config, int steps)
+	{
+		this.config = config;
+		this.steps = steps;
+		species = PopulationGenerator.getSpecies(config);
+		statistics = new RunningStatistics[steps + 1][species.size()];
+		for (int step = 0; step <= steps; step++) {
+			for (int i = 0; i < species.size(); i++) {
+				statistics[step][i] = new RunningStatistics(QUANTILES);
+			}
+		}
+	}
+	
+	/**
+	 * Run the ensemble described by the arguments and print its statistics.
+	 */
+	public static void main(String[] args) throws FileNotFoundException, InterruptedException
+	{
+		int replicates = DEFAULT_REPLICATES;
+		int steps = DEFAULT_STEPS;
+		long firstSeed = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String outFile = null;
+		Config config = new Config(Config.getDefault());
+		for (String arg : args) {
+			int split = arg.indexOf('=');
+			if (split <= 0) {
+				System.err.println("Usage: EnsembleRunner [replicates=" + DEFAULT_REPLICATES + "] [steps=" + DEFAULT_STEPS
+						+ "] [firstSeed=1] [threads=n] [out=file.csv] [key=value...]");
+				System.exit(2);
+			}
+			String name = arg.substring(0, split);
+			String value = arg.substring(split + 1);
+			switch (name) {
+				case "replicates":
+					replicates = Integer.parseInt(value);
+					break;
+				case "steps":
+					steps = Integer.parseInt(value);
+					break;
+				case "firstSeed":
+					firstSeed = Long.parseLong(value);
+					break;
+				case "threads":
+					threads = Integer.parseInt(value);
+					break;
+				case "out":
+					outFile = value;
+					break;
+				default:
+					config.setValue(name, value);
+					break;
+			}
+		}
+		
+		EnsembleRunner ensemble = new EnsembleRunner(config, steps);
+		ensemble.run(replicates, firstSeed, threads);
+		PrintStream out = outFile == null ? System.out : new PrintStream(outFile);
+		ensemble.print(out);
+		out.close();
+	}
+	
+	/**
+	 * Run the replicates, as many at once as there are threads.
+	 *
+	 * @param replicates The number of replicates.
+	 * @param firstSeed  The seed of the first replicate; the others use the following seeds.
+	 * @param threads    The number of replicates run at once.
+	 */
+	public void run(int replicates, long firstSeed, int threads) throws InterruptedException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int i = 0; i < replicates; i++) {
+			long seed = firstSeed + i;
+			executor.execute(() -> runReplicate(seed));
+		}
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Run one replicate, adding its population at every step to the statistics.
+	 * Once every actor is gone the remaining steps are counted as empty
+	 * without being simulated.
+	 *
+	 * @param seed The random seed of the replicate.
+	 */
+	private void runReplicate(long seed)
+	{
+		Config replicateConfig = new Config(config);
+		// Replicates are neither profiled, recorded nor exported, and as they run side by side each runs on one thread.
+		replicateConfig.setValue("simulator.PROFILING", "false");
+		replicateConfig.setValue("simulator.RECORD_FILE", "");
+		replicateConfig.setValue("simulator.EXPORT_DIR", "");
+		replicateConfig.setValue("simulator.THREADS", "1");
+		int depth = Integer.parseInt(replicateConfig.getValue("simulator.DEFAULT_DEPTH").trim());
+		int width = Integer.parseInt(replicateConfig.getValue("simulator.DEFAULT_WIDTH").trim());
+		Simulator simulator = new Simulator(new SimulationContext(replicateConfig, seed), depth, width, false);
+		
+		int[] counts = new int[species.size()];
+		boolean extinct = false;
+		for (int step = 0; step <= steps; step++) {
+			if (step > 0 && !extinct) {
+				simulator.simulateOneStep();
+			}
+			int total = 0;
+			if (!extinct) {
+				for (int i = 0; i < counts.length; i++) {
+					counts[i] = simulator.getField().getPopulation(species.get(i));
+					total += counts[i];
+				}
+				extinct = total == 0;
+			}
+			RunningStatistics[] stepStatistics = statistics[step];
+			synchronized (stepStatistics) {
+				for (int i = 0; i < counts.length; i++) {
+					stepStatistics[i].add(counts[i]);
+				}
+			}
+		}
+		System.err.println("Finished replicate with seed " + seed);
+	}
+	
+	/**
+	 * Print the statistics of every species at every step as CSV.
+	 *
+	 * @param out Where to print the statistics.
+	 */
+	public void print(PrintStream out)
+	{
+		out.println("step,species,replicates,mean,stdDev,ciLow95,ciHigh95,p05,p50,p95");
+		for (int step = 0; step <= steps; step++) {
+			for (int i = 0; i < species.size(); i++) {
+				RunningStatistics stepStatistics = statistics[step][i];
+				synchronized (statistics[step]) {
+					double margin = Z_95 * stepStatistics.getStandardError();
+					out.println(String.format(Locale.ROOT, "%d,%s,%d,%.3f,%.3f,%.3f,%.3f,%.1f,%.1f,%.1f",
+							step, species.get(i).getName(), stepStatistics.getCount(), stepStatistics.getMean(),
+							stepStatistics.getStandardDeviation(), stepStatistics.getMean() - margin,
+							stepStatistics.getMean() + margin, stepStatistics.getQuantile(0),
+							stepStatistics.getQuantile(1), stepStatistics.getQuantile(2)));
+				}
+			}
+		}
+	}
+}
@@ -1,6 +1,3 @@
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Random;
 
 /**
@@ -11,31 +8,142 @@ import java.util.Random;
  * Times of day contain DAY and NIGHT.
  * <p>
  * Weather includes CLEAR, SUNNY, and RAINY.
+ * <p>
+ * Every SimulationContext has its own environment. The static methods use the
+ * environment of the default context.
  *
  * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
  * @version 2018.02.21
  */
 public class Environment
 {
+	// Every weather, in the order the weather is picked from.
+	private static final Weather[] WEATHERS = Weather.values();
+	
 	//The length of one Day/Night cycle in the simulation.
-	private static final int LENGTH_OF_DAY_CYCLE = Integer.parseInt(Config.getProperty("environment.LENGTH_OF_DAY_CYCLE"));
+	private int lengthOfDayCycle;
+	// The random number generator used to pick the weather.
+	private Random rand;
 	// The current time of day (Day/Night).
-	private static TimeOfDay currentTime = TimeOfDay.DAY;
+	private TimeOfDay currentTime = TimeOfDay.DAY;
 	// The current weather (Sunny, Clear, Rainy).
-	private static Weather currentWeather = Weather.SUNNY;
+	private Weather currentWeather = Weather.SUNNY;
 	// The steps the current weather will be on before changing.
-	private static int currentWeatherLength = 0;
+	private int currentWeatherLength = 0;
 	
 	/**
-	 * Sets the time of day based on the number of steps.
+	 * Create an environment starting on a sunny day.
+	 *
+	 * @param config The configuration of the simulation.
+	 * @param rand   The random number generator used to pick the weather.
+	 */
+	public Environment(Config config, Random rand)
+	{
+		lengthOfDayCycle = Integer.parseInt(config.getValue("environment.LENGTH_OF_DAY_CYCLE"));
+		this.rand = rand;
+	}
+	
+	/**
+	 * Sets the time of day of the default environment based on the number of steps.
 	 * Calls a method to update the weather.
 	 *
 	 * @param step The number of steps since initiating the simulation.
 	 */
 	public static void updateEnvironment(int step)
 	{
-		currentTime = (step % LENGTH_OF_DAY_CYCLE < LENGTH_OF_DAY_CYCLE / 2) ? TimeOfDay.DAY : TimeOfDay.NIGHT;
-		updateWeather();
+		getDefault().update(step);
+		SimulationContext.getDefault().updateSpeciesActivity();
+	}
+	
+	/**
+	 * Updates the weather of the default environment.
+	 */
+	public static void updateWeather()
+	{
+		getDefault().changeWeather();
+		SimulationContext.getDefault().updateSpeciesActivity();
+	}
+	
+	/**
+	 * @return The current time of day of the default environment as a string starting with a capital letter.
+	 */
+	public static String getCurrentTimeOfDayString()
+	{
+		return getDefault().getTimeOfDayString();
+	}
+	
+	/**
+	 * @return The current weather name of the default environment as a string starting with a capital letter.
+	 */
+	public static String getCurrentWeatherString()
+	{
+		return getDefault().getWeatherString();
+	}
+	
+	/**
+	 * @param value A time of day or weather.
+	 * @return The name of the value as a string starting with a capital letter.
+	 */
+	public static String getDisplayName(Enum<?> value)
+	{
+		String name = value.name();
+		return name.substring(0, 1) + name.substring(1).toLowerCase();
+	}
+	
+	/**
+	 * @return The current time of day of the default environment.
+	 */
+	public static TimeOfDay getCurrentTime()
+	{
+		return getDefault().getTimeOfDay();
+	}
+	
+	/**
+	 * @return The current weather of the default environment.
+	 */
+	public static Weather getCurrentWeather()
+	{
+		return getDefault().getWeather();
+	}
+	
+	/**
+	 * @return The environment of the default context.
+	 */
+	private static Environment getDefault()
+	{
+		return SimulationContext.getDefault().getEnvironment();
+	}
+	
+	/**
+	 * Sets the time of day based on the number of steps.
+	 * Calls a method to update the weather.
+	 *
+	 * @param step The number of steps since initiating the simulation.
+	 */
+	public void update(int step)
+	{
+		TimeOfDay previousTime = currentTime;
+		Weather previousWeather = currentWeather;
+		currentTime = (step % lengthOfDayCycle < lengthOfDayCycle / 2) ? TimeOfDay.DAY : TimeOfDay.NIGHT;
+		changeWeather();
+		
+		if (currentTime != previousTime) {
+			TimeOfDayChangeEvent event = new TimeOfDayChangeEvent();
+			if (event.shouldCommit()) {
+				event.step = step;
+				event.timeOfDay = currentTime.getDisplayName();
+				event.commit();
+			}
+		}
+		if (currentWeather != previousWeather) {
+			WeatherChangeEvent event = new WeatherChangeEvent();
+			if (event.shouldCommit()) {
+				event.step = step;
+				event.previousWeather = previousWeather.getDisplayName();
+				event.weather = currentWeather.getDisplayName();
+				event.commit();
+			}
+		}
 	}
 	
 	/**
@@ -43,7 +151,7 @@ public class Environment
 	 * If the weather is incompatible with the time of day it is changed or not assigned.
 	 * If the weather has not been on for it's unique number of steps it is not changed.
 	 */
-	public static void updateWeather()
+	public void changeWeather()
 	{
 		if (incompatibleTimeAndWeather(currentWeather)) {
 			currentWeatherLength = 0;
@@ -51,41 +159,55 @@ public class Environment
 		if (currentWeatherLength > 0) {
 			currentWeatherLength--;
 		} else {
-			List<Weather> list = new ArrayList<>(Arrays.asList(Weather.values()));
-			list.remove(currentWeather);
-			Random rand = Randomizer.getRandom();
 			currentWeatherLength = rand.nextInt(50) + 5;
-			Weather newWeather = list.get(rand.nextInt(list.size()));
+			Weather newWeather = pickWeather(currentWeather, null);
 			if (incompatibleTimeAndWeather(newWeather)) {
-				list.remove(newWeather);
-				newWeather = list.get(rand.nextInt(list.size()));
+				newWeather = pickWeather(currentWeather, newWeather);
 			}
 			currentWeather = newWeather;
 		}
 	}
 	
+	/**
+	 * Pick a random weather other than the given ones, each of the rest being
+	 * equally likely.
+	 *
+	 * @param excluded     A weather not to pick.
+	 * @param alsoExcluded Another weather not to pick, or null.
+	 * @return The weather picked.
+	 */
+	private Weather pickWeather(Weather excluded, Weather alsoExcluded)
+	{
+		int choices = WEATHERS.length - 1 - (alsoExcluded == null || alsoExcluded == excluded ? 0 : 1);
+		int choice = rand.nextInt(choices);
+		for (Weather weather : WEATHERS) {
+			if (weather != excluded && weather != alsoExcluded && choice-- == 0) {
+				return weather;
+			}
+		}
+		return null;
+	}
+	
 	/**
 	 * @return The current time of day as a string starting with a capital letter.
 	 */
-	public static String getCurrentTimeOfDayString()
+	public String getTimeOfDayString()
 	{
-		String curTime = currentTime.name();
-		return curTime.substring(0, 1) + curTime.substring(1).toLowerCase();
+		return currentTime.getDisplayName();
 	}
 	
 	/**
 	 * @return The current weather name as a string starting with a capital letter.
 	 */
-	public static String getCurrentWeatherString()
+	public String getWeatherString()
 	{
-		String curWeather = currentWeather.name();
-		return curWeather.substring(0, 1) + curWeather.substring(1).toLowerCase();
+		return currentWeather.getDisplayName();
 	}
 	
 	/**
 	 * @return The current time of day.
 	 */
-	public static TimeOfDay getCurrentTime()
+	public TimeOfDay getTimeOfDay()
 	{
 		return currentTime;
 	}
@@ -93,7 +215,7 @@ public class Environment
 	/**
 	 * @return The current weather.
 	 */
-	public static Weather getCurrentWeather()
+	public Weather getWeather()
 	{
 		return currentWeather;
 	}
@@ -104,7 +226,7 @@ public class Environment
 	 * @param weather The weather we checking the comparability with the time of day of.
 	 * @return true If the weather and time of day are incompatible.
 	 */
-	private static boolean incompatibleTimeAndWeather(Weather weather)
+	private boolean incompatibleTimeAndWeather(Weather weather)
 	{
 		return currentTime == TimeOfDay.NIGHT && weather == Weather.SUNNY;
 	}
@@ -114,7 +236,18 @@ public class Environment
 	 */
 	protected enum TimeOfDay
 	{
-		DAY, NIGHT
+		DAY, NIGHT;
+		
+		// The name of the time of day as shown to the user.
+		private final String displayName = Environment.getDisplayName(this);
+		
+		/**
+		 * @return The name of the time of day as a string starting with a capital letter.
+		 */
+		public String getDisplayName()
+		{
+			return displayName;
+		}
 	}
 	
 	/**
@@ -122,7 +255,18 @@ public class Environment
 	 */
 	protected enum Weather
 	{
-		SUNNY, RAINY, CLEAR
+		SUNNY, RAINY, CLEAR;
+		
+		// The name of the weather as shown to the user.
+		private final String displayName = Environment.getDisplayName(this);
+		
+		/**
+		 * @return The name of the weather as a string starting with a capital letter.
+		 */
+		public String getDisplayName()
+		{
+			return displayName;
+		}
 	}
 	
 }
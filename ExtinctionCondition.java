@@ -0,0 +1,68 @@
+import java.util.List;
+
+/**
+ * Stops a simulation once a species has died out. Without a given species it
+ * stops once any species that was alive at some point has died out.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class ExtinctionCondition implements StopCondition
+{
+	// The species that must not die out, or null for every species.
+	private Class species;
+	// The species watched, in the same order as alive.
+	private List<Class> watched;
+	// Whether each watched species has been alive since the last reset.
+	private boolean[] alive;
+	
+	/**
+	 * Create a condition that is met when a species dies out.
+	 *
+	 * @param species The species that must not die out, or null for any species.
+	 */
+	public ExtinctionCondition(Class species)
+	{
+		this.species = species;
+	}
+	
+	/**
+	 * Check whether a watched species that has been alive has no actors left.
+	 *
+	 * @param simulator The simulation to check.
+	 * @return true If a watched species has died out.
+	 */
+	public boolean isMet(Simulator simulator)
+	{
+		Field field = simulator.getField();
+		if (watched == null) {
+			watched = species == null ? PopulationGenerator.getSpecies(simulator.getContext().getConfig()) : List.of(species);
+			alive = new boolean[watched.size()];
+		}
+		for (int i = 0; i < watched.size(); i++) {
+			if (field.getPopulation(watched.get(i)) > 0) {
+				alive[i] = true;
+			} else if (alive[i]) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Forget which species have been alive.
+	 */
+	public void reset()
+	{
+		alive = null;
+		watched = null;
+	}
+	
+	/**
+	 * @return A description of the condition.
+	 */
+	public String toString()
+	{
+		return species == null ? "extinct" : "extinct:" + species.getName();
+	}
+}
@@ -1,11 +1,33 @@
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 /**
  * Represent a rectangular grid of field positions.
  * Each position is able to store a single actor.
+ * <p>
+ * The actors are held in a FieldStorage chosen by field.STORAGE in the config
+ * file: 'dense' keeps every position in an array, 'bordered' keeps them in one
+ * flat array with a border around the field, in square tiles of field.TILE_SIZE
+ * positions if it is set, 'chunked' only allocates the parts of the field that
+ * hold actors, 'offheap' keeps the grid outside the Java
+ * heap, mapped to the file field.OFFHEAP_FILE if it is set, 'concurrent' keeps
+ * every position in an array that actors on several threads can share, and
+ * 'auto', the default, uses chunks for fields of more than DENSE_LIMIT
+ * positions and otherwise a concurrent array if simulator.THREADS is more
+ * than one, or a dense one if it is not.
+ * <p>
+ * While actors act on several threads, they move by claiming a location
+ * (see claim), which fails if another actor got there first, and the counts
+ * of the population and the list of diseased actors are updated under a lock.
+ * <p>
+ * If field.VEGETATION_DENSITY is set, the field is also covered by a layer of
+ * plants (see Vegetation) that the actors stand on. If any species sees
+ * further than the adjacent locations (SIGHT_RADIUS), the field keeps a
+ * SpatialIndex of where the actors are, and if any species follows the scent
+ * of food (SCENT_RANGE), a FlowField. The plant and scent layers hold every
+ * location in an array, so a sparse field has neither.
  *
  * @author David J. Barnes and Michael Kölling
  * @version 2018.02.21
@@ -13,24 +35,146 @@ import java.util.Random;
  */
 public class Field
 {
-	// A random number generator for providing random locations.
-	private static final Random rand = Randomizer.getRandom();
+	// The largest number of positions stored densely when field.STORAGE is auto.
+	public static final long DENSE_LIMIT = 1L << 24;
+	// The neighbours (see FieldStorage) outside a field for a location on its top, bottom, left and right edge.
+	private static final int TOP_NEIGHBOURS = 0x07, BOTTOM_NEIGHBOURS = 0xE0, LEFT_NEIGHBOURS = 0x29, RIGHT_NEIGHBOURS = 0x94;
+	
+	// The simulation the field belongs to.
+	private SimulationContext context;
 	// The depth and width of the field.
 	private int depth, width;
 	// Storage for the actors.
-	private Actor[][] field;
+	private FieldStorage field;
+	// The number of live actors of each species, indexed by SpeciesTraits.getIndex().
+	private int[] population;
+	// The number of live actors of all species.
+	private int totalPopulation;
+	// The layer of plants covering the field, or null if there is none.
+	private Vegetation vegetation;
+	// The probability of a location holding a plant when the field is populated.
+	private double vegetationDensity;
+	// The diseased actors that infect their neighbours.
+	private List<Actor> diseaseSpreaders;
+	// The healthy actors exposed to diseased neighbours in the current step.
+	private List<Actor> exposed;
+	// The probability of an actor getting sick, indexed by the number of its diseased neighbours.
+	private double[] infectionProbability;
+	// The neighbours of the diseased actor spreading disease.
+	private Actor[] neighbours;
+	// The index of where the actors are, or null if no species sees further than the adjacent locations.
+	private SpatialIndex spatialIndex;
+	// The distance to food of every location for the species that follow scent, or null if none does.
+	private FlowField flowField;
 	
 	/**
-	 * Represent a field of the given dimensions.
+	 * Represent a field of the given dimensions in the default simulation context.
 	 *
 	 * @param depth The depth of the field.
 	 * @param width The width of the field.
 	 */
 	public Field(int depth, int width)
 	{
+		this(SimulationContext.getDefault(), depth, width);
+	}
+	
+	/**
+	 * Represent a field of the given dimensions.
+	 *
+	 * @param context The simulation the field belongs to.
+	 * @param depth   The depth of the field.
+	 * @param width   The width of the field.
+	 */
+	public Field(SimulationContext context, int depth, int width)
+	{
+		this.context = context;
 		this.depth = depth;
 		this.width = width;
-		field = new Actor[depth][width];
+		field = createStorage(context.getConfig(), depth, width);
+		population = new int[0];
+		diseaseSpreaders = new ArrayList<>();
+		exposed = new ArrayList<>();
+		neighbours = new Actor[8];
+		infectionProbability = new double[9];
+		for (int sick = 0; sick <= 8; sick++) {
+			infectionProbability[sick] = 1 - Math.pow(1 - context.getDiseaseSpreadProbability(), sick);
+		}
+		vegetationDensity = Double.parseDouble(context.getConfig().getValue("field.VEGETATION_DENSITY", "0"));
+		if (vegetationDensity > 0 && isSparse()) {
+			System.out.println("A sparse field has no plant layer.");
+			vegetationDensity = 0;
+		}
+		if (vegetationDensity > 0) {
+			vegetation = new Vegetation(context, depth, width);
+		}
+		int sightRadius = 1;
+		for (String key : context.getConfig().getKeysContaining("SIGHT_RADIUS")) {
+			sightRadius = Math.max(sightRadius, Integer.parseInt(context.getConfig().getValue(key)));
+		}
+		if (sightRadius > 1) {
+			spatialIndex = new SpatialIndex(context, depth, width, sightRadius);
+		}
+		for (String key : context.getConfig().getKeysContaining("SCENT_RANGE")) {
+			if (Integer.parseInt(context.getConfig().getValue(key)) > 0) {
+				if (isSparse()) {
+					System.out.println("A sparse field has no scent layers.");
+				} else {
+					flowField = new FlowField(context, this);
+				}
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Return the length of an array holding every location of a field.
+	 *
+	 * @param depth The depth of the field.
+	 * @param width The width of the field.
+	 * @return The number of locations of the field.
+	 * @throws IllegalArgumentException If there are more locations than an array can hold.
+	 */
+	public static int getArraySize(int depth, int width)
+	{
+		long size = (long) depth * width;
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("A " + depth + "x" + width + " field is too large for an array of its locations.");
+		}
+		return (int) size;
+	}
+	
+	/**
+	 * Create the storage for a field.
+	 *
+	 * @param config The configuration of the simulation.
+	 * @param depth  The depth of the field.
+	 * @param width  The width of the field.
+	 * @return The storage.
+	 */
+	private static FieldStorage createStorage(Config config, int depth, int width)
+	{
+		String type = config.getValue("field.STORAGE", "auto");
+		switch (type.toLowerCase()) {
+			case "dense":
+				return new DenseFieldStorage(depth, width);
+			case "bordered":
+				return new BorderedFieldStorage(depth, width, Integer.parseInt(config.getValue("field.TILE_SIZE", "0")));
+			case "chunked":
+				return new ChunkedFieldStorage();
+			case "concurrent":
+				return new ConcurrentFieldStorage(depth, width);
+			case "offheap":
+				String fileName = config.getValue("field.OFFHEAP_FILE", "");
+				return new OffHeapFieldStorage(depth, width, fileName.isEmpty() ? null : fileName);
+			case "auto":
+				if ((long) depth * width > DENSE_LIMIT) {
+					return new ChunkedFieldStorage();
+				}
+				boolean shared = Integer.parseInt(config.getValue("simulator.THREADS", "1")) > 1;
+				return shared ? new ConcurrentFieldStorage(depth, width) : new DenseFieldStorage(depth, width);
+			default:
+				throw new IllegalArgumentException("Unknown field storage: " + type);
+		}
 	}
 	
 	/**
@@ -38,11 +182,110 @@ public class Field
 	 */
 	public void clear()
 	{
-		for (int row = 0; row < depth; row++) {
-			for (int col = 0; col < width; col++) {
-				field[row][col] = null;
+		field.clear();
+		Arrays.fill(population, 0);
+		totalPopulation = 0;
+		diseaseSpreaders.clear();
+		if (vegetation != null) {
+			vegetation.clear();
+		}
+	}
+	
+	/**
+	 * Count a new live actor in the population of the field.
+	 *
+	 * @param actor The actor that was created.
+	 */
+	public synchronized void addToPopulation(Actor actor)
+	{
+		int index = actor.getTraits().getIndex();
+		if (index >= population.length) {
+			population = Arrays.copyOf(population, index + 1);
+		}
+		population[index]++;
+		totalPopulation++;
+	}
+	
+	/**
+	 * Stop counting an actor that died in the population of the field.
+	 *
+	 * @param actor The actor that died.
+	 */
+	public synchronized void removeFromPopulation(Actor actor)
+	{
+		population[actor.getTraits().getIndex()]--;
+		totalPopulation--;
+	}
+	
+	/**
+	 * Add an actor that just became diseased to the actors that infect their neighbours.
+	 *
+	 * @param actor The diseased actor.
+	 */
+	public synchronized void addDiseaseSpreader(Actor actor)
+	{
+		diseaseSpreaders.add(actor);
+	}
+	
+	/**
+	 * Let every diseased actor infect its neighbours. Each healthy actor gets
+	 * sick with probability 1 - (1 - p)^k, where p is the probability of
+	 * catching the disease from one neighbour and k the number of its diseased
+	 * neighbours, which is the same as trying each of them in turn. The cost
+	 * is in proportion to the number of diseased actors. Actors that get sick
+	 * start infecting others at the next step.
+	 */
+	public void spreadDisease()
+	{
+		int count = diseaseSpreaders.size();
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			Actor actor = diseaseSpreaders.get(i);
+			if (!actor.isActive() || actor.isHealthy() || !actor.isSpreadingDisease()) {
+				// Dead actors and ghosts of other processes' actors leave the list.
+				actor.stopSpreadingDisease();
+				continue;
+			}
+			diseaseSpreaders.set(kept++, actor);
+			int row = actor.getLocation().getRow();
+			int col = actor.getLocation().getCol();
+			field.getNeighbours(row, col, depth, width, neighbours);
+			for (Actor neighbour : neighbours) {
+				if (neighbour != null && neighbour.isHealthy() && neighbour.addExposure() == 1) {
+					exposed.add(neighbour);
+				}
 			}
 		}
+		diseaseSpreaders.subList(kept, count).clear();
+		
+		Random rand = context.getRandom();
+		for (Actor actor : exposed) {
+			if (rand.nextDouble() < infectionProbability[actor.takeExposures()]) {
+				actor.becomeDiseased();
+			}
+		}
+		exposed.clear();
+	}
+	
+	/**
+	 * Return the number of live actors of a species. The count is kept up to
+	 * date as actors are born and die, so it is cheap to call every step.
+	 *
+	 * @param species The class of the species.
+	 * @return The number of live actors of the species.
+	 */
+	public int getPopulation(Class species)
+	{
+		int index = context.getTraits(species).getIndex();
+		return index < population.length ? population[index] : 0;
+	}
+	
+	/**
+	 * @return The number of live actors of all species.
+	 */
+	public int getTotalPopulation()
+	{
+		return totalPopulation;
 	}
 	
 	/**
@@ -52,7 +295,7 @@ public class Field
 	 */
 	public void clear(Location location)
 	{
-		field[location.getRow()][location.getCol()] = null;
+		field.set(location.getRow(), location.getCol(), null);
 	}
 	
 	/**
@@ -79,7 +322,41 @@ public class Field
 	 */
 	public void place(Actor actor, Location location)
 	{
-		field[location.getRow()][location.getCol()] = actor;
+		field.set(location.getRow(), location.getCol(), actor);
+	}
+	
+	/**
+	 * Place an actor at the given location if no other actor is there. While
+	 * actors act on several threads, of several actors claiming the same
+	 * location at once only one gets it.
+	 *
+	 * @param actor    The actor to be placed.
+	 * @param location Where to place the actor.
+	 * @return true If the actor was placed.
+	 */
+	public boolean claim(Actor actor, Location location)
+	{
+		return field.claim(location.getRow(), location.getCol(), actor);
+	}
+	
+	/**
+	 * Clear the given location if it still holds the given actor, which
+	 * another actor may have replaced by now.
+	 *
+	 * @param actor    The actor leaving the location.
+	 * @param location The location to clear.
+	 */
+	public void release(Actor actor, Location location)
+	{
+		field.release(location.getRow(), location.getCol(), actor);
+	}
+	
+	/**
+	 * @return true If actors on several threads can claim and release locations at once.
+	 */
+	public boolean isConcurrent()
+	{
+		return field.isConcurrent();
 	}
 	
 	/**
@@ -102,7 +379,69 @@ public class Field
 	 */
 	public Actor getActorAt(int row, int col)
 	{
-		return field[row][col];
+		return field.get(row, col);
+	}
+	
+	/**
+	 * Visit every location that holds an actor. Sparse storage skips the
+	 * empty parts of the field, so this takes time in proportion to the
+	 * number of actors rather than the area of the field.
+	 *
+	 * @param visitor What to do with each actor.
+	 */
+	public void forEachActor(FieldStorage.ActorVisitor visitor)
+	{
+		field.forEachActor(visitor);
+	}
+	
+	/**
+	 * Bring any state the storage keeps about the actors up to date, for
+	 * example for programs reading a memory mapped grid. Called at the end of
+	 * every step.
+	 */
+	public void sync()
+	{
+		field.sync();
+	}
+	
+	/**
+	 * @return The layer of plants covering the field, or null if field.VEGETATION_DENSITY is not set.
+	 */
+	public Vegetation getVegetation()
+	{
+		return vegetation;
+	}
+	
+	/**
+	 * @return The index of where the actors are, or null if no species sees further than the adjacent locations.
+	 */
+	public SpatialIndex getSpatialIndex()
+	{
+		return spatialIndex;
+	}
+	
+	/**
+	 * @return The distance to food of every location for the species that follow scent, or null if none does.
+	 */
+	public FlowField getFlowField()
+	{
+		return flowField;
+	}
+	
+	/**
+	 * @return The probability of a location holding a plant when the field is populated.
+	 */
+	public double getVegetationDensity()
+	{
+		return vegetationDensity;
+	}
+	
+	/**
+	 * @return true If only the parts of the field that hold actors are stored.
+	 */
+	public boolean isSparse()
+	{
+		return field instanceof ChunkedFieldStorage;
 	}
 	
 	/**
@@ -128,11 +467,16 @@ public class Field
 	 */
 	public List<Location> getFreeAdjacentLocations(Location location)
 	{
-		List<Location> free = new LinkedList<>();
-		List<Location> adjacent = adjacentLocations(location);
-		for (Location next : adjacent) {
-			if (getActorAt(next) == null) {
-				free.add(next);
+		int row = location.getRow();
+		int col = location.getCol();
+		// Shuffle all adjacent locations, as adjacentLocations does, then keep the free ones.
+		int[] adjacent = new int[8];
+		int count = shuffleNeighbours(row, col, adjacent);
+		int freeNeighbours = field.freeNeighbours(row, col, depth, width);
+		List<Location> free = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			if ((freeNeighbours & 1 << adjacent[i]) != 0) {
+				free.add(new Location(row + FieldStorage.NEIGHBOUR_ROWS[adjacent[i]], col + FieldStorage.NEIGHBOUR_COLS[adjacent[i]]));
 			}
 		}
 		return free;
@@ -158,6 +502,21 @@ public class Field
 		}
 	}
 	
+	/**
+	 * Return the location adjacent to a location in the direction of another,
+	 * for an animal moving towards something it has seen.
+	 *
+	 * @param from The location to move from.
+	 * @param to   The location to move towards, which must differ from the first.
+	 * @return The next location on the way.
+	 */
+	public Location stepTowards(Location from, Location to)
+	{
+		int row = from.getRow() + Integer.signum(to.getRow() - from.getRow());
+		int col = from.getCol() + Integer.signum(to.getCol() - from.getCol());
+		return new Location(row, col);
+	}
+	
 	/**
 	 * Return a shuffled list of locations adjacent to the given one.
 	 * The list will not include the location itself.
@@ -170,30 +529,70 @@ public class Field
 	{
 		assert location != null : "Null location passed to adjacentLocations";
 		// The list of locations to be returned.
-		List<Location> locations = new LinkedList<>();
+		List<Location> locations = new ArrayList<>(8);
 		if (location != null) {
 			int row = location.getRow();
 			int col = location.getCol();
-			for (int roffset = -1; roffset <= 1; roffset++) {
-				int nextRow = row + roffset;
-				if (nextRow >= 0 && nextRow < depth) {
-					for (int coffset = -1; coffset <= 1; coffset++) {
-						int nextCol = col + coffset;
-						// Exclude invalid locations and the original location.
-						if (nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
-							locations.add(new Location(nextRow, nextCol));
-						}
-					}
-				}
+			int[] adjacent = new int[8];
+			int count = shuffleNeighbours(row, col, adjacent);
+			for (int i = 0; i < count; i++) {
+				locations.add(new Location(row + FieldStorage.NEIGHBOUR_ROWS[adjacent[i]], col + FieldStorage.NEIGHBOUR_COLS[adjacent[i]]));
 			}
-			
-			// Shuffle the list. Several other methods rely on the list
-			// being in a random order.
-			Collections.shuffle(locations, rand);
 		}
 		return locations;
 	}
 	
+	/**
+	 * Put the numbers of the neighbours of a location that are inside the
+	 * field (see FieldStorage) in a random order. Several other methods rely
+	 * on the adjacent locations being in a random order. The neighbours are
+	 * shuffled as Collections.shuffle would shuffle a list of them, so the
+	 * same random numbers give the same order.
+	 *
+	 * @param row        The row of the location.
+	 * @param col        The column of the location.
+	 * @param neighbours Filled with the numbers of the neighbours inside the field, in a random order.
+	 * @return The number of neighbours inside the field.
+	 */
+	private int shuffleNeighbours(int row, int col, int[] neighbours)
+	{
+		int inside = 0xFF;
+		if (row == 0) {
+			inside &= ~TOP_NEIGHBOURS;
+		}
+		if (row == depth - 1) {
+			inside &= ~BOTTOM_NEIGHBOURS;
+		}
+		if (col == 0) {
+			inside &= ~LEFT_NEIGHBOURS;
+		}
+		if (col == width - 1) {
+			inside &= ~RIGHT_NEIGHBOURS;
+		}
+		int count = 0;
+		for (int i = 0; i < 8; i++) {
+			if ((inside & 1 << i) != 0) {
+				neighbours[count++] = i;
+			}
+		}
+		Random rand = context.getRandom();
+		for (int i = count; i > 1; i--) {
+			int j = rand.nextInt(i);
+			int swap = neighbours[i - 1];
+			neighbours[i - 1] = neighbours[j];
+			neighbours[j] = swap;
+		}
+		return count;
+	}
+	
+	/**
+	 * @return The simulation the field belongs to.
+	 */
+	public SimulationContext getContext()
+	{
+		return context;
+	}
+	
 	/**
 	 * Return the depth of the field.
 	 *
@@ -0,0 +1,207 @@
+import java.util.Arrays;
+
+/**
+ * A pyramid of ever coarser summaries of a packed field (see CellState), so
+ * that a view zoomed out far enough to show many locations in one pixel can
+ * draw each pixel from one summary instead of from every location it covers.
+ * <p>
+ * Level 0 is the packed field itself. Every location of level k + 1 is a
+ * block of two by two locations of level k, and holds, for every species code,
+ * the share of the block's field locations that hold that species, from 0 (none)
+ * to 255 (all). Level 1 is counted from the field, and every higher level is
+ * the average of the four blocks below it, so the whole pyramid is worked out
+ * in one pass over the field and takes about a third of a byte per location
+ * and species more than the field itself. Blocks at the bottom and right edges
+ * that are only partly on the field count the missing locations as empty.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class FieldPyramid
+{
+	// The share of a block standing for the whole block.
+	public static final int FULL = 255;
+	
+	// The depth and width of the field.
+	private int depth, width;
+	// The packed field, row by row.
+	private byte[] cells;
+	// The number of species codes counted, one more than the largest.
+	private int speciesCount;
+	// The number of rows and columns of blocks of every level.
+	private int[] levelDepths, levelWidths;
+	// The shares of every species of every block of every level above 0, block by block.
+	private byte[][] shares;
+	
+	/**
+	 * Create a pyramid of an empty field.
+	 *
+	 * @param depth The depth of the field.
+	 * @param width The width of the field.
+	 * @throws IllegalArgumentException If the field is too large for an array of its locations.
+	 */
+	public FieldPyramid(int depth, int width)
+	{
+		this.depth = depth;
+		this.width = width;
+		cells = new byte[Field.getArraySize(depth, width)];
+		int levels = 1;
+		while ((depth - 1 >> levels - 1) > 0 || (width - 1 >> levels - 1) > 0) {
+			levels++;
+		}
+		levelDepths = new int[levels];
+		levelWidths = new int[levels];
+		for (int level = 0; level < levels; level++) {
+			levelDepths[level] = (depth - 1 >> level) + 1;
+			levelWidths[level] = (width - 1 >> level) + 1;
+		}
+		shares = new byte[levels][];
+	}
+	
+	/**
+	 * Replace the field and work out every level again.
+	 *
+	 * @param field        The packed field, row by row. It is copied.
+	 * @param speciesCount One more than the largest species code in the field.
+	 */
+	public void update(byte[] field, int speciesCount)
+	{
+		System.arraycopy(field, 0, cells, 0, cells.length);
+		if (speciesCount != this.speciesCount) {
+			this.speciesCount = speciesCount;
+			for (int level = 1; level < shares.length; level++) {
+				shares[level] = new byte[levelDepths[level] * levelWidths[level] * speciesCount];
+			}
+		}
+		if (shares.length > 1) {
+			countFirstLevel();
+		}
+		for (int level = 2; level < shares.length; level++) {
+			averageLevel(level);
+		}
+	}
+	
+	/**
+	 * Count the locations of every species in every two by two block of the
+	 * field.
+	 */
+	private void countFirstLevel()
+	{
+		byte[] counts = shares[1];
+		Arrays.fill(counts, (byte) 0);
+		int blockWidth = levelWidths[1];
+		for (int row = 0; row < depth; row++) {
+			int blockStart = (row >> 1) * blockWidth;
+			int start = row * width;
+			for (int col = 0; col < width; col++) {
+				byte cell = cells[start + col];
+				if (cell != CellState.EMPTY) {
+					counts[(blockStart + (col >> 1)) * speciesCount + CellState.getSpeciesCode(cell)]++;
+				}
+			}
+		}
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = (byte) (counts[i] * FULL / 4);
+		}
+	}
+	
+	/**
+	 * Work out a level from the one below it.
+	 *
+	 * @param level The level, at least 2.
+	 */
+	private void averageLevel(int level)
+	{
+		byte[] below = shares[level - 1];
+		byte[] above = shares[level];
+		int belowDepth = levelDepths[level - 1];
+		int belowWidth = levelWidths[level - 1];
+		int index = 0;
+		for (int row = 0; row < levelDepths[level]; row++) {
+			int top = 2 * row * belowWidth;
+			// The row of blocks below, or -1 past the bottom edge.
+			int bottom = 2 * row + 1 < belowDepth ? top + belowWidth : -1;
+			for (int col = 0; col < levelWidths[level]; col++) {
+				int left = 2 * col;
+				boolean hasRight = left + 1 < belowWidth;
+				for (int code = 0; code < speciesCount; code++) {
+					int sum = below[(top + left) * speciesCount + code] & 0xFF;
+					if (hasRight) {
+						sum += below[(top + left + 1) * speciesCount + code] & 0xFF;
+					}
+					if (bottom >= 0) {
+						sum += below[(bottom + left) * speciesCount + code] & 0xFF;
+						if (hasRight) {
+							sum += below[(bottom + left + 1) * speciesCount + code] & 0xFF;
+						}
+					}
+					above[index++] = (byte) (sum + 2 >> 2);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return The number of levels, the last of which is a single block.
+	 */
+	public int getLevels()
+	{
+		return shares.length;
+	}
+	
+	/**
+	 * @param level A level of the pyramid.
+	 * @return The number of rows of blocks of the level.
+	 */
+	public int getDepth(int level)
+	{
+		return levelDepths[level];
+	}
+	
+	/**
+	 * @param level A level of the pyramid.
+	 * @return The number of columns of blocks of the level.
+	 */
+	public int getWidth(int level)
+	{
+		return levelWidths[level];
+	}
+	
+	/**
+	 * @param row The row of a location of the field.
+	 * @param col The column of a location of the field.
+	 * @return The packed cell at the location.
+	 */
+	public byte getCell(int row, int col)
+	{
+		return cells[row * width + col];
+	}
+	
+	/**
+	 * Find the species holding the most of a block, and how much of the block
+	 * is not empty.
+	 *
+	 * @param level A level of the pyramid above 0.
+	 * @param row   The row of the block.
+	 * @param col   The column of the block.
+	 * @return The code of the species holding the most of the block, 0 if it is empty, in the low byte,
+	 * and the share of the block that is not empty, up to FULL, in the byte above it.
+	 */
+	public int getSummary(int level, int row, int col)
+	{
+		byte[] levelShares = shares[level];
+		int start = (row * levelWidths[level] + col) * speciesCount;
+		int dominant = 0;
+		int dominantShare = 0;
+		int occupied = 0;
+		for (int code = 1; code < speciesCount; code++) {
+			int share = levelShares[start + code] & 0xFF;
+			occupied += share;
+			if (share > dominantShare) {
+				dominant = code;
+				dominantShare = share;
+			}
+		}
+		return Math.min(occupied, FULL) << 8 | dominant;
+	}
+}
@@ -118,14 +118,7 @@ public class FieldStats
 	private void generateCounts(Field field)
 	{
 		reset();
-		for (int row = 0; row < field.getDepth(); row++) {
-			for (int col = 0; col < field.getWidth(); col++) {
-				Object animal = field.getActorAt(row, col);
-				if (animal != null) {
-					incrementCount(animal.getClass());
-				}
-			}
-		}
+		field.forEachActor((row, col, animal) -> incrementCount(animal.getClass()));
 		countsValid = true;
 	}
 }
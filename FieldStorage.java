@@ -0,0 +1,156 @@
+/**
+ * Holds the actors of a Field by their row and column. A Field chooses the
+ * storage that suits its size: a dense array for fields that are mostly in
+ * use, chunks allocated only where actors are for very large, mostly empty
+ * fields, a grid outside the Java heap for very large, busy fields, or an
+ * array whose locations are claimed atomically for actors acting on several
+ * threads at once.
+ * <p>
+ * The eight neighbours of a location are numbered row by row, from 0 for the
+ * one above and to the left to 7 for the one below and to the right, as in
+ * NEIGHBOUR_ROWS and NEIGHBOUR_COLS.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public interface FieldStorage
+{
+	// The row and column offsets of the eight neighbours of a location.
+	int[] NEIGHBOUR_ROWS = {-1, -1, -1, 0, 0, 1, 1, 1};
+	int[] NEIGHBOUR_COLS = {-1, 0, 1, -1, 1, -1, 0, 1};
+	
+	/**
+	 * Return the actor at the given location, if any.
+	 *
+	 * @param row The row of the location.
+	 * @param col The column of the location.
+	 * @return The actor at the location, or null if there is none.
+	 */
+	Actor get(int row, int col);
+	
+	/**
+	 * Store an actor at the given location, replacing any actor already there.
+	 *
+	 * @param row   The row of the location.
+	 * @param col   The column of the location.
+	 * @param actor The actor to store, or null to empty the location.
+	 */
+	void set(int row, int col, Actor actor);
+	
+	/**
+	 * Store an actor at the given location if it is empty. Storage shared
+	 * between threads does this atomically, so that of several actors
+	 * claiming the same location at once only one gets it.
+	 *
+	 * @param row   The row of the location.
+	 * @param col   The column of the location.
+	 * @param actor The actor to store.
+	 * @return true If the actor was stored.
+	 */
+	default boolean claim(int row, int col, Actor actor)
+	{
+		if (get(row, col) != null) {
+			return false;
+		}
+		set(row, col, actor);
+		return true;
+	}
+	
+	/**
+	 * Empty the given location if it still holds the given actor.
+	 *
+	 * @param row   The row of the location.
+	 * @param col   The column of the location.
+	 * @param actor The actor leaving the location.
+	 */
+	default void release(int row, int col, Actor actor)
+	{
+		if (get(row, col) == actor) {
+			set(row, col, null);
+		}
+	}
+	
+	/**
+	 * Find which of the eight neighbours of a location are inside the field
+	 * and empty.
+	 *
+	 * @param row   The row of the location.
+	 * @param col   The column of the location.
+	 * @param depth The depth of the field.
+	 * @param width The width of the field.
+	 * @return A bit set with bit i set if neighbour i is free.
+	 */
+	default int freeNeighbours(int row, int col, int depth, int width)
+	{
+		int free = 0;
+		for (int i = 0; i < 8; i++) {
+			int nextRow = row + NEIGHBOUR_ROWS[i];
+			int nextCol = col + NEIGHBOUR_COLS[i];
+			if (nextRow >= 0 && nextRow < depth && nextCol >= 0 && nextCol < width && get(nextRow, nextCol) == null) {
+				free |= 1 << i;
+			}
+		}
+		return free;
+	}
+	
+	/**
+	 * Look up the actors at the eight neighbours of a location.
+	 *
+	 * @param row        The row of the location.
+	 * @param col        The column of the location.
+	 * @param depth      The depth of the field.
+	 * @param width      The width of the field.
+	 * @param neighbours Filled with the actor at neighbour i, or null if it is empty or outside the field.
+	 */
+	default void getNeighbours(int row, int col, int depth, int width, Actor[] neighbours)
+	{
+		for (int i = 0; i < 8; i++) {
+			int nextRow = row + NEIGHBOUR_ROWS[i];
+			int nextCol = col + NEIGHBOUR_COLS[i];
+			boolean inside = nextRow >= 0 && nextRow < depth && nextCol >= 0 && nextCol < width;
+			neighbours[i] = inside ? get(nextRow, nextCol) : null;
+		}
+	}
+	
+	/**
+	 * @return true If actors on several threads can claim and release locations at once.
+	 */
+	default boolean isConcurrent()
+	{
+		return false;
+	}
+	
+	/**
+	 * Empty every location.
+	 */
+	void clear();
+	
+	/**
+	 * Visit every location that holds an actor. Storage that knows where its
+	 * actors are skips the empty parts of the field.
+	 *
+	 * @param visitor What to do with each actor.
+	 */
+	void forEachActor(ActorVisitor visitor);
+	
+	/**
+	 * Bring any state the storage keeps about its actors up to date at the end
+	 * of a step. Storage that only holds the actors themselves does nothing.
+	 */
+	default void sync()
+	{
+	}
+	
+	/**
+	 * Something done with each actor of a field and its location.
+	 */
+	interface ActorVisitor
+	{
+		/**
+		 * @param row   The row of the actor.
+		 * @param col   The column of the actor.
+		 * @param actor The actor.
+		 */
+		void visit(int row, int col, Actor actor);
+	}
+}
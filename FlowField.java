@@ -0,0 +1,225 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A layer for every hunting species giving, for every location of the field,
+ * the number of steps to the nearest food of the species, so that an animal
+ * that finds no food next to it can follow the scent of food further away by
+ * looking at its neighbours, however many animals follow it.
+ * <p>
+ * The layers are worked out once at the start of every step, for the species
+ * that follow scent (SCENT_RANGE) and have animals. An animal moves to any of
+ * the eight locations around it, so the number of steps to a location is the
+ * larger of the rows and columns between them, and the distance to the
+ * nearest food of every location is what a breadth-first search from all of
+ * the food at once would give. It is worked out without a queue, in two
+ * passes over the field: one from the top left taking the smaller of each
+ * location's distance and its upper and left neighbours' distances plus one,
+ * and one from the bottom right doing the same with the lower and right
+ * neighbours. Locations further than the species' range from any food have no
+ * scent.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class FlowField
+{
+	// The largest scent range, so that the distances fit in a short.
+	public static final int MAX_RANGE = Short.MAX_VALUE - 1;
+	
+	// The simulation the layers belong to.
+	private SimulationContext context;
+	// The field the layers cover.
+	private Field field;
+	// The depth and width of the field.
+	private int depth, width;
+	// The number of locations of the field.
+	private int size;
+	// The actors of every species, by SpeciesTraits.getIndex(), as they were at the start of the step.
+	private List<List<Actor>> species;
+	// The distance to the nearest food of every location for every species, by SpeciesTraits.getIndex(), or null.
+	private short[][] distances;
+	// The traits of every species, by SpeciesTraits.getIndex().
+	private SpeciesTraits[] traits;
+	// The species every species can eat, by SpeciesTraits.getIndex().
+	private int[][] prey;
+	
+	/**
+	 * Create the layers for a field, without any scent.
+	 *
+	 * @param context The simulation the layers belong to.
+	 * @param field   The field the layers cover.
+	 * @throws IllegalArgumentException If the field is too large for an array of its locations.
+	 */
+	public FlowField(SimulationContext context, Field field)
+	{
+		this.context = context;
+		this.field = field;
+		depth = field.getDepth();
+		width = field.getWidth();
+		size = Field.getArraySize(depth, width);
+		species = new ArrayList<>();
+		distances = new short[0][];
+		traits = new SpeciesTraits[0];
+		prey = new int[0][];
+	}
+	
+	/**
+	 * Set the actors of a species at the start of a step. Called for every
+	 * species before update.
+	 *
+	 * @param speciesTraits The traits of the species.
+	 * @param actors        The actors of the species.
+	 */
+	public void setActors(SpeciesTraits speciesTraits, List<Actor> actors)
+	{
+		int index = speciesTraits.getIndex();
+		while (species.size() <= index) {
+			species.add(null);
+		}
+		species.set(index, actors);
+		if (index >= prey.length) {
+			distances = Arrays.copyOf(distances, index + 1);
+			traits = Arrays.copyOf(traits, index + 1);
+			prey = Arrays.copyOf(prey, index + 1);
+		}
+		if (prey[index] == null) {
+			traits[index] = speciesTraits;
+			prey[index] = context.getPreyIndexes(speciesTraits);
+		}
+	}
+	
+	/**
+	 * Work out the layer of every species that follows scent and has live
+	 * animals, from where their food is now.
+	 */
+	public void update()
+	{
+		for (int index = 0; index < species.size(); index++) {
+			List<Actor> hunters = species.get(index);
+			if (hunters == null || hunters.isEmpty() || traits[index].getScentRange() == 0) {
+				continue;
+			}
+			if (distances[index] == null) {
+				distances[index] = new short[size];
+			}
+			Vegetation vegetation = traits[index].isPlantEater() ? field.getVegetation() : null;
+			update(distances[index], prey[index], vegetation, traits[index].getScentRange());
+		}
+	}
+	
+	/**
+	 * Work out one layer.
+	 *
+	 * @param distance   The layer.
+	 * @param preyIndex  The species the hunters can eat.
+	 * @param vegetation The plants the hunters can eat, or null if they cannot eat them.
+	 * @param range      The furthest the hunters can smell food.
+	 */
+	private void update(short[] distance, int[] preyIndex, Vegetation vegetation, int range)
+	{
+		short none = (short) (range + 1);
+		Arrays.fill(distance, none);
+		for (int index : preyIndex) {
+			List<Actor> food = index < species.size() ? species.get(index) : null;
+			if (food == null) {
+				continue;
+			}
+			for (int i = 0; i < food.size(); i++) {
+				Actor actor = food.get(i);
+				Location location = actor.getLocation();
+				if (location != null && actor.isActive()) {
+					distance[location.getRow() * width + location.getCol()] = 0;
+				}
+			}
+		}
+		if (vegetation != null) {
+			for (int row = 0; row < depth; row++) {
+				for (int col = 0; col < width; col++) {
+					if (vegetation.hasPlant(row, col)) {
+						distance[row * width + col] = 0;
+					}
+				}
+			}
+		}
+		
+		// From the top left, taking in the neighbours above and to the left.
+		for (int row = 0; row < depth; row++) {
+			int start = row * width;
+			for (int col = 0; col < width; col++) {
+				int nearest = distance[start + col];
+				if (row > 0) {
+					int above = start - width + col;
+					nearest = Math.min(nearest, distance[above] + 1);
+					if (col > 0) {
+						nearest = Math.min(nearest, distance[above - 1] + 1);
+					}
+					if (col < width - 1) {
+						nearest = Math.min(nearest, distance[above + 1] + 1);
+					}
+				}
+				if (col > 0) {
+					nearest = Math.min(nearest, distance[start + col - 1] + 1);
+				}
+				distance[start + col] = (short) Math.min(nearest, none);
+			}
+		}
+		// From the bottom right, taking in the neighbours below and to the right.
+		for (int row = depth - 1; row >= 0; row--) {
+			int start = row * width;
+			for (int col = width - 1; col >= 0; col--) {
+				int nearest = distance[start + col];
+				if (row < depth - 1) {
+					int below = start + width + col;
+					nearest = Math.min(nearest, distance[below] + 1);
+					if (col > 0) {
+						nearest = Math.min(nearest, distance[below - 1] + 1);
+					}
+					if (col < width - 1) {
+						nearest = Math.min(nearest, distance[below + 1] + 1);
+					}
+				}
+				if (col < width - 1) {
+					nearest = Math.min(nearest, distance[start + col + 1] + 1);
+				}
+				distance[start + col] = (short) Math.min(nearest, none);
+			}
+		}
+	}
+	
+	/**
+	 * Find the neighbour of an animal's location that is one step closer to
+	 * the nearest food of its species. Of several such neighbours, which one
+	 * is first looked at changes from location to location, so that the
+	 * animals do not all drift the same way.
+	 *
+	 * @param animal The animal following the scent.
+	 * @return The next location towards food, or null if the animal smells none or it is next to the animal.
+	 */
+	public Location stepTowardsFood(Animal animal)
+	{
+		int index = animal.getTraits().getIndex();
+		short[] distance = index < distances.length ? distances[index] : null;
+		Location location = animal.getLocation();
+		if (distance == null || location == null) {
+			return null;
+		}
+		int row = location.getRow();
+		int col = location.getCol();
+		int here = distance[row * width + col];
+		if (here <= 1 || here > animal.getTraits().getScentRange()) {
+			return null;
+		}
+		int first = row + col;
+		for (int i = 0; i < 8; i++) {
+			int neighbour = (first + i) & 7;
+			int nextRow = row + FieldStorage.NEIGHBOUR_ROWS[neighbour];
+			int nextCol = col + FieldStorage.NEIGHBOUR_COLS[neighbour];
+			if (nextRow >= 0 && nextRow < depth && nextCol >= 0 && nextCol < width && distance[nextRow * width + nextCol] < here) {
+				return new Location(nextRow, nextCol);
+			}
+		}
+		return null;
+	}
+}
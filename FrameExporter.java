@@ -0,0 +1,330 @@
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports every few steps of a simulation as a PNG image, for presentations
+ * and review, without showing a window.
+ * <p>
+ * The simulation only packs the field into one byte per location (see
+ * CellState), which is quick; drawing and compressing the image is left to
+ * a pool of threads. The packed frames are taken from a fixed number of
+ * buffers, so at most that many frames wait to be written. If the threads
+ * fall that far behind, the simulation waits for a buffer rather than
+ * dropping a frame.
+ * <p>
+ * Every location is drawn as a square of the given number of pixels in the
+ * color of its species (CLASS_COLOR), darker if it is diseased, or in white
+ * if it is empty. Genders are not shown.
+ * <p>
+ * Usage: FrameExporter [steps=500] [dir=frames] [every=1] [key=value...]
+ * <p>
+ * where every key=value overrides a property of the config file. It runs a
+ * simulation without its window and exports it.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class FrameExporter
+{
+	// The number of steps simulated if none is given.
+	private static final int DEFAULT_STEPS = 500;
+	// The color of an empty location.
+	private static final int EMPTY_RGB = Color.white.getRGB();
+	// The color of a species without a color.
+	private static final Color UNKNOWN_COLOR = Color.gray;
+	
+	// The configuration the colors of the species are read from.
+	private Config config;
+	// The directory the images are written to.
+	private File directory;
+	// The depth and width of the field.
+	private int depth, width;
+	// The number of steps between two exported frames.
+	private int interval;
+	// The depth and width in pixels of a location.
+	private int scale;
+	// The threads drawing and writing the images.
+	private ExecutorService encoders;
+	// The buffers that are free to pack a frame into.
+	private ArrayBlockingQueue<byte[]> freeBuffers;
+	// The number of buffers, free or not.
+	private int bufferCount;
+	// Writes the frames still waiting if the program ends before the exporter is closed.
+	private Thread shutdownHook;
+	// The codes given to the species seen so far.
+	private HashMap<Class, Integer> speciesCodes;
+	// The color of every packed cell, by its color index (see CellState).
+	private int[] palette;
+	
+	/**
+	 * Create an exporter, and the directory it writes to if need be.
+	 *
+	 * @param config    The configuration the colors of the species are read from.
+	 * @param directory The directory the images are written to.
+	 * @param depth     The depth of the field.
+	 * @param width     The width of the field.
+	 * @param interval  The number of steps between two exported frames.
+	 * @param scale     The depth and width in pixels of a location.
+	 * @param threads   The number of threads drawing and writing the images.
+	 * @param buffers   The largest number of frames waiting to be written.
+	 * @throws IOException If the directory cannot be created.
+	 */
+	public FrameExporter(Config config, String directory, int depth, int width, int interval, int scale, int threads, int buffers)
+			throws IOException
+	{
+		this.config = config;
+		this.directory = new File(directory);
+		if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+			throw new IOException("Cannot create the directory " + directory);
+		}
+		this.depth = depth;
+		this.width = width;
+		this.interval = Math.max(1, interval);
+		this.scale = Math.max(1, scale);
+		encoders = Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+			Thread thread = new Thread(task, "frame-exporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		bufferCount = Math.max(1, buffers);
+		freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+		for (int i = 0; i < bufferCount; i++) {
+			freeBuffers.add(new byte[depth * width]);
+		}
+		speciesCodes = new HashMap<>();
+		palette = new int[CellState.COLOR_COUNT];
+		Arrays.fill(palette, EMPTY_RGB);
+		// The hook holds only the exporter, not the simulation, until it is closed.
+		shutdownHook = new Thread(() -> {
+			try {
+				shutDown();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+	
+	/**
+	 * Simulate a run without a window, exporting it as described by the arguments.
+	 */
+	public static void main(String[] args)
+	{
+		int steps = DEFAULT_STEPS;
+		Config config = new Config(Config.getDefault());
+		config.setValue("simulator.EXPORT_DIR", "frames");
+		for (String arg : args) {
+			int split = arg.indexOf('=');
+			if (split <= 0) {
+				System.err.println("Usage: FrameExporter [steps=" + DEFAULT_STEPS + "] [dir=frames] [every=1] [key=value...]");
+				System.exit(2);
+			}
+			String name = arg.substring(0, split);
+			String value = arg.substring(split + 1);
+			switch (name) {
+				case "steps":
+					steps = Integer.parseInt(value);
+					break;
+				case "dir":
+					config.setValue("simulator.EXPORT_DIR", value);
+					break;
+				case "every":
+					config.setValue("simulator.EXPORT_INTERVAL", value);
+					break;
+				default:
+					config.setValue(name, value);
+					break;
+			}
+		}
+		
+		int depth = Integer.parseInt(config.getValue("simulator.DEFAULT_DEPTH"));
+		int width = Integer.parseInt(config.getValue("simulator.DEFAULT_WIDTH"));
+		Simulator simulator = new Simulator(new SimulationContext(config), depth, width, false);
+		simulator.simulate(steps);
+		simulator.close();
+	}
+	
+	/**
+	 * Export the current state of the field if the step is one to export.
+	 * The image is written by another thread; this only waits if as many
+	 * frames as there are buffers are still waiting to be written.
+	 *
+	 * @param step  The step the field is at.
+	 * @param field The field to export.
+	 * @throws InterruptedException If interrupted while waiting for a buffer.
+	 * @throws IllegalStateException If the exporter is closed.
+	 */
+	public void exportFrame(int step, Field field) throws InterruptedException
+	{
+		if (encoders.isShutdown()) {
+			throw new IllegalStateException("The exporter is closed");
+		}
+		if (step % interval != 0) {
+			return;
+		}
+		byte[] cells = freeBuffers.take();
+		packField(field, cells);
+		int[] colors = palette;
+		encoders.execute(() -> writeImage(step, cells, colors));
+	}
+	
+	/**
+	 * Wait for every frame to be written, without stopping the threads.
+	 *
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public void flush() throws InterruptedException
+	{
+		// Every frame is written once every buffer is free again.
+		List<byte[]> buffers = new ArrayList<>();
+		try {
+			while (buffers.size() < bufferCount) {
+				buffers.add(freeBuffers.take());
+			}
+		} finally {
+			freeBuffers.addAll(buffers);
+		}
+	}
+	
+	/**
+	 * Wait for every frame to be written and stop the threads. No more
+	 * frames can be exported afterwards.
+	 *
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public void close() throws InterruptedException
+	{
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			// The program is ending, and the hook closes the exporter.
+		}
+		shutDown();
+	}
+	
+	/**
+	 * Wait for every frame to be written and stop the threads.
+	 *
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	private void shutDown() throws InterruptedException
+	{
+		encoders.shutdown();
+		encoders.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Pack every location of the field, with the plants of its plant layer
+	 * as actors of the Plant species.
+	 *
+	 * @param field The field to pack.
+	 * @param cells The buffer to pack it into.
+	 */
+	private void packField(Field field, byte[] cells)
+	{
+		Vegetation vegetation = field.getVegetation();
+		int plantCode = vegetation == null ? 0 : getSpeciesCode(Plant.class);
+		int index = 0;
+		for (int row = 0; row < depth; row++) {
+			for (int col = 0; col < width; col++) {
+				Actor actor = field.getActorAt(row, col);
+				if (actor != null) {
+					cells[index] = CellState.pack(getSpeciesCode(actor.getClass()), actor);
+				} else if (vegetation != null && vegetation.hasPlant(row, col)) {
+					cells[index] = (byte) plantCode;
+				} else {
+					cells[index] = CellState.EMPTY;
+				}
+				index++;
+			}
+		}
+	}
+	
+	/**
+	 * Return the code of the given species, adding its colors to the palette
+	 * the first time the species is seen. The palette is replaced rather
+	 * than changed, as frames waiting to be written still use the old one.
+	 *
+	 * @param cls The class of the species.
+	 * @return The code of the species.
+	 */
+	private int getSpeciesCode(Class cls)
+	{
+		Integer code = speciesCodes.get(cls);
+		if (code == null) {
+			if (speciesCodes.size() == CellState.MAX_SPECIES_CODE) {
+				throw new IllegalStateException("Too many species to export: " + cls.getName());
+			}
+			code = speciesCodes.size() + 1;
+			speciesCodes.put(cls, code);
+			Color color = getColor(cls);
+			int[] colors = palette.clone();
+			colors[code] = color.getRGB();
+			colors[CellState.getDiseasedColorIndex(code)] = color.darker().getRGB();
+			palette = colors;
+		}
+		return code;
+	}
+	
+	/**
+	 * @param cls The class of a species.
+	 * @return Its color in the configuration, or gray if it has none.
+	 */
+	private Color getColor(Class cls)
+	{
+		String name = config.getValue(cls.getName().toLowerCase() + ".CLASS_COLOR");
+		if (name != null) {
+			try {
+				return (Color) Color.class.getField(name.trim()).get(null);
+			} catch (NoSuchFieldException | IllegalAccessException e) {
+				e.printStackTrace();
+			}
+		}
+		return UNKNOWN_COLOR;
+	}
+	
+	/**
+	 * Draw a packed frame and write it as step-NNNNNN.png, then give back
+	 * its buffer. Runs on one of the exporter's threads.
+	 *
+	 * @param step   The step of the frame.
+	 * @param cells  The packed frame.
+	 * @param colors The palette of the frame.
+	 */
+	private void writeImage(int step, byte[] cells, int[] colors)
+	{
+		try {
+			BufferedImage image = new BufferedImage(width * scale, depth * scale, BufferedImage.TYPE_INT_RGB);
+			int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+			int imageWidth = width * scale;
+			for (int row = 0; row < depth; row++) {
+				int rowStart = row * scale * imageWidth;
+				for (int col = 0; col < width; col++) {
+					int rgb = colors[CellState.getColorIndex(cells[row * width + col])];
+					Arrays.fill(pixels, rowStart + col * scale, rowStart + (col + 1) * scale, rgb);
+				}
+				// The other lines of pixels of the row are copies of the first.
+				for (int line = 1; line < scale; line++) {
+					System.arraycopy(pixels, rowStart, pixels, rowStart + line * imageWidth, imageWidth);
+				}
+			}
+			ImageIO.write(image, "png", new File(directory, String.format("step-%06d.png", step)));
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			freeBuffers.add(cells);
+		}
+	}
+}
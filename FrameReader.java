@@ -0,0 +1,308 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Reads a recording written by the FrameRecorder and reconstructs the packed
+ * field of any recorded frame.
+ * <p>
+ * Seeking to a frame decodes the keyframe before it and then applies at most
+ * one keyframe interval of deltas. Reading the frames in order only applies
+ * one delta per frame, so a recording can be played back much faster than it
+ * was simulated.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class FrameReader
+{
+	// The recording file.
+	private RandomAccessFile file;
+	// The dimensions of the recorded field.
+	private int depth, width;
+	// The number of frames between two keyframes.
+	private int keyframeInterval;
+	// The recorded species, indexed by their code.
+	private Class[] species;
+	// The file offset of every frame.
+	private long[] frameOffsets;
+	// The number of frames in the recording.
+	private int frameCount;
+	// The packed field of the current frame.
+	private byte[] cells;
+	// The index of the current frame, or -1 if no frame has been read yet.
+	private int currentFrame;
+	// The step, time of day and weather of the current frame.
+	private int step;
+	private Environment.TimeOfDay timeOfDay;
+	private Environment.Weather weather;
+	// Buffer for the compressed payload of a frame.
+	private byte[] payload;
+	// The read position within the payload.
+	private int payloadPosition;
+	
+	/**
+	 * Open a recording and load its index.
+	 *
+	 * @param fileName The recording to open.
+	 * @throws IOException If the file cannot be read or is not a recording.
+	 */
+	public FrameReader(String fileName) throws IOException
+	{
+		file = new RandomAccessFile(fileName, "r");
+		if (file.readInt() != FrameRecorder.MAGIC) {
+			file.close();
+			throw new IOException(fileName + " is not a simulation recording.");
+		}
+		if (file.readShort() != FrameRecorder.VERSION) {
+			file.close();
+			throw new IOException(fileName + " was recorded with an unsupported version.");
+		}
+		depth = file.readInt();
+		width = file.readInt();
+		keyframeInterval = file.readInt();
+		species = new Class[CellState.MAX_SPECIES_CODE + 1];
+		frameOffsets = new long[1024];
+		cells = new byte[depth * width];
+		payload = new byte[0];
+		currentFrame = -1;
+		
+		if (!readIndex()) {
+			scanRecords(file.getFilePointer());
+		}
+	}
+	
+	/**
+	 * Move to the given frame and decode it.
+	 *
+	 * @param frame The index of the frame, between 0 and getFrameCount() - 1.
+	 * @return The packed field of the frame. The array is reused by later calls.
+	 * @throws IOException If the frame cannot be read.
+	 */
+	public byte[] readFrame(int frame) throws IOException
+	{
+		if (frame < 0 || frame >= frameCount) {
+			throw new IndexOutOfBoundsException("Frame " + frame + " of " + frameCount);
+		}
+		int keyframe = frame - frame % keyframeInterval;
+		int next = keyframe;
+		if (currentFrame >= keyframe && currentFrame <= frame) {
+			// Carry on from the current frame instead of going back to the keyframe.
+			next = currentFrame + 1;
+		}
+		for (; next <= frame; next++) {
+			decodeFrame(next);
+		}
+		currentFrame = frame;
+		return cells;
+	}
+	
+	/**
+	 * Close the recording file.
+	 *
+	 * @throws IOException If the file cannot be closed.
+	 */
+	public void close() throws IOException
+	{
+		file.close();
+	}
+	
+	/**
+	 * @return The number of frames in the recording.
+	 */
+	public int getFrameCount()
+	{
+		return frameCount;
+	}
+	
+	/**
+	 * @return The depth of the recorded field.
+	 */
+	public int getDepth()
+	{
+		return depth;
+	}
+	
+	/**
+	 * @return The width of the recorded field.
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+	
+	/**
+	 * @return The recorded species indexed by their code. Species whose class
+	 * cannot be found are null.
+	 */
+	public Class[] getSpecies()
+	{
+		return species;
+	}
+	
+	/**
+	 * @return The step of the last frame read.
+	 */
+	public int getStep()
+	{
+		return step;
+	}
+	
+	/**
+	 * @return The time of day of the last frame read.
+	 */
+	public Environment.TimeOfDay getTimeOfDay()
+	{
+		return timeOfDay;
+	}
+	
+	/**
+	 * @return The weather of the last frame read.
+	 */
+	public Environment.Weather getWeather()
+	{
+		return weather;
+	}
+	
+	/**
+	 * Load the index from the trailer of a properly closed recording.
+	 *
+	 * @return true If the recording has a valid trailer.
+	 * @throws IOException If the file cannot be read.
+	 */
+	private boolean readIndex() throws IOException
+	{
+		long headerEnd = file.getFilePointer();
+		if (file.length() < headerEnd + 12) {
+			return false;
+		}
+		file.seek(file.length() - 12);
+		long indexOffset = file.readLong();
+		if (file.readInt() != FrameRecorder.END_MAGIC || indexOffset < headerEnd) {
+			file.seek(headerEnd);
+			return false;
+		}
+		file.seek(indexOffset);
+		if (file.readByte() != FrameRecorder.INDEX_RECORD) {
+			file.seek(headerEnd);
+			return false;
+		}
+		int speciesCount = file.readInt();
+		for (int i = 0; i < speciesCount; i++) {
+			defineSpecies(file.readByte(), file.readUTF());
+		}
+		frameCount = file.readInt();
+		frameOffsets = new long[frameCount];
+		for (int i = 0; i < frameCount; i++) {
+			frameOffsets[i] = file.readLong();
+		}
+		return true;
+	}
+	
+	/**
+	 * Rebuild the index by reading the records one after another. Used for
+	 * recordings that were not closed properly; an incomplete last frame is
+	 * ignored.
+	 *
+	 * @param offset The offset of the first record.
+	 * @throws IOException If the file cannot be read.
+	 */
+	private void scanRecords(long offset) throws IOException
+	{
+		long length = file.length();
+		file.seek(offset);
+		try {
+			while (offset < length) {
+				byte type = file.readByte();
+				if (type == FrameRecorder.SPECIES_RECORD) {
+					defineSpecies(file.readByte(), file.readUTF());
+				} else if (type == FrameRecorder.KEYFRAME_RECORD || type == FrameRecorder.DELTA_RECORD) {
+					file.skipBytes(6);
+					long end = offset + 11 + file.readInt();
+					if (end > length) {
+						break;
+					}
+					if (frameCount == frameOffsets.length) {
+						long[] grown = new long[frameCount * 2];
+						System.arraycopy(frameOffsets, 0, grown, 0, frameCount);
+						frameOffsets = grown;
+					}
+					frameOffsets[frameCount++] = offset;
+					file.seek(end);
+				} else {
+					break;
+				}
+				offset = file.getFilePointer();
+			}
+		} catch (EOFException e) {
+			// The recording ends with an incomplete record.
+		}
+	}
+	
+	/**
+	 * Resolve the class of a recorded species.
+	 *
+	 * @param code The code of the species.
+	 * @param name The name of the species' class.
+	 */
+	private void defineSpecies(int code, String name)
+	{
+		try {
+			species[code] = Class.forName(name);
+		} catch (ClassNotFoundException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Read one frame and apply it to the current packed field.
+	 *
+	 * @param frame The index of the frame to decode.
+	 * @throws IOException If the frame cannot be read.
+	 */
+	private void decodeFrame(int frame) throws IOException
+	{
+		file.seek(frameOffsets[frame]);
+		boolean keyframe = file.readByte() == FrameRecorder.KEYFRAME_RECORD;
+		step = file.readInt();
+		timeOfDay = Environment.TimeOfDay.values()[file.readByte()];
+		weather = Environment.Weather.values()[file.readByte()];
+		int length = file.readInt();
+		if (payload.length < length) {
+			payload = new byte[length];
+		}
+		file.readFully(payload, 0, length);
+		
+		if (keyframe) {
+			Arrays.fill(cells, CellState.EMPTY);
+		}
+		payloadPosition = 0;
+		int cell = 0;
+		while (payloadPosition < length) {
+			cell += readVarInt();
+			int literals = readVarInt();
+			for (int i = 0; i < literals; i++) {
+				cells[cell++] ^= payload[payloadPosition++];
+			}
+		}
+	}
+	
+	/**
+	 * Read an unsigned variable-length integer from the payload.
+	 *
+	 * @return The integer read.
+	 */
+	private int readVarInt()
+	{
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = payload[payloadPosition++];
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+}
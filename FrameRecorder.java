@@ -0,0 +1,302 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Records the state of the field at every step to a file so that a run can be
+ * replayed later by the FrameReader without simulating it again.
+ * <p>
+ * Every cell is packed into one byte (see CellState). Every few frames a keyframe
+ * holding the whole packed field is written; the frames in between only hold the
+ * XOR of the field with the previous frame. Both kinds of frame are compressed
+ * by storing runs of zero bytes as a single count, which keeps deltas of a mostly
+ * unchanged field very small.
+ * <p>
+ * The file has the following layout:
+ * <pre>
+ *   header:  MAGIC, VERSION, depth, width, keyframe interval
+ *   records: 'S' species code and class name, written before the species is first used
+ *            'K' or 'D' step, time of day, weather, payload length, payload
+ *   trailer: 'I' species table, frame count, offset of every frame,
+ *            offset of the trailer, END_MAGIC
+ * </pre>
+ * The trailer lets a reader seek to any frame at once. If the recording was not
+ * closed properly, the reader rebuilds the index by scanning the records.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class FrameRecorder
+{
+	// Magic number at the start of a recording.
+	public static final int MAGIC = 0x44524543;
+	// Magic number at the very end of a properly closed recording.
+	public static final int END_MAGIC = 0x44454E44;
+	// Version of the file format.
+	public static final short VERSION = 1;
+	// Record types.
+	public static final byte SPECIES_RECORD = 'S';
+	public static final byte KEYFRAME_RECORD = 'K';
+	public static final byte DELTA_RECORD = 'D';
+	public static final byte INDEX_RECORD = 'I';
+	
+	// The stream the recording is written to.
+	private DataOutputStream out;
+	// The number of bytes written so far.
+	private long position;
+	// The dimensions of the recorded field.
+	private int depth, width;
+	// The number of frames between two keyframes.
+	private int keyframeInterval;
+	// The codes given to the species seen so far.
+	private HashMap<Class, Integer> speciesCodes;
+	// The species in order of their codes.
+	private List<Class> species;
+	// The file offset of every frame written so far.
+	private long[] frameOffsets;
+	// The number of frames written so far.
+	private int frameCount;
+	// The packed field of the current and previous frame.
+	private byte[] cells, previousCells;
+	// Buffer for the compressed payload of a frame.
+	private ByteArrayOutputStream payload;
+	// Writes the index if the program ends before the recording is closed.
+	private Thread shutdownHook;
+	
+	/**
+	 * Create a recording file and write its header.
+	 *
+	 * @param fileName         The file to record to.
+	 * @param depth            The depth of the recorded field.
+	 * @param width            The width of the recorded field.
+	 * @param keyframeInterval The number of frames between two keyframes.
+	 * @throws IOException If the file cannot be created.
+	 */
+	public FrameRecorder(String fileName, int depth, int width, int keyframeInterval) throws IOException
+	{
+		this.depth = depth;
+		this.width = width;
+		this.keyframeInterval = Math.max(1, keyframeInterval);
+		speciesCodes = new HashMap<>();
+		species = new ArrayList<>();
+		frameOffsets = new long[1024];
+		cells = new byte[depth * width];
+		previousCells = new byte[depth * width];
+		payload = new ByteArrayOutputStream();
+		
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16));
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+		out.writeInt(depth);
+		out.writeInt(width);
+		out.writeInt(this.keyframeInterval);
+		position = out.size();
+		// The hook holds only the recorder, not the simulation, until it is closed.
+		shutdownHook = new Thread(() -> {
+			try {
+				shutDown();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+	
+	/**
+	 * Record the current state of the field as the next frame.
+	 * Does nothing once the recording has been closed.
+	 *
+	 * @param step  The step the field is at.
+	 * @param field The field to record.
+	 * @throws IOException If the frame cannot be written.
+	 */
+	public synchronized void recordFrame(int step, Field field) throws IOException
+	{
+		if (out == null) {
+			return;
+		}
+		// Pack into the spare buffer first, so that a frame that cannot be packed leaves the last one as it was.
+		packField(field, previousCells);
+		byte[] swap = previousCells;
+		previousCells = cells;
+		cells = swap;
+		
+		boolean keyframe = frameCount % keyframeInterval == 0;
+		payload.reset();
+		encode(keyframe ? null : previousCells);
+		
+		if (frameCount == frameOffsets.length) {
+			long[] grown = new long[frameCount * 2];
+			System.arraycopy(frameOffsets, 0, grown, 0, frameCount);
+			frameOffsets = grown;
+		}
+		frameOffsets[frameCount++] = position;
+		out.writeByte(keyframe ? KEYFRAME_RECORD : DELTA_RECORD);
+		out.writeInt(step);
+		Environment environment = field.getContext().getEnvironment();
+		out.writeByte(environment.getTimeOfDay().ordinal());
+		out.writeByte(environment.getWeather().ordinal());
+		out.writeInt(payload.size());
+		payload.writeTo(out);
+		position += 1 + 4 + 1 + 1 + 4 + payload.size();
+	}
+	
+	/**
+	 * Write the frames recorded so far to the file. The recording is not
+	 * closed, so later frames can still be recorded, and a reader rebuilds
+	 * the index of a file that was flushed but not closed.
+	 *
+	 * @throws IOException If the frames cannot be written.
+	 */
+	public synchronized void flush() throws IOException
+	{
+		if (out != null) {
+			out.flush();
+		}
+	}
+	
+	/**
+	 * Write the index and close the recording.
+	 *
+	 * @throws IOException If the index cannot be written.
+	 */
+	public void close() throws IOException
+	{
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			// The program is ending, and the hook closes the recording.
+		}
+		shutDown();
+	}
+	
+	/**
+	 * Write the index and close the file, unless it is closed already.
+	 *
+	 * @throws IOException If the index cannot be written.
+	 */
+	private synchronized void shutDown() throws IOException
+	{
+		if (out == null) {
+			return;
+		}
+		long indexOffset = position;
+		out.writeByte(INDEX_RECORD);
+		out.writeInt(species.size());
+		for (int i = 0; i < species.size(); i++) {
+			out.writeByte(i + 1);
+			out.writeUTF(species.get(i).getName());
+		}
+		out.writeInt(frameCount);
+		for (int i = 0; i < frameCount; i++) {
+			out.writeLong(frameOffsets[i]);
+		}
+		out.writeLong(indexOffset);
+		out.writeInt(END_MAGIC);
+		out.close();
+		out = null;
+	}
+	
+	/**
+	 * Pack every cell of the field into a frame.
+	 *
+	 * @param field The field to pack.
+	 * @param frame The buffer to pack it into.
+	 * @throws IOException If a new species record cannot be written.
+	 */
+	private void packField(Field field, byte[] frame) throws IOException
+	{
+		int index = 0;
+		for (int row = 0; row < depth; row++) {
+			for (int col = 0; col < width; col++) {
+				Actor actor = field.getActorAt(row, col);
+				frame[index++] = actor == null ? CellState.EMPTY : CellState.pack(getSpeciesCode(actor.getClass()), actor);
+			}
+		}
+	}
+	
+	/**
+	 * Return the code of the given species, writing a species record the
+	 * first time the species is seen.
+	 *
+	 * @param cls The class of the species.
+	 * @return The code of the species.
+	 * @throws IOException If the species record cannot be written.
+	 */
+	private int getSpeciesCode(Class cls) throws IOException
+	{
+		Integer code = speciesCodes.get(cls);
+		if (code == null) {
+			if (species.size() == CellState.MAX_SPECIES_CODE) {
+				throw new IOException("Too many species to record: " + cls.getName());
+			}
+			species.add(cls);
+			code = species.size();
+			speciesCodes.put(cls, code);
+			
+			ByteArrayOutputStream record = new ByteArrayOutputStream();
+			DataOutputStream recordOut = new DataOutputStream(record);
+			recordOut.writeByte(SPECIES_RECORD);
+			recordOut.writeByte(code);
+			recordOut.writeUTF(cls.getName());
+			record.writeTo(out);
+			position += record.size();
+		}
+		return code;
+	}
+	
+	/**
+	 * Compress the current frame into the payload buffer. The payload is a sequence of
+	 * (zero run length, literal length, literal bytes) groups, with both lengths
+	 * written as variable-length integers.
+	 *
+	 * @param previous The previous frame to XOR against, or null for a keyframe.
+	 */
+	private void encode(byte[] previous)
+	{
+		int length = cells.length;
+		int i = 0;
+		while (i < length) {
+			int runStart = i;
+			while (i < length && delta(i, previous) == 0) {
+				i++;
+			}
+			int literalStart = i;
+			while (i < length && delta(i, previous) != 0) {
+				i++;
+			}
+			writeVarInt(literalStart - runStart);
+			writeVarInt(i - literalStart);
+			for (int j = literalStart; j < i; j++) {
+				payload.write(delta(j, previous));
+			}
+		}
+	}
+	
+	/**
+	 * @return The byte to encode for the cell at the given index.
+	 */
+	private int delta(int index, byte[] previous)
+	{
+		return previous == null ? cells[index] : cells[index] ^ previous[index];
+	}
+	
+	/**
+	 * Write an unsigned integer to the payload, seven bits per byte.
+	 *
+	 * @param value The integer to write.
+	 */
+	private void writeVarInt(int value)
+	{
+		while ((value & ~0x7F) != 0) {
+			payload.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		payload.write(value);
+	}
+}
@@ -0,0 +1,139 @@
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+
+/**
+ * Replays a recording made by the simulator (see simulator.RECORD_FILE in the
+ * config file) in the SimulatorView without simulating it again.
+ * <p>
+ * The recording plays at replay.FRAMES_PER_SECOND frames per second. The slider
+ * at the bottom of the window scrubs to any step of the recording, and the
+ * button pauses and resumes the playback.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class FrameReplayer
+{
+	// The recording being replayed.
+	private FrameReader reader;
+	// The view showing the recording.
+	private SimulatorView view;
+	// The slider used to scrub through the recording.
+	private JSlider slider;
+	// The button pausing and resuming the playback.
+	private JButton playButton;
+	// The timer advancing the playback.
+	private Timer timer;
+	
+	/**
+	 * Create a replayer for the given recording and show its first frame.
+	 *
+	 * @param reader The recording to replay.
+	 */
+	public FrameReplayer(FrameReader reader)
+	{
+		this.reader = reader;
+		view = new SimulatorView(reader.getDepth(), reader.getWidth());
+		view.setTitle("Replay");
+		PopulationGenerator.setClassColors(view);
+		
+		slider = new JSlider(0, Math.max(0, reader.getFrameCount() - 1), 0);
+		slider.addChangeListener(e -> showFrame(slider.getValue()));
+		playButton = new JButton("Pause");
+		playButton.addActionListener(e -> togglePlayback());
+		JPanel controls = new JPanel(new BorderLayout());
+		controls.setOpaque(false);
+		controls.add(playButton, BorderLayout.WEST);
+		controls.add(slider, BorderLayout.CENTER);
+		view.setReplayControls(controls);
+		
+		int framesPerSecond = Integer.parseInt(Config.getProperty("replay.FRAMES_PER_SECOND", "60"));
+		timer = new Timer(1000 / Math.max(1, framesPerSecond), e -> nextFrame());
+		showFrame(0);
+	}
+	
+	/**
+	 * Replay the recording named on the command line, or simulator.RECORD_FILE
+	 * from the config file if none is given.
+	 */
+	public static void main(String[] args)
+	{
+		String fileName = args.length > 0 ? args[0] : Config.getProperty("simulator.RECORD_FILE");
+		if (fileName == null) {
+			System.out.println("No recording given and simulator.RECORD_FILE is not set.");
+			return;
+		}
+		try {
+			FrameReader reader = new FrameReader(fileName.trim());
+			SwingUtilities.invokeLater(() -> new FrameReplayer(reader).play());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Start or resume the playback.
+	 */
+	public void play()
+	{
+		timer.start();
+		playButton.setText("Pause");
+	}
+	
+	/**
+	 * Pause the playback.
+	 */
+	public void pause()
+	{
+		timer.stop();
+		playButton.setText("Play");
+	}
+	
+	/**
+	 * Pause the playback if it is playing, resume it otherwise.
+	 */
+	private void togglePlayback()
+	{
+		if (timer.isRunning()) {
+			pause();
+		} else {
+			if (slider.getValue() == slider.getMaximum()) {
+				slider.setValue(0);
+			}
+			play();
+		}
+	}
+	
+	/**
+	 * Advance the playback by one frame, pausing at the end of the recording.
+	 */
+	private void nextFrame()
+	{
+		if (slider.getValue() < slider.getMaximum()) {
+			// The slider's listener shows the frame.
+			slider.setValue(slider.getValue() + 1);
+		} else {
+			pause();
+		}
+	}
+	
+	/**
+	 * Decode and show a frame of the recording.
+	 *
+	 * @param frame The index of the frame to show.
+	 */
+	private void showFrame(int frame)
+	{
+		if (reader.getFrameCount() == 0) {
+			return;
+		}
+		try {
+			byte[] cells = reader.readFrame(frame);
+			view.showFrame(reader.getStep(), reader.getTimeOfDay(), reader.getWeather(), cells, reader.getSpecies());
+		} catch (IOException e) {
+			e.printStackTrace();
+			pause();
+		}
+	}
+}
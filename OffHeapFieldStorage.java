@@ -0,0 +1,277 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Field storage that keeps the grid outside the Java heap, so that the garbage
+ * collector has no per-location references to scan however large the field is.
+ * <p>
+ * Every location holds a packed CellState byte and an int handle. The handle
+ * indexes a table of the actors in the field, which grows with the number of
+ * actors rather than with the area, and whose slots are reused as actors move
+ * and die. The grid is split into segments of SEGMENT_CELLS locations, each
+ * held in its own direct ByteBuffer, so fields larger than 2GB can be stored.
+ * <p>
+ * The grid can be backed by a memory mapped file, which other programs can read
+ * while the simulation runs. The file starts with a header of HEADER_SIZE bytes:
+ * <pre>
+ *   int MAGIC, int VERSION, int depth, int width, int generation, int SEGMENT_CELLS,
+ *   MAX_SPECIES_CODE species names of NAME_SIZE bytes, padded with zeros
+ * </pre>
+ * followed by each segment: the CellState of each of its locations, row by row,
+ * then the handle of each of its locations. The generation is increased every
+ * time the states are brought up to date by sync().
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class OffHeapFieldStorage implements FieldStorage
+{
+	// Identifies a grid file ("DGRD").
+	public static final int MAGIC = 0x44475244;
+	// Version of the file layout.
+	public static final int VERSION = 1;
+	// The number of bytes before the first segment.
+	public static final int HEADER_SIZE = 512;
+	// The number of bytes of each species name in the header.
+	public static final int NAME_SIZE = 32;
+	// The number of bits of a location's index that select it within its segment.
+	private static final int SEGMENT_BITS = 26;
+	// The number of locations of a full segment.
+	public static final int SEGMENT_CELLS = 1 << SEGMENT_BITS;
+	// The position of the generation in the header.
+	private static final int GENERATION_OFFSET = 16;
+	// The position of the first species name in the header.
+	private static final int NAMES_OFFSET = 24;
+	
+	// The width of the field.
+	private int width;
+	// The header of the grid.
+	private ByteBuffer header;
+	// The segments of the grid.
+	private ByteBuffer[] segments;
+	// The number of locations of each segment, which is where its handles start.
+	private int[] segmentCells;
+	// The actor of each handle, or null if the handle is free.
+	private Actor[] actors;
+	// The location of the actor of each handle, as an index row * width + col.
+	private long[] locations;
+	// The number of handles ever given out.
+	private int handleCount;
+	// The handles that have been freed and can be given out again.
+	private int[] freeHandles;
+	// The number of freed handles.
+	private int freeCount;
+	// The number of times the states have been brought up to date.
+	private int generation;
+	
+	/**
+	 * Create off-heap storage for a field of the given size, optionally backed
+	 * by a file. If the file cannot be mapped the grid is kept in memory.
+	 *
+	 * @param depth    The depth of the field.
+	 * @param width    The width of the field.
+	 * @param fileName The file to map the grid to, or null to keep it in memory.
+	 */
+	public OffHeapFieldStorage(int depth, int width, String fileName)
+	{
+		this.width = width;
+		long cells = (long) depth * width;
+		int segmentCount = (int) ((cells + SEGMENT_CELLS - 1) >>> SEGMENT_BITS);
+		segments = new ByteBuffer[segmentCount];
+		segmentCells = new int[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			segmentCells[i] = (int) Math.min(SEGMENT_CELLS, cells - ((long) i << SEGMENT_BITS));
+		}
+		
+		if (fileName != null) {
+			try {
+				map(Path.of(fileName));
+			} catch (IOException e) {
+				e.printStackTrace();
+				header = null;
+			}
+		}
+		if (header == null) {
+			header = ByteBuffer.allocateDirect(HEADER_SIZE);
+			for (int i = 0; i < segmentCount; i++) {
+				segments[i] = ByteBuffer.allocateDirect(segmentCells[i] * 5);
+			}
+		}
+		header.putInt(0, MAGIC);
+		header.putInt(4, VERSION);
+		header.putInt(8, depth);
+		header.putInt(12, width);
+		header.putInt(GENERATION_OFFSET, 0);
+		header.putInt(20, SEGMENT_CELLS);
+		
+		actors = new Actor[1024];
+		locations = new long[1024];
+		freeHandles = new int[1024];
+	}
+	
+	/**
+	 * Map the header and every segment to a file, which is created or resized
+	 * to fit the grid.
+	 *
+	 * @param path The file to map the grid to.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	private void map(Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			channel.truncate(0);
+			header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+			long position = HEADER_SIZE;
+			for (int i = 0; i < segments.length; i++) {
+				segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, segmentCells[i] * 5L);
+				position += segmentCells[i] * 5L;
+			}
+		}
+	}
+	
+	/**
+	 * @param row The row of the location.
+	 * @param col The column of the location.
+	 * @return The actor at the location, or null if there is none.
+	 */
+	public Actor get(int row, int col)
+	{
+		long index = (long) row * width + col;
+		int handle = getHandle(index);
+		return handle == 0 ? null : actors[handle - 1];
+	}
+	
+	/**
+	 * Store an actor, giving it a handle, and free the handle of any actor
+	 * it replaces.
+	 *
+	 * @param row   The row of the location.
+	 * @param col   The column of the location.
+	 * @param actor The actor to store, or null to empty the location.
+	 */
+	public void set(int row, int col, Actor actor)
+	{
+		long index = (long) row * width + col;
+		int oldHandle = getHandle(index);
+		if (oldHandle != 0) {
+			actors[oldHandle - 1] = null;
+			if (freeCount == freeHandles.length) {
+				freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+			}
+			freeHandles[freeCount++] = oldHandle - 1;
+		}
+		ByteBuffer segment = segments[(int) (index >>> SEGMENT_BITS)];
+		int offset = (int) (index & (SEGMENT_CELLS - 1));
+		int handlesStart = segmentCells[(int) (index >>> SEGMENT_BITS)];
+		if (actor == null) {
+			segment.put(offset, CellState.EMPTY);
+			segment.putInt(handlesStart + offset * 4, 0);
+			return;
+		}
+		int handle = allocateHandle();
+		actors[handle] = actor;
+		locations[handle] = index;
+		segment.put(offset, pack(actor));
+		segment.putInt(handlesStart + offset * 4, handle + 1);
+	}
+	
+	/**
+	 * Empty every location and free every handle.
+	 */
+	public void clear()
+	{
+		for (ByteBuffer segment : segments) {
+			for (int i = 0; i + 8 <= segment.capacity(); i += 8) {
+				segment.putLong(i, 0);
+			}
+			for (int i = segment.capacity() & ~7; i < segment.capacity(); i++) {
+				segment.put(i, (byte) 0);
+			}
+		}
+		Arrays.fill(actors, 0, handleCount, null);
+		handleCount = 0;
+		freeCount = 0;
+	}
+	
+	/**
+	 * Visit every location that holds an actor by going through the handle
+	 * table, so that the empty locations are never read.
+	 *
+	 * @param visitor What to do with each actor.
+	 */
+	public void forEachActor(ActorVisitor visitor)
+	{
+		for (int handle = 0; handle < handleCount; handle++) {
+			if (actors[handle] != null) {
+				visitor.visit((int) (locations[handle] / width), (int) (locations[handle] % width), actors[handle]);
+			}
+		}
+	}
+	
+	/**
+	 * Bring the packed state of every actor up to date, as actors become
+	 * diseased without moving, and increase the generation in the header.
+	 */
+	public void sync()
+	{
+		for (int handle = 0; handle < handleCount; handle++) {
+			if (actors[handle] != null) {
+				long index = locations[handle];
+				segments[(int) (index >>> SEGMENT_BITS)].put((int) (index & (SEGMENT_CELLS - 1)), pack(actors[handle]));
+			}
+		}
+		header.putInt(GENERATION_OFFSET, ++generation);
+	}
+	
+	/**
+	 * @param index The index of a location.
+	 * @return The handle stored at the location, one more than the actor's slot, or 0 if it is empty.
+	 */
+	private int getHandle(long index)
+	{
+		int segment = (int) (index >>> SEGMENT_BITS);
+		int offset = (int) (index & (SEGMENT_CELLS - 1));
+		return segments[segment].getInt(segmentCells[segment] + offset * 4);
+	}
+	
+	/**
+	 * @return A free slot of the handle table, growing the table if there is none.
+	 */
+	private int allocateHandle()
+	{
+		if (freeCount > 0) {
+			return freeHandles[--freeCount];
+		}
+		if (handleCount == actors.length) {
+			actors = Arrays.copyOf(actors, handleCount * 2);
+			locations = Arrays.copyOf(locations, handleCount * 2);
+		}
+		return handleCount++;
+	}
+	
+	/**
+	 * Pack the state of an actor, writing the name of its species to the
+	 * header the first time it is seen.
+	 *
+	 * @param actor The actor to pack.
+	 * @return The packed state of the actor's location.
+	 */
+	private byte pack(Actor actor)
+	{
+		int code = actor.getTraits().getIndex() + 1;
+		if (code > CellState.MAX_SPECIES_CODE) {
+			code = 0;
+		} else if (header.get(NAMES_OFFSET + (code - 1) * NAME_SIZE) == 0) {
+			byte[] name = actor.getClass().getName().getBytes(StandardCharsets.US_ASCII);
+			for (int i = 0; i < Math.min(name.length, NAME_SIZE); i++) {
+				header.put(NAMES_OFFSET + (code - 1) * NAME_SIZE + i, name[i]);
+			}
+		}
+		return CellState.pack(code, actor);
+	}
+}
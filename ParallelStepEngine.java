@@ -0,0 +1,138 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets the actors of a simulation act on several threads at once, as an
+ * alternative to splitting the world into bands (see PartitionCoordinator).
+ * <p>
+ * The threads take chunks of CHUNK_SIZE actors from the list in turn until it
+ * is used up, so a thread that got quick actors takes more chunks and none is
+ * left idle on a clustered population. The actors share one field, whose
+ * storage must be concurrent (see ConcurrentFieldStorage): moves and births
+ * claim their location with compare-and-set and fall back to the next free
+ * adjacent location if another actor got there first, and a prey is killed
+ * with a compare-and-set on whether it is alive, so two predators cannot eat
+ * the same one. Each thread has its own random number generator, so the
+ * outcome of a step depends on how the threads happen to interleave.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class ParallelStepEngine
+{
+	// The number of actors a thread takes from the list at a time.
+	private static final int CHUNK_SIZE = 256;
+	// The number of seconds an idle thread is kept before it ends.
+	private static final int KEEP_ALIVE_SECONDS = 5;
+	
+	// The threads the actors act on.
+	private ThreadPoolExecutor executor;
+	// The number of threads.
+	private int threads;
+	
+	/**
+	 * Create an engine with the given number of threads. The threads are
+	 * started when first needed and end when they have been idle for a while.
+	 *
+	 * @param context The simulation, whose random number generator seeds those of the threads.
+	 * @param threads The number of threads the actors act on.
+	 */
+	public ParallelStepEngine(SimulationContext context, int threads)
+	{
+		this.threads = threads;
+		executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				task -> new Worker(task, new Random(context.getRandom().nextLong())));
+		executor.allowCoreThreadTimeOut(true);
+	}
+	
+	/**
+	 * Let every actor of a list act, spread over the threads. The list must
+	 * not change until all of them have acted. Dead actors are left in the
+	 * list.
+	 *
+	 * @param list      The actors.
+	 * @param newActors A list to return newly born actors.
+	 */
+	public void actAll(List<Actor> list, List<Actor> newActors)
+	{
+		AtomicInteger nextChunk = new AtomicInteger();
+		List<Callable<List<Actor>>> tasks = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			tasks.add(() -> actChunks(list, nextChunk));
+		}
+		try {
+			for (Future<List<Actor>> born : executor.invokeAll(tasks)) {
+				for (Actor actor : born.get()) {
+					// Actors whose location was taken first by another actor were never born.
+					if (actor.isActive()) {
+						newActors.add(actor);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			// An actor failed to act, as it would on one thread.
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Let the actors of chunks of the list act until there are no chunks left.
+	 * The list holds actors of one species (see Actor.actAll).
+	 *
+	 * @param list      The actors.
+	 * @param nextChunk The index of the first actor of the next chunk to take.
+	 * @return The actors born while the chunks acted.
+	 */
+	private static List<Actor> actChunks(List<Actor> list, AtomicInteger nextChunk)
+	{
+		List<Actor> newActors = new ArrayList<>();
+		int size = list.size();
+		for (int start = nextChunk.getAndAdd(CHUNK_SIZE); start < size; start = nextChunk.getAndAdd(CHUNK_SIZE)) {
+			int end = Math.min(start + CHUNK_SIZE, size);
+			list.get(start).actAll(list, start, end, newActors);
+		}
+		return newActors;
+	}
+	
+	/**
+	 * A thread that actors act on, with a random number generator of its own
+	 * so that the threads do not contend for the one of the simulation.
+	 */
+	static class Worker extends Thread
+	{
+		// The random number generator of the actors acting on the thread.
+		private Random rand;
+		
+		/**
+		 * @param task What the thread runs.
+		 * @param rand The random number generator of the thread.
+		 */
+		Worker(Runnable task, Random rand)
+		{
+			super(task, "actor-worker");
+			this.rand = rand;
+			setDaemon(true);
+		}
+		
+		/**
+		 * @return The random number generator of the actors acting on the thread.
+		 */
+		Random getRandom()
+		{
+			return rand;
+		}
+	}
+}
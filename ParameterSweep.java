@@ -0,0 +1,299 @@
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a simulation for every combination of a grid of config file values and
+ * a list of random seeds, without a view and on all processors at once, and
+ * writes one CSV row per run.
+ * <p>
+ * Usage: ParameterSweep [steps=500] [seeds=1-10] [threads=n] [out=file.csv] [stop=conditions] key=values...
+ * <p>
+ * where every key is a property of the config file and its values are either a
+ * comma separated list (0.01,0.05) or a range from:to:step (0.02:0.1:0.02).
+ * Each row holds the run number, the seed, the value of every swept key, the
+ * number of steps run, the step at which every actor was gone (if they were),
+ * the stop condition that ended the run early (if one did), the runtime and,
+ * for every species, its final and peak population and the step at which it
+ * died out. The stop conditions are written as for simulator.STOP_CONDITIONS
+ * in the config file, for example stop=extinct,steady:100:0.05.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class ParameterSweep
+{
+	// The number of steps of every run if none is given.
+	private static final int DEFAULT_STEPS = 500;
+	
+	// The swept config file keys and their values.
+	private LinkedHashMap<String, String[]> grid;
+	// The seeds every point of the grid is run with.
+	private long[] seeds;
+	// The maximum number of steps of every run.
+	private int steps;
+	// The species that are counted, in the order of their columns.
+	private List<Class> species;
+	// The conditions that end a run early, or null to use the config file's.
+	private String stopConditions;
+	
+	/**
+	 * Create a sweep over a grid of config file values.
+	 *
+	 * @param grid           The swept config file keys and their values.
+	 * @param seeds          The seeds every point of the grid is run with.
+	 * @param steps          The maximum number of steps of every run.
+	 * @param stopConditions The conditions that end a run early, or null to use the config file's.
+	 */
+	public ParameterSweep(LinkedHashMap<String, String[]> grid, long[] seeds, int steps, String stopConditions)
+	{
+		this.grid = grid;
+		this.seeds = seeds;
+		this.steps = steps;
+		this.stopConditions = stopConditions;
+		species = PopulationGenerator.getSpecies(Config.getDefault());
+	}
+	
+	/**
+	 * Run the sweep described by the arguments.
+	 */
+	public static void main(String[] args) throws FileNotFoundException, InterruptedException, ExecutionException
+	{
+		int steps = DEFAULT_STEPS;
+		long[] seeds = {Long.parseLong(Config.getProperty("randomizer.SEED").trim())};
+		int threads = Runtime.getRuntime().availableProcessors();
+		String outFile = null;
+		String stopConditions = null;
+		LinkedHashMap<String, String[]> grid = new LinkedHashMap<>();
+		for (String arg : args) {
+			int split = arg.indexOf('=');
+			if (split <= 0) {
+				System.err.println("Usage: ParameterSweep [steps=" + DEFAULT_STEPS + "] [seeds=1-10] [threads=n] [out=file.csv] [stop=conditions] key=values...");
+				System.err.println("Values are a list (0.01,0.05) or a range from:to:step (0.02:0.1:0.02).");
+				System.exit(2);
+			}
+			String name = arg.substring(0, split);
+			String value = arg.substring(split + 1);
+			switch (name) {
+				case "steps":
+					steps = Integer.parseInt(value);
+					break;
+				case "seeds":
+					seeds = parseSeeds(value);
+					break;
+				case "threads":
+					threads = Integer.parseInt(value);
+					break;
+				case "out":
+					outFile = value;
+					break;
+				case "stop":
+					stopConditions = value;
+					break;
+				default:
+					grid.put(name, parseValues(value));
+					break;
+			}
+		}
+		
+		PrintStream out = outFile == null ? System.out : new PrintStream(outFile);
+		new ParameterSweep(grid, seeds, steps, stopConditions).run(out, threads);
+		out.close();
+	}
+	
+	/**
+	 * Run every combination of the grid and the seeds, running as many
+	 * simulations at once as there are threads, and write the CSV rows in
+	 * run order.
+	 *
+	 * @param out     Where to write the CSV.
+	 * @param threads The number of simulations run at once.
+	 */
+	public void run(PrintStream out, int threads) throws InterruptedException, ExecutionException
+	{
+		out.println(getHeader());
+		List<String[]> points = getPoints();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<String>> rows = new ArrayList<>();
+		for (String[] point : points) {
+			for (long seed : seeds) {
+				int run = rows.size() + 1;
+				rows.add(executor.submit(() -> runOne(run, point, seed)));
+			}
+		}
+		executor.shutdown();
+		for (int i = 0; i < rows.size(); i++) {
+			out.println(rows.get(i).get());
+			out.flush();
+			System.err.println("Finished run " + (i + 1) + "/" + rows.size());
+		}
+	}
+	
+	/**
+	 * Run a single simulation and summarise it.
+	 *
+	 * @param run   The number of the run.
+	 * @param point The value of every swept key.
+	 * @param seed  The random seed of the run.
+	 * @return The CSV row of the run.
+	 */
+	private String runOne(int run, String[] point, long seed)
+	{
+		long start = System.nanoTime();
+		Config config = new Config(Config.getDefault());
+		List<String> keys = new ArrayList<>(grid.keySet());
+		for (int i = 0; i < point.length; i++) {
+			config.setValue(keys.get(i), point[i]);
+		}
+		// Runs of a sweep are neither profiled, recorded nor exported, and as they run side by side each runs on one thread.
+		config.setValue("simulator.PROFILING", "false");
+		config.setValue("simulator.RECORD_FILE", "");
+		config.setValue("simulator.EXPORT_DIR", "");
+		config.setValue("simulator.THREADS", "1");
+		if (stopConditions != null) {
+			config.setValue("simulator.STOP_CONDITIONS", stopConditions);
+		}
+		int depth = Integer.parseInt(config.getValue("simulator.DEFAULT_DEPTH").trim());
+		int width = Integer.parseInt(config.getValue("simulator.DEFAULT_WIDTH").trim());
+		Simulator simulator = new Simulator(new SimulationContext(config, seed), depth, width, false);
+		
+		int[] counts = new int[species.size()];
+		int[] peaks = new int[species.size()];
+		int[] extinctionSteps = new int[species.size()];
+		int extinctionStep = 0;
+		StopCondition stoppedBy = null;
+		int step = 0;
+		while (true) {
+			int total = 0;
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = simulator.getField().getPopulation(species.get(i));
+				peaks[i] = Math.max(peaks[i], counts[i]);
+				if (counts[i] == 0 && extinctionSteps[i] == 0 && peaks[i] > 0) {
+					extinctionSteps[i] = step;
+				}
+				total += counts[i];
+			}
+			if (total == 0) {
+				extinctionStep = step;
+				break;
+			}
+			if (step == steps) {
+				break;
+			}
+			stoppedBy = simulator.checkStopConditions();
+			if (stoppedBy != null) {
+				break;
+			}
+			simulator.simulateOneStep();
+			step++;
+		}
+		
+		List<String> row = new ArrayList<>();
+		row.add(Integer.toString(run));
+		row.add(Long.toString(seed));
+		row.addAll(Arrays.asList(point));
+		row.add(Integer.toString(step));
+		row.add(extinctionStep > 0 ? Integer.toString(extinctionStep) : "");
+		row.add(stoppedBy == null ? "" : stoppedBy.toString());
+		row.add(Long.toString((System.nanoTime() - start) / 1000000));
+		for (int i = 0; i < counts.length; i++) {
+			row.add(Integer.toString(counts[i]));
+			row.add(Integer.toString(peaks[i]));
+			row.add(extinctionSteps[i] > 0 ? Integer.toString(extinctionSteps[i]) : "");
+		}
+		return String.join(",", row);
+	}
+	
+	/**
+	 * @return The names of the CSV columns.
+	 */
+	private String getHeader()
+	{
+		List<String> header = new ArrayList<>();
+		header.add("run");
+		header.add("seed");
+		header.addAll(grid.keySet());
+		header.add("stepsRun");
+		header.add("extinctionStep");
+		header.add("stoppedBy");
+		header.add("runtimeMillis");
+		for (Class cls : species) {
+			header.add(cls.getName() + "Final");
+			header.add(cls.getName() + "Peak");
+			header.add(cls.getName() + "ExtinctionStep");
+		}
+		return String.join(",", header);
+	}
+	
+	/**
+	 * @return Every combination of the values of the swept keys.
+	 */
+	private List<String[]> getPoints()
+	{
+		List<String[]> points = new ArrayList<>();
+		points.add(new String[0]);
+		for (String[] values : grid.values()) {
+			List<String[]> extended = new ArrayList<>();
+			for (String[] point : points) {
+				for (String value : values) {
+					String[] next = Arrays.copyOf(point, point.length + 1);
+					next[point.length] = value;
+					extended.add(next);
+				}
+			}
+			points = extended;
+		}
+		return points;
+	}
+	
+	/**
+	 * Parse the values of a swept key.
+	 *
+	 * @param spec A comma separated list of values, or a range from:to:step.
+	 * @return The values.
+	 */
+	private static String[] parseValues(String spec)
+	{
+		String[] range = spec.split(":");
+		if (range.length != 3) {
+			return spec.split(",");
+		}
+		// Decimal arithmetic keeps 0.1 + 0.2 from becoming 0.30000000000000004.
+		BigDecimal to = new BigDecimal(range[1]);
+		BigDecimal increment = new BigDecimal(range[2]);
+		List<String> values = new ArrayList<>();
+		for (BigDecimal value = new BigDecimal(range[0]); value.compareTo(to) <= 0; value = value.add(increment)) {
+			values.add(value.toPlainString());
+		}
+		return values.toArray(new String[0]);
+	}
+	
+	/**
+	 * Parse the seeds of the sweep.
+	 *
+	 * @param spec A comma separated list of seeds, or a range first-last.
+	 * @return The seeds.
+	 */
+	private static long[] parseSeeds(String spec)
+	{
+		String[] range = spec.split("-");
+		if (range.length == 2) {
+			long first = Long.parseLong(range[0]);
+			long last = Long.parseLong(range[1]);
+			long[] seeds = new long[(int) (last - first + 1)];
+			for (int i = 0; i < seeds.length; i++) {
+				seeds[i] = first + i;
+			}
+			return seeds;
+		}
+		return Arrays.stream(spec.split(",")).mapToLong(Long::parseLong).toArray();
+	}
+}
@@ -0,0 +1,186 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a world that is split into horizontal bands, each simulated by its own
+ * PartitionWorker process, so that the world can be far larger than one heap.
+ * The coordinator starts the workers on this machine, steps them in lockstep
+ * and writes the population of every species at every step as CSV.
+ * <p>
+ * Usage: PartitionCoordinator [workers=2] [steps=500] [depth=d] [width=w] [seed=s]
+ * [transport=tcp|unix] [port=47000] [dir=/tmp] [spawn=true] [jvm=-Xmx2g] [out=file.csv] key=value...
+ * <p>
+ * With transport=tcp the coordinator listens at the loopback port and worker k
+ * at port + 1 + k; with transport=unix they use sockets in dir. With spawn=false
+ * the workers are not started, so they can be started by hand with the command
+ * lines the coordinator prints. Every other key=value overrides the config file
+ * in every worker.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class PartitionCoordinator
+{
+	/**
+	 * Run a partitioned world as described by the arguments.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		int workers = 2;
+		int steps = 500;
+		int depth = Integer.parseInt(Config.getProperty("simulator.DEFAULT_DEPTH").trim());
+		int width = Integer.parseInt(Config.getProperty("simulator.DEFAULT_WIDTH").trim());
+		long seed = Long.parseLong(Config.getProperty("randomizer.SEED").trim());
+		String transport = "tcp";
+		int port = 47000;
+		String dir = System.getProperty("java.io.tmpdir");
+		boolean spawn = true;
+		String jvmOptions = "";
+		String outFile = null;
+		List<String> overrides = new ArrayList<>();
+		for (String arg : args) {
+			int split = arg.indexOf('=');
+			if (split <= 0) {
+				System.err.println("Usage: PartitionCoordinator [workers=2] [steps=500] [depth=d] [width=w] [seed=s]"
+						+ " [transport=tcp|unix] [port=47000] [dir=/tmp] [spawn=true] [jvm=-Xmx2g] [out=file.csv] key=value...");
+				System.exit(2);
+			}
+			String name = arg.substring(0, split);
+			String value = arg.substring(split + 1);
+			switch (name) {
+				case "workers":
+					workers = Integer.parseInt(value);
+					break;
+				case "steps":
+					steps = Integer.parseInt(value);
+					break;
+				case "depth":
+					depth = Integer.parseInt(value);
+					break;
+				case "width":
+					width = Integer.parseInt(value);
+					break;
+				case "seed":
+					seed = Long.parseLong(value);
+					break;
+				case "transport":
+					transport = value;
+					break;
+				case "port":
+					port = Integer.parseInt(value);
+					break;
+				case "dir":
+					dir = value;
+					break;
+				case "spawn":
+					spawn = Boolean.parseBoolean(value);
+					break;
+				case "jvm":
+					jvmOptions = value;
+					break;
+				case "out":
+					outFile = value;
+					break;
+				default:
+					overrides.add(arg);
+					break;
+			}
+		}
+		if (workers < 1 || workers > depth) {
+			System.err.println("There must be between 1 and depth workers.");
+			System.exit(2);
+		}
+		
+		boolean unix = transport.equals("unix");
+		String address = unix ? "unix:" + new File(dir, "coordinator.sock").getPath() : "tcp:" + port;
+		String links = unix ? "unix:" + dir : "tcp:" + (port + 1);
+		ServerSocketChannel server = PartitionLink.listen(address);
+		
+		List<Process> processes = new ArrayList<>();
+		for (int i = 0; i < workers; i++) {
+			List<String> command = new ArrayList<>();
+			command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+			for (String option : jvmOptions.split(" ")) {
+				if (!option.isEmpty()) {
+					command.add(option);
+				}
+			}
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add("PartitionWorker");
+			command.add("index=" + i);
+			command.add("workers=" + workers);
+			command.add("depth=" + depth);
+			command.add("width=" + width);
+			command.add("seed=" + seed);
+			command.add("coordinator=" + address);
+			command.add("links=" + links);
+			command.addAll(overrides);
+			if (spawn) {
+				processes.add(new ProcessBuilder(command).inheritIO().start());
+			} else {
+				System.err.println(String.join(" ", command));
+			}
+		}
+		
+		PartitionLink[] workerLinks = new PartitionLink[workers];
+		for (int i = 0; i < workers; i++) {
+			PartitionLink link = PartitionLink.accept(server);
+			workerLinks[link.getIn().readInt()] = link;
+		}
+		server.close();
+		
+		PrintStream out = outFile == null ? System.out : new PrintStream(outFile);
+		List<Class> species = PopulationGenerator.getSpecies(Config.getDefault());
+		List<String> header = new ArrayList<>();
+		header.add("step");
+		for (Class cls : species) {
+			header.add(cls.getName());
+		}
+		header.add("total");
+		out.println(String.join(",", header));
+		
+		long start = System.nanoTime();
+		for (int step = 0; ; step++) {
+			long[] counts = new long[species.size()];
+			for (PartitionLink link : workerLinks) {
+				link.getIn().readInt();
+				for (int i = 0; i < counts.length; i++) {
+					counts[i] += link.getIn().readInt();
+				}
+			}
+			long total = 0;
+			StringBuilder row = new StringBuilder().append(step);
+			for (long count : counts) {
+				row.append(',').append(count);
+				total += count;
+			}
+			out.println(row.append(',').append(total));
+			
+			boolean carryOn = step < steps && total > 0;
+			for (PartitionLink link : workerLinks) {
+				link.getOut().writeBoolean(carryOn);
+				link.flush();
+			}
+			if (!carryOn) {
+				break;
+			}
+		}
+		out.flush();
+		System.err.println("Ran " + workers + " workers in " + (System.nanoTime() - start) / 1000000 + " ms");
+		
+		for (PartitionLink link : workerLinks) {
+			link.close();
+		}
+		for (Process process : processes) {
+			process.waitFor();
+		}
+		if (outFile != null) {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,160 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A connection between two processes of a partitioned simulation, over a
+ * loopback TCP port or a Unix domain socket.
+ * <p>
+ * Addresses are written as "tcp:port" or "unix:path".
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class PartitionLink
+{
+	// How long to keep trying to connect to a process that is still starting, in milliseconds.
+	private static final int CONNECT_TIMEOUT = 30000;
+	
+	// The connection.
+	private SocketChannel channel;
+	// Reads from the connection.
+	private DataInputStream in;
+	// Writes to the connection, which is only sent on flush().
+	private DataOutputStream out;
+	
+	/**
+	 * @param channel The connection.
+	 */
+	private PartitionLink(SocketChannel channel)
+	{
+		this.channel = channel;
+		in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+		out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+	}
+	
+	/**
+	 * Start listening at an address.
+	 *
+	 * @param address The address, tcp:port or unix:path.
+	 * @return The listening channel.
+	 * @throws IOException If the address cannot be listened at.
+	 */
+	public static ServerSocketChannel listen(String address) throws IOException
+	{
+		ServerSocketChannel server;
+		if (address.startsWith("unix:")) {
+			Path path = Path.of(address.substring(5));
+			Files.deleteIfExists(path);
+			server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		} else {
+			server = ServerSocketChannel.open();
+		}
+		server.bind(toSocketAddress(address));
+		return server;
+	}
+	
+	/**
+	 * Wait for a process to connect.
+	 *
+	 * @param server The listening channel.
+	 * @return The link to the process.
+	 * @throws IOException If the connection fails.
+	 */
+	public static PartitionLink accept(ServerSocketChannel server) throws IOException
+	{
+		return new PartitionLink(server.accept());
+	}
+	
+	/**
+	 * Connect to a process, waiting for it to start listening.
+	 *
+	 * @param address The address of the process, tcp:port or unix:path.
+	 * @return The link to the process.
+	 * @throws IOException If the process does not start listening in time.
+	 */
+	public static PartitionLink connect(String address) throws IOException
+	{
+		long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT;
+		while (true) {
+			SocketChannel channel = address.startsWith("unix:") ? SocketChannel.open(StandardProtocolFamily.UNIX) : SocketChannel.open();
+			try {
+				channel.connect(toSocketAddress(address));
+				return new PartitionLink(channel);
+			} catch (IOException e) {
+				channel.close();
+				if (System.currentTimeMillis() > deadline) {
+					throw e;
+				}
+			}
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException ie) {
+				// try again
+			}
+		}
+	}
+	
+	/**
+	 * @param address An address, tcp:port or unix:path.
+	 * @return The socket address it names.
+	 */
+	private static SocketAddress toSocketAddress(String address)
+	{
+		if (address.startsWith("unix:")) {
+			return UnixDomainSocketAddress.of(address.substring(5));
+		}
+		String port = address.startsWith("tcp:") ? address.substring(4) : address;
+		return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port));
+	}
+	
+	/**
+	 * @return Reads from the connection.
+	 */
+	public DataInputStream getIn()
+	{
+		return in;
+	}
+	
+	/**
+	 * @return Writes to the connection. Nothing is sent until flush() is called.
+	 */
+	public DataOutputStream getOut()
+	{
+		return out;
+	}
+	
+	/**
+	 * Send everything written so far.
+	 *
+	 * @throws IOException If the connection fails.
+	 */
+	public void flush() throws IOException
+	{
+		out.flush();
+	}
+	
+	/**
+	 * Close the connection.
+	 */
+	public void close()
+	{
+		try {
+			channel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
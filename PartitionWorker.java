@@ -0,0 +1,525 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.channels.ServerSocketChannel;
+import java.util.List;
+
+/**
+ * Simulates one horizontal band of a world that is split between several
+ * processes, started by the PartitionCoordinator.
+ * <p>
+ * The worker's field holds the rows of its band and, for each neighbouring
+ * band, one halo row with copies ("ghosts") of the neighbour's edge row, so
+ * that actors at the edge see their neighbours across it. Ghosts do not act.
+ * After every step the worker sends each neighbour:
+ * <ul>
+ * <li>what happened to the neighbour's ghosts: eaten or infected,</li>
+ * <li>the actors that moved or were born into the halo row, which move to the neighbour,</li>
+ * </ul>
+ * then sends its population to the coordinator, and finally sends each neighbour
+ * its edge row for the next step's ghosts. What happens to a ghost is applied
+ * to the actor it copies after the step, so an actor eaten at an edge may
+ * still have acted in that step.
+ * <p>
+ * Usage: PartitionWorker index=k workers=n depth=d width=w seed=s coordinator=address links=address key=value...
+ * <p>
+ * where the coordinator address is tcp:port or unix:path, and links is
+ * tcp:port, with worker k listening for its lower neighbour at port + k, or
+ * unix:directory, with worker k listening at directory/worker-k.sock.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class PartitionWorker
+{
+	// A ghost that was eaten.
+	private static final byte KILLED = 1;
+	// A ghost that became diseased.
+	private static final byte INFECTED = 2;
+	
+	// The number of this worker, from 0 at the top of the world.
+	private int index;
+	// The number of workers.
+	private int workers;
+	// The width of the world.
+	private int width;
+	// The local rows of the first and last row of the band.
+	private int firstRow, lastRow;
+	// The simulation of the band.
+	private Simulator simulator;
+	// The field of the band, with its halo rows.
+	private Field field;
+	// The species counted for the coordinator, in the order of its columns.
+	private List<Class> species;
+	// The connection to the coordinator.
+	private PartitionLink coordinator;
+	// The connections to the bands above and below, or null at the edge of the world.
+	private PartitionLink upper, lower;
+	// The ghosts in the upper and lower halo rows, by column.
+	private Actor[] upperGhosts, lowerGhosts;
+	// Whether each ghost was healthy when it was created.
+	private boolean[] upperGhostsHealthy, lowerGhostsHealthy;
+	// The actors of the edge rows that were sent to the neighbours as ghosts, by column.
+	private Actor[] sentUpper, sentLower;
+	
+	/**
+	 * Start a worker as described by the arguments and simulate its band until
+	 * the coordinator stops it.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		Config config = new Config(Config.getDefault());
+		int index = 0, workers = 1, depth = 0, width = 0;
+		long seed = 0;
+		String coordinatorAddress = null, links = null;
+		for (String arg : args) {
+			int split = arg.indexOf('=');
+			if (split <= 0) {
+				System.err.println("Usage: PartitionWorker index=k workers=n depth=d width=w seed=s coordinator=address"
+						+ " links=address key=value...");
+				System.exit(2);
+			}
+			String name = arg.substring(0, split);
+			String value = arg.substring(split + 1);
+			switch (name) {
+				case "index":
+					index = Integer.parseInt(value);
+					break;
+				case "workers":
+					workers = Integer.parseInt(value);
+					break;
+				case "depth":
+					depth = Integer.parseInt(value);
+					break;
+				case "width":
+					width = Integer.parseInt(value);
+					break;
+				case "seed":
+					seed = Long.parseLong(value);
+					break;
+				case "coordinator":
+					coordinatorAddress = value;
+					break;
+				case "links":
+					links = value;
+					break;
+				default:
+					config.setValue(name, value);
+					break;
+			}
+		}
+		PartitionWorker worker = new PartitionWorker(config, index, workers, depth, width, seed);
+		worker.connect(coordinatorAddress, links);
+		worker.run();
+	}
+	
+	/**
+	 * Create the simulation of one band of the world.
+	 *
+	 * @param config  The configuration of the world.
+	 * @param index   The number of this worker, from 0 at the top of the world.
+	 * @param workers The number of workers.
+	 * @param depth   The depth of the world.
+	 * @param width   The width of the world.
+	 * @param seed    The random seed of the world.
+	 */
+	public PartitionWorker(Config config, int index, int workers, int depth, int width, long seed)
+	{
+		this.index = index;
+		this.workers = workers;
+		this.width = width;
+		int rows = getBandStart(depth, workers, index + 1) - getBandStart(depth, workers, index);
+		firstRow = index > 0 ? 1 : 0;
+		lastRow = firstRow + rows - 1;
+		int localDepth = lastRow + 1 + (index < workers - 1 ? 1 : 0);
+		
+		// Workers are neither profiled, recorded nor exported, only the coordinator decides when to stop,
+		// and each worker runs its band on one thread.
+		config.setValue("simulator.PROFILING", "false");
+		config.setValue("simulator.RECORD_FILE", "");
+		config.setValue("simulator.EXPORT_DIR", "");
+		config.setValue("simulator.STOP_CONDITIONS", "");
+		config.setValue("simulator.THREADS", "1");
+		// Every band has its own actors but the whole world shares its weather.
+		SimulationContext context = new SimulationContext(config, seed + 0x9E3779B97F4A7C15L * (index + 1), seed);
+		simulator = new Simulator(context, localDepth, width, false);
+		field = simulator.getField();
+		species = PopulationGenerator.getSpecies(config);
+		
+		// The world was populated including the halo rows, which belong to the neighbours.
+		for (int row = 0; row < localDepth; row++) {
+			if (row < firstRow || row > lastRow) {
+				for (int col = 0; col < width; col++) {
+					Actor actor = field.getActorAt(row, col);
+					if (actor != null) {
+						actor.setDead();
+					}
+				}
+			}
+		}
+		upperGhosts = new Actor[width];
+		lowerGhosts = new Actor[width];
+		upperGhostsHealthy = new boolean[width];
+		lowerGhostsHealthy = new boolean[width];
+		sentUpper = new Actor[width];
+		sentLower = new Actor[width];
+	}
+	
+	/**
+	 * @param depth   The depth of the world.
+	 * @param workers The number of workers.
+	 * @param index   The number of a worker.
+	 * @return The first row of the world in the worker's band.
+	 */
+	public static int getBandStart(int depth, int workers, int index)
+	{
+		return (int) ((long) depth * index / workers);
+	}
+	
+	/**
+	 * @param links The addresses of the workers, tcp:port or unix:directory.
+	 * @param index The number of a worker.
+	 * @return The address at which the worker listens for the worker below it.
+	 */
+	public static String getLinkAddress(String links, int index)
+	{
+		if (links.startsWith("unix:")) {
+			return links + "/worker-" + index + ".sock";
+		}
+		return "tcp:" + (Integer.parseInt(links.substring(4)) + index);
+	}
+	
+	/**
+	 * Connect to the coordinator and to the neighbouring workers.
+	 *
+	 * @param coordinatorAddress The address of the coordinator.
+	 * @param links              The addresses of the workers, tcp:port or unix:directory.
+	 * @throws IOException If a connection fails.
+	 */
+	public void connect(String coordinatorAddress, String links) throws IOException
+	{
+		ServerSocketChannel server = index < workers - 1 ? PartitionLink.listen(getLinkAddress(links, index)) : null;
+		coordinator = PartitionLink.connect(coordinatorAddress);
+		coordinator.getOut().writeInt(index);
+		coordinator.flush();
+		if (index > 0) {
+			upper = PartitionLink.connect(getLinkAddress(links, index - 1));
+		}
+		if (server != null) {
+			lower = PartitionLink.accept(server);
+			server.close();
+		}
+	}
+	
+	/**
+	 * Simulate the band, one step each time the coordinator asks for one.
+	 *
+	 * @throws IOException If a connection fails.
+	 */
+	public void run() throws IOException
+	{
+		sendPopulation();
+		exchangeHalos();
+		while (coordinator.getIn().readBoolean()) {
+			simulator.simulateOneStep();
+			exchangeEdges();
+			sendPopulation();
+			exchangeHalos();
+		}
+		coordinator.close();
+		if (upper != null) {
+			upper.close();
+		}
+		if (lower != null) {
+			lower.close();
+		}
+	}
+	
+	/**
+	 * Send the population of each species in the band to the coordinator.
+	 *
+	 * @throws IOException If the connection fails.
+	 */
+	private void sendPopulation() throws IOException
+	{
+		DataOutputStream out = coordinator.getOut();
+		out.writeInt(simulator.getStep());
+		for (Class cls : species) {
+			out.writeInt(field.getPopulation(cls));
+		}
+		coordinator.flush();
+	}
+	
+	/**
+	 * Tell the neighbours what happened to their ghosts and hand them the
+	 * actors that crossed into the halo rows, then apply what they sent.
+	 * Afterwards the halo rows are empty.
+	 *
+	 * @throws IOException If a connection fails.
+	 */
+	private void exchangeEdges() throws IOException
+	{
+		byte[] toUpper = upper == null ? null : writeEdge(0, upperGhosts, upperGhostsHealthy);
+		byte[] toLower = lower == null ? null : writeEdge(lastRow + 1, lowerGhosts, lowerGhostsHealthy);
+		byte[][] received = exchange(toUpper, toLower);
+		if (received[0] != null) {
+			readEdge(new DataInputStream(new ByteArrayInputStream(received[0])), firstRow, sentUpper);
+		}
+		if (received[1] != null) {
+			readEdge(new DataInputStream(new ByteArrayInputStream(received[1])), lastRow, sentLower);
+		}
+	}
+	
+	/**
+	 * Write what happened to the ghosts of a halo row and the actors that
+	 * crossed into it, removing both from the band.
+	 *
+	 * @param row           The halo row.
+	 * @param ghosts        The ghosts of the row, by column.
+	 * @param ghostsHealthy Whether each ghost was healthy when it was created.
+	 * @return The message for the neighbour.
+	 * @throws IOException Never, as the message is written to memory.
+	 */
+	private byte[] writeEdge(int row, Actor[] ghosts, boolean[] ghostsHealthy) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (int col = 0; col < width; col++) {
+			Actor ghost = ghosts[col];
+			if (ghost != null && !ghost.isActive()) {
+				out.writeInt(col);
+				out.writeByte(KILLED);
+			} else if (ghost != null && ghostsHealthy[col] && !ghost.isHealthy()) {
+				out.writeInt(col);
+				out.writeByte(INFECTED);
+			}
+		}
+		out.writeInt(-1);
+		
+		for (int col = 0; col < width; col++) {
+			Actor actor = field.getActorAt(row, col);
+			if (actor != null && actor != ghosts[col]) {
+				out.writeInt(col);
+				writeActor(out, actor);
+				actor.setDead();
+			}
+		}
+		out.writeInt(-1);
+		
+		for (int col = 0; col < width; col++) {
+			if (ghosts[col] != null && ghosts[col].isActive()) {
+				ghosts[col].setDead();
+			}
+			ghosts[col] = null;
+		}
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * Apply what a neighbour sent about the ghosts of the band's edge row, and
+	 * place the actors that crossed from the neighbour into the edge row.
+	 *
+	 * @param in   The message from the neighbour.
+	 * @param row  The edge row next to the neighbour.
+	 * @param sent The actors of the edge row that the neighbour has ghosts of, by column.
+	 * @throws IOException If the message cannot be read.
+	 */
+	private void readEdge(DataInputStream in, int row, Actor[] sent) throws IOException
+	{
+		for (int col = in.readInt(); col >= 0; col = in.readInt()) {
+			byte outcome = in.readByte();
+			Actor actor = sent[col];
+			if (actor != null && actor.isActive()) {
+				if (outcome == KILLED) {
+					actor.setDead();
+				} else if (outcome == INFECTED) {
+					actor.setDisease(1);
+				}
+			}
+		}
+		
+		for (int col = in.readInt(); col >= 0; col = in.readInt()) {
+			Location location = new Location(row, col);
+			if (field.getActorAt(location) != null) {
+				location = null;
+				for (Location free : field.getFreeAdjacentLocations(new Location(row, col))) {
+					if (free.getRow() >= firstRow && free.getRow() <= lastRow) {
+						location = free;
+						break;
+					}
+				}
+			}
+			Actor actor = readActor(in, location);
+			// An actor with nowhere to go in a crowded band is lost.
+			if (actor != null) {
+				simulator.addActor(actor);
+			}
+		}
+	}
+	
+	/**
+	 * Send the edge rows of the band to the neighbours and create ghosts of
+	 * what they sent in the halo rows.
+	 *
+	 * @throws IOException If a connection fails.
+	 */
+	private void exchangeHalos() throws IOException
+	{
+		byte[] toUpper = upper == null ? null : writeHalo(firstRow, sentUpper);
+		byte[] toLower = lower == null ? null : writeHalo(lastRow, sentLower);
+		byte[][] received = exchange(toUpper, toLower);
+		if (received[0] != null) {
+			readHalo(new DataInputStream(new ByteArrayInputStream(received[0])), 0, upperGhosts, upperGhostsHealthy);
+		}
+		if (received[1] != null) {
+			readHalo(new DataInputStream(new ByteArrayInputStream(received[1])), lastRow + 1, lowerGhosts, lowerGhostsHealthy);
+		}
+	}
+	
+	/**
+	 * Write the actors of an edge row.
+	 *
+	 * @param row  The edge row.
+	 * @param sent Where to remember the actors sent, by column.
+	 * @return The message for the neighbour.
+	 * @throws IOException Never, as the message is written to memory.
+	 */
+	private byte[] writeHalo(int row, Actor[] sent) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (int col = 0; col < width; col++) {
+			sent[col] = field.getActorAt(row, col);
+			if (sent[col] != null) {
+				out.writeInt(col);
+				writeActor(out, sent[col]);
+			}
+		}
+		out.writeInt(-1);
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * Create ghosts of the actors a neighbour sent in a halo row.
+	 *
+	 * @param in            The message from the neighbour.
+	 * @param row           The halo row.
+	 * @param ghosts        Where to keep the ghosts, by column.
+	 * @param ghostsHealthy Where to keep whether each ghost is healthy.
+	 * @throws IOException If the message cannot be read.
+	 */
+	private void readHalo(DataInputStream in, int row, Actor[] ghosts, boolean[] ghostsHealthy) throws IOException
+	{
+		for (int col = in.readInt(); col >= 0; col = in.readInt()) {
+			ghosts[col] = readActor(in, new Location(row, col));
+			if (ghosts[col] != null) {
+				// The neighbour's own actor infects its neighbours, so the ghost does not.
+				ghosts[col].stopSpreadingDisease();
+				ghostsHealthy[col] = ghosts[col].isHealthy();
+			}
+		}
+	}
+	
+	/**
+	 * Send a message to each neighbour and receive one from each. Links are
+	 * served in two rounds, first those below even numbered workers and then
+	 * those below odd numbered ones, and on each link the upper worker writes
+	 * first, so two workers never wait to write to each other at once.
+	 *
+	 * @param toUpper The message for the band above, or null if there is none.
+	 * @param toLower The message for the band below, or null if there is none.
+	 * @return The messages from the bands above and below, or null where there is none.
+	 * @throws IOException If a connection fails.
+	 */
+	private byte[][] exchange(byte[] toUpper, byte[] toLower) throws IOException
+	{
+		byte[][] received = new byte[2][];
+		for (int round = 0; round < 2; round++) {
+			if (lower != null && index % 2 == round) {
+				send(lower, toLower);
+				received[1] = receive(lower);
+			}
+			if (upper != null && (index - 1) % 2 == round) {
+				received[0] = receive(upper);
+				send(upper, toUpper);
+			}
+		}
+		return received;
+	}
+	
+	/**
+	 * @param link    The link to send the message on.
+	 * @param message The message.
+	 * @throws IOException If the connection fails.
+	 */
+	private static void send(PartitionLink link, byte[] message) throws IOException
+	{
+		link.getOut().writeInt(message.length);
+		link.getOut().write(message);
+		link.flush();
+	}
+	
+	/**
+	 * @param link The link to receive the message from.
+	 * @return The message.
+	 * @throws IOException If the connection fails.
+	 */
+	private static byte[] receive(PartitionLink link) throws IOException
+	{
+		byte[] message = new byte[link.getIn().readInt()];
+		link.getIn().readFully(message);
+		return message;
+	}
+	
+	/**
+	 * Write the species and state of an actor. The state is preceded by its
+	 * length, so that an actor that cannot be placed can be skipped.
+	 *
+	 * @param out   Where to write the actor.
+	 * @param actor The actor.
+	 * @throws IOException If the actor cannot be written.
+	 */
+	private static void writeActor(DataOutputStream out, Actor actor) throws IOException
+	{
+		ByteArrayOutputStream state = new ByteArrayOutputStream();
+		actor.writeState(new DataOutputStream(state));
+		out.writeUTF(actor.getClass().getName());
+		out.writeShort(state.size());
+		state.writeTo(out);
+	}
+	
+	/**
+	 * Create an actor written by writeActor.
+	 *
+	 * @param in       Where to read the actor from.
+	 * @param location Where to create the actor, or null to read it without creating it.
+	 * @return The actor, or null if it was not created.
+	 * @throws IOException If the actor cannot be read.
+	 */
+	private Actor readActor(DataInputStream in, Location location) throws IOException
+	{
+		String className = in.readUTF();
+		int stateLength = in.readShort();
+		if (location == null) {
+			in.skipBytes(stateLength);
+			return null;
+		}
+		Actor actor;
+		try {
+			Class<?> cls = Class.forName(className);
+			actor = (Actor) cls.getConstructor(Boolean.TYPE, Field.class, Location.class).newInstance(false, field, location);
+		} catch (ClassNotFoundException |
+				NoSuchMethodException |
+				IllegalAccessException |
+				InstantiationException |
+				InvocationTargetException e) {
+			throw new IOException("Cannot create a " + className, e);
+		}
+		actor.readState(in);
+		actor.place();
+		return actor;
+	}
+}
@@ -1,3 +1,6 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -12,23 +15,6 @@ import java.util.List;
  */
 public class Plant extends Actor
 {
-	// String prefix for all config file properties for this class.
-	private static final String propertyPrefix = Plant.class.getName().toLowerCase() + ".";
-	// The maximum age of the plant.
-	private static final int MAX_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_AGE"));
-	// The minimum age to the plants needs to reach to start reproducing.
-	private static final int REPRODUCTION_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "REPRODUCTION_AGE"));
-	// The maximum age the plant needs to reach to stop reproducing.
-	private static final int MAX_REPRODUCTION_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_REPRODUCTION_AGE"));
-	// Maximum offspring that could be created by the plant in one step.
-	private static final int MAX_OFFSPRING = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_OFFSPRING"));
-	// The spreading probability of the plant.
-	private static final double REPRODUCTION_PROBABILITY = Double.parseDouble(Config.getProperty(propertyPrefix + "REPRODUCTION_PROBABILITY"));
-	// The maximum water level the plant can reach.
-	private static final int MAX_WATER_LEVEL = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_WATER_LEVEL"));
-	// The amount of steps an animal can go after eating the plant.
-	private static final int CALORIES = Integer.parseInt(Config.getProperty(propertyPrefix + "CALORIES"));
-	
 	// The water level of the plant.
 	private int water_level;
 	
@@ -46,7 +32,7 @@ public class Plant extends Actor
 	{
 		super(randomAge, field, location);
 		if (randomAge) {
-			setWaterLevel(getRand().nextInt(MAX_WATER_LEVEL));
+			setWaterLevel(getRand().nextInt(getTraits().getMaxWaterLevel()));
 		} else {
 			setWaterLevel(20);
 		}
@@ -61,9 +47,8 @@ public class Plant extends Actor
 	 */
 	public void act(List<Actor> newPlants)
 	{
-		incrementAge();
 		if (isActive()) {
-			if (!(Environment.getCurrentWeather() == Environment.Weather.RAINY)) {
+			if (!(getEnvironment().getWeather() == Environment.Weather.RAINY)) {
 				decreaseWaterLevel();
 				if (isActive()) {
 					spreadAround(newPlants);
@@ -71,12 +56,6 @@ public class Plant extends Actor
 			} else {
 				increaseWaterLevel();
 			}
-			if (!isHealthy()) {
-				incrementSickStepCount();
-			}
-			if (getSickStepCount() >= getDiseasedStepsTillDeath()) {
-				setDead();
-			}
 		}
 	}
 	
@@ -95,7 +74,9 @@ public class Plant extends Actor
 		for (int b = 0; b < plants && free.size() > 0; b++) {
 			Location loc = free.remove(0);
 			Plant young = new Plant(false, getField(), loc);
-			newPlants.add(young);
+			if (young.place()) {
+				newPlants.add(young);
+			}
 		}
 	}
 	
@@ -110,10 +91,34 @@ public class Plant extends Actor
 		if (newWaterLevel >= 0) {
 			water_level = newWaterLevel;
 		} else {
-			water_level = getRand().nextInt(MAX_WATER_LEVEL);
+			water_level = getRand().nextInt(getTraits().getMaxWaterLevel());
 		}
 	}
 	
+	/**
+	 * Write the state of the plant, including its water level.
+	 *
+	 * @param out Where to write the state.
+	 * @throws IOException If the state cannot be written.
+	 */
+	protected void writeState(DataOutput out) throws IOException
+	{
+		super.writeState(out);
+		out.writeInt(water_level);
+	}
+	
+	/**
+	 * Replace the state of the plant with one written by writeState.
+	 *
+	 * @param in Where to read the state from.
+	 * @throws IOException If the state cannot be read.
+	 */
+	protected void readState(DataInput in) throws IOException
+	{
+		super.readState(in);
+		water_level = in.readInt();
+	}
+	
 	/**
 	 * Increase the water level of the plant.
 	 * If cannot go above the maximum water level.
@@ -121,8 +126,8 @@ public class Plant extends Actor
 	public void increaseWaterLevel()
 	{
 		water_level++;
-		if (water_level >= MAX_WATER_LEVEL) {
-			water_level = MAX_WATER_LEVEL;
+		if (water_level >= getTraits().getMaxWaterLevel()) {
+			water_level = getTraits().getMaxWaterLevel();
 		}
 	}
 	
@@ -154,7 +159,7 @@ public class Plant extends Actor
 	 */
 	public int getMaxAge()
 	{
-		return MAX_AGE;
+		return getTraits().getMaxAge();
 	}
 	
 	/**
@@ -162,7 +167,7 @@ public class Plant extends Actor
 	 */
 	public int getReproductionAge()
 	{
-		return REPRODUCTION_AGE;
+		return getTraits().getReproductionAge();
 	}
 	
 	/**
@@ -170,7 +175,7 @@ public class Plant extends Actor
 	 */
 	public int getMaxReproductionAge()
 	{
-		return MAX_REPRODUCTION_AGE;
+		return getTraits().getMaxReproductionAge();
 	}
 	
 	/**
@@ -186,7 +191,7 @@ public class Plant extends Actor
 	 */
 	public double getReproductionProbability()
 	{
-		return REPRODUCTION_PROBABILITY;
+		return getTraits().getReproductionProbability();
 	}
 	
 	/**
@@ -194,6 +199,6 @@ public class Plant extends Actor
 	 */
 	public int getMaxOffspring()
 	{
-		return MAX_OFFSPRING;
+		return getTraits().getMaxOffspring();
 	}
 }
@@ -0,0 +1,58 @@
+/**
+ * Stops a simulation once the number of actors, or of actors of one species,
+ * falls below or rises above a threshold.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class PopulationCondition implements StopCondition
+{
+	// The species counted, or null to count every actor.
+	private Class species;
+	// The population at which the condition is met.
+	private int threshold;
+	// Whether the condition is met above the threshold rather than below it.
+	private boolean above;
+	
+	/**
+	 * Create a condition on the size of a population.
+	 *
+	 * @param species   The species counted, or null to count every actor.
+	 * @param threshold The population at which the condition is met.
+	 * @param above     true to stop above the threshold, false to stop below it.
+	 */
+	public PopulationCondition(Class species, int threshold, boolean above)
+	{
+		this.species = species;
+		this.threshold = threshold;
+		this.above = above;
+	}
+	
+	/**
+	 * Check whether the population has crossed the threshold.
+	 *
+	 * @param simulator The simulation to check.
+	 * @return true If the population is beyond the threshold.
+	 */
+	public boolean isMet(Simulator simulator)
+	{
+		Field field = simulator.getField();
+		int population = species == null ? field.getTotalPopulation() : field.getPopulation(species);
+		return above ? population > threshold : population < threshold;
+	}
+	
+	/**
+	 * Nothing is remembered between steps.
+	 */
+	public void reset()
+	{
+	}
+	
+	/**
+	 * @return A description of the condition.
+	 */
+	public String toString()
+	{
+		return (above ? "above:" : "below:") + (species == null ? "" : species.getName() + ":") + threshold;
+	}
+}
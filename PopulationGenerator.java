@@ -1,5 +1,6 @@
 import java.awt.*;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -14,40 +15,38 @@ import java.util.Random;
 
 public class PopulationGenerator
 {
-	//
-	private static LinkedHashMap<Class, Double> creationProbabilities = new LinkedHashMap<>();
-	
 	/**
-	 * Populates the field through iteration.
+	 * Populates the field through iteration, after covering it with plants if
+	 * it has a layer of them. A sparse field is populated by
+	 * populateSparse instead, which takes time in proportion to the number of
+	 * actors created rather than the area of the field.
 	 *
 	 * @param field  The current field to be populated.
 	 * @param actors The list of the actors that would be added to the field.
-	 * @param view   The GUI.
+	 * @param view   The GUI, or null if the simulation runs without one.
 	 */
 	public static void populate(Field field, List<Actor> actors, SimulatorView view)
 	{
-		collectProbabilities();
-		setClassColors(view);
+		LinkedHashMap<Class, Double> creationProbabilities = collectProbabilities(field.getContext().getConfig());
+		if (view != null) {
+			setClassColors(view);
+		}
 		
-		Random rand = Randomizer.getRandom();
+		Random rand = field.getContext().getRandom();
 		field.clear();
+		if (field.getVegetation() != null) {
+			field.getVegetation().populate(field.getVegetationDensity());
+		}
+		if (field.isSparse()) {
+			populateSparse(field, actors, creationProbabilities, rand);
+			return;
+		}
 		
 		for (int row = 0; row < field.getDepth(); row++) {
 			for (int col = 0; col < field.getWidth(); col++) {
 				for (Class<?> cls : creationProbabilities.keySet()) {
 					if (rand.nextDouble() <= creationProbabilities.get(cls)) {
-						Location location = new Location(row, col);
-						Actor actorInstance = null;
-						try {
-							//Dynamically creates an instance of Actor subclass using its own creation probability via Reflection API.
-							actorInstance = (Actor) cls.getConstructor(Boolean.TYPE, Field.class, Location.class).newInstance(true, field, location);
-						} catch (NoSuchMethodException |
-								IllegalAccessException |
-								InstantiationException |
-								InvocationTargetException e) {
-							e.printStackTrace();
-						}
-						actors.add(actorInstance);
+						actors.add(createActor(cls, field, new Location(row, col)));
 					}
 				}
 				// else leave the location empty.
@@ -56,14 +55,129 @@ public class PopulationGenerator
 	}
 	
 	/**
-	 * Extract the creation probabilities of classes from the config file and adds them in a hashMap.
+	 * Populate a sparse field. Rather than drawing a random number for every
+	 * location and class, the gap to the next location of each class is drawn
+	 * from the geometric distribution, so the empty locations cost nothing.
+	 * A location already holding an actor is left as it is.
+	 *
+	 * @param field                 The field to be populated.
+	 * @param actors                The list of the actors that would be added to the field.
+	 * @param creationProbabilities The creation probability of each class.
+	 * @param rand                  The random number generator of the simulation.
+	 */
+	private static void populateSparse(Field field, List<Actor> actors, LinkedHashMap<Class, Double> creationProbabilities, Random rand)
+	{
+		long area = (long) field.getDepth() * field.getWidth();
+		for (Class<?> cls : creationProbabilities.keySet()) {
+			double probability = creationProbabilities.get(cls);
+			if (probability <= 0) {
+				continue;
+			}
+			double logFailure = Math.log(1 - Math.min(probability, 1));
+			for (long position = nextGap(rand, logFailure); position < area; position += 1 + nextGap(rand, logFailure)) {
+				int row = (int) (position / field.getWidth());
+				int col = (int) (position % field.getWidth());
+				if (field.getActorAt(row, col) == null) {
+					actors.add(createActor(cls, field, new Location(row, col)));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @param rand       The random number generator of the simulation.
+	 * @param logFailure The logarithm of the probability of a location not being populated.
+	 * @return The number of locations skipped before the next populated one.
 	 */
-	private static void collectProbabilities()
+	private static long nextGap(Random rand, double logFailure)
 	{
+		if (logFailure == Double.NEGATIVE_INFINITY) {
+			return 0;
+		}
+		return (long) (Math.log(1 - rand.nextDouble()) / logFailure);
+	}
+	
+	/**
+	 * Dynamically creates an instance of Actor subclass via Reflection API,
+	 * and places it on the field.
+	 *
+	 * @param cls      The class of the actor.
+	 * @param field    The field the actor is created in.
+	 * @param location Where to create the actor.
+	 * @return The actor, or null if it could not be created.
+	 */
+	private static Actor createActor(Class<?> cls, Field field, Location location)
+	{
+		try {
+			Actor actor = (Actor) cls.getConstructor(Boolean.TYPE, Field.class, Location.class).newInstance(true, field, location);
+			actor.place();
+			return actor;
+		} catch (NoSuchMethodException |
+				IllegalAccessException |
+				InstantiationException |
+				InvocationTargetException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+	
+	/**
+	 * Scale the creation probabilities in the config file so that they add up to
+	 * the given density, keeping the proportions between the classes.
+	 *
+	 * @param density The probability of a location being populated.
+	 */
+	public static void setDensity(double density)
+	{
+		setDensity(Config.getDefault(), density);
+	}
+	
+	/**
+	 * Scale the creation probabilities in a configuration so that they add up to
+	 * the given density, keeping the proportions between the classes.
+	 *
+	 * @param config  The configuration to change.
+	 * @param density The probability of a location being populated.
+	 */
+	public static void setDensity(Config config, double density)
+	{
+		HashSet<String> creationProbProperties = config.getKeysContaining("CREATION_PROBABILITY");
+		double total = 0;
+		for (String propertyLine : creationProbProperties) {
+			total += Double.parseDouble(config.getValue(propertyLine));
+		}
+		for (String propertyLine : creationProbProperties) {
+			double share = total > 0 ? Double.parseDouble(config.getValue(propertyLine)) / total : 1.0 / creationProbProperties.size();
+			config.setValue(propertyLine, Double.toString(share * density));
+		}
+	}
+	
+	/**
+	 * Return the classes a configuration populates the field with, sorted by name.
+	 *
+	 * @param config The configuration of the simulation.
+	 * @return The classes that have a creation probability.
+	 */
+	public static List<Class> getSpecies(Config config)
+	{
+		List<Class> species = new ArrayList<>(collectProbabilities(config).keySet());
+		species.sort((first, second) -> first.getName().compareTo(second.getName()));
+		return species;
+	}
+	
+	/**
+	 * Extract the creation probabilities of classes from a configuration and adds them in a hashMap.
+	 *
+	 * @param config The configuration of the simulation.
+	 * @return The creation probability of each class.
+	 */
+	private static LinkedHashMap<Class, Double> collectProbabilities(Config config)
+	{
+		LinkedHashMap<Class, Double> creationProbabilities = new LinkedHashMap<>();
 		String propertySubName = "CREATION_PROBABILITY";
-		HashSet<String> creationProbProperties = Config.getPropertiesContaining(propertySubName);
+		HashSet<String> creationProbProperties = config.getKeysContaining(propertySubName);
 		for (String propertyLine : creationProbProperties) {
-			PropertyLine property = new PropertyLine(propertyLine);
+			PropertyLine property = new PropertyLine(propertyLine, config);
 			
 			try {
 				Class<?> cls = Class.forName(property.getClassStringQualified());
@@ -72,6 +186,7 @@ public class PopulationGenerator
 				ex.printStackTrace();
 			}
 		}
+		return creationProbabilities;
 	}
 	
 	/**
@@ -79,7 +194,7 @@ public class PopulationGenerator
 	 *
 	 * @param view The GUI.
 	 */
-	private static void setClassColors(SimulatorView view)
+	public static void setClassColors(SimulatorView view)
 	{
 		String propertySubName = "CLASS_COLOR";
 		HashSet<String> colorProperties = Config.getPropertiesContaining(propertySubName);
@@ -30,11 +30,24 @@ class PropertyLine
 	 *                     *className*.*propertyName* = *value*
 	 */
 	public PropertyLine(String propertyLine)
+	{
+		this(propertyLine, Config.getDefault());
+	}
+	
+	/**
+	 * Constructor for the PropertyLine, taking the value from the given
+	 * configuration.
+	 *
+	 * @param propertyLine - string property line in the following format
+	 *                     *className*.*propertyName* = *value*
+	 * @param config       - the configuration holding the value.
+	 */
+	public PropertyLine(String propertyLine, Config config)
 	{
 		this.classString = propertyLine.split("\\.")[0];
 		this.classStringQualified = classString.substring(0, 1).toUpperCase() + classString.substring(1);
 		this.propertyName = propertyLine.split("=")[0].trim();
-		this.value = Config.getProperty(propertyName);
+		this.value = config.getValue(propertyName);
 	}
 	
 	/**
@@ -4,6 +4,8 @@ import java.util.Random;
  * Provide control over the randomization of the simulation. By using the shared, fixed-seed
  * randomizer, repeated runs will perform exactly the same (which helps with testing). Set
  * 'useShared' to false to get different random behaviour every time.
+ * <p>
+ * The shared random generator is the one of the default SimulationContext.
  *
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
@@ -12,8 +14,6 @@ public class Randomizer
 {
 	// The default seed for control of randomization.
 	private static final int SEED = Integer.parseInt(Config.getProperty("randomizer.SEED"));
-	// A shared Random object, if required.
-	private static final Random rand = new Random(SEED);
 	// Determine whether a shared random generator is to be provided.
 	private static final boolean useShared = true;
 	
@@ -32,7 +32,7 @@ public class Randomizer
 	public static Random getRandom()
 	{
 		if (useShared) {
-			return rand;
+			return SimulationContext.getDefault().getRandom();
 		} else {
 			return new Random();
 		}
@@ -46,7 +46,7 @@ public class Randomizer
 	public static void reset()
 	{
 		if (useShared) {
-			rand.setSeed(SEED);
+			getRandom().setSeed(SEED);
 		}
 	}
 }
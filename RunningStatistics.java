@@ -0,0 +1,96 @@
+/**
+ * Summarises a stream of values without storing them: their count, mean and
+ * variance (using Welford's method) and estimates of a few quantiles.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class RunningStatistics
+{
+	// The number of values seen.
+	private long count;
+	// The mean of the values seen.
+	private double mean;
+	// The sum of the squared differences from the mean.
+	private double squaredDifferences;
+	// The estimators of the quantiles.
+	private StreamingQuantile[] quantiles;
+	
+	/**
+	 * Create a summary that estimates the given quantiles.
+	 *
+	 * @param probabilities The quantiles to estimate, between 0 and 1.
+	 */
+	public RunningStatistics(double... probabilities)
+	{
+		quantiles = new StreamingQuantile[probabilities.length];
+		for (int i = 0; i < probabilities.length; i++) {
+			quantiles[i] = new StreamingQuantile(probabilities[i]);
+		}
+	}
+	
+	/**
+	 * Add a value to the summary.
+	 *
+	 * @param value The new value.
+	 */
+	public void add(double value)
+	{
+		count++;
+		double difference = value - mean;
+		mean += difference / count;
+		squaredDifferences += difference * (value - mean);
+		for (StreamingQuantile quantile : quantiles) {
+			quantile.add(value);
+		}
+	}
+	
+	/**
+	 * @return The number of values seen.
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+	
+	/**
+	 * @return The mean of the values seen.
+	 */
+	public double getMean()
+	{
+		return mean;
+	}
+	
+	/**
+	 * @return The sample variance of the values seen, or 0 for fewer than two values.
+	 */
+	public double getVariance()
+	{
+		return count < 2 ? 0 : squaredDifferences / (count - 1);
+	}
+	
+	/**
+	 * @return The sample standard deviation of the values seen.
+	 */
+	public double getStandardDeviation()
+	{
+		return Math.sqrt(getVariance());
+	}
+	
+	/**
+	 * @return The standard error of the mean.
+	 */
+	public double getStandardError()
+	{
+		return count == 0 ? 0 : getStandardDeviation() / Math.sqrt(count);
+	}
+	
+	/**
+	 * @param index The index of the quantile, in the order given to the constructor.
+	 * @return The estimate of the quantile.
+	 */
+	public double getQuantile(int index)
+	{
+		return quantiles[index].getQuantile();
+	}
+}
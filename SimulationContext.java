@@ -0,0 +1,302 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * The state a simulation shares between its field, its actors and its
+ * environment: the configuration, the random number generator, the
+ * environment and the traits of each species read from the configuration.
+ * <p>
+ * Every simulation with its own context is independent of all others, so many
+ * simulations can run in the same JVM. The static methods of Config, Randomizer
+ * and Environment use the default context.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class SimulationContext
+{
+	// The context used by simulations that are not given one.
+	private static SimulationContext defaultContext;
+	
+	// The configuration of the simulation.
+	private Config config;
+	// The random number generator of the simulation.
+	private Random rand;
+	// The environment of the simulation.
+	private Environment environment;
+	// The traits of each species, read from the configuration when first needed.
+	private HashMap<Class, SpeciesTraits> traits;
+	// The amount of steps the actor can leave after being diseased.
+	private int diseasedStepsTillDeath;
+	// The probability of an actor being created sick.
+	private double diseaseProbability;
+	// The probability of an actor getting sick from another actor.
+	private double diseaseSpreadProbability;
+	// The probability of an actor getting sick randomly.
+	private double diseaseMutationProbability;
+	// The current step of the simulation.
+	private int step;
+	// The actors by the step at which they die of age, hunger or disease.
+	private TimingWheel<Actor> expirations;
+	// Whether each species is active and whether it breeds in the current environment, by species index.
+	private boolean[] activeNow, breedingNow;
+	
+	/**
+	 * Create a context with the given configuration, whose random number
+	 * generator is seeded with randomizer.SEED from the configuration.
+	 *
+	 * @param config The configuration of the simulation.
+	 */
+	public SimulationContext(Config config)
+	{
+		this(config, Integer.parseInt(config.getValue("randomizer.SEED")));
+	}
+	
+	/**
+	 * Create a context with the given configuration and random seed.
+	 *
+	 * @param config The configuration of the simulation.
+	 * @param seed   The seed of the random number generator.
+	 */
+	public SimulationContext(Config config, long seed)
+	{
+		this(config, new Random(seed), null);
+	}
+	
+	/**
+	 * Create a context whose environment has its own random number generator.
+	 * Simulations that each hold part of one world use the same environment
+	 * seed, so that they all see the same weather.
+	 *
+	 * @param config          The configuration of the simulation.
+	 * @param seed            The seed of the random number generator.
+	 * @param environmentSeed The seed of the random number generator that picks the weather.
+	 */
+	public SimulationContext(Config config, long seed, long environmentSeed)
+	{
+		this(config, new Random(seed), new Random(environmentSeed));
+	}
+	
+	/**
+	 * @param config            The configuration of the simulation.
+	 * @param rand              The random number generator of the simulation.
+	 * @param environmentRandom The random number generator that picks the weather, or null to use rand.
+	 */
+	private SimulationContext(Config config, Random rand, Random environmentRandom)
+	{
+		this.config = config;
+		this.rand = rand;
+		environment = new Environment(config, environmentRandom == null ? rand : environmentRandom);
+		traits = new HashMap<>();
+		diseasedStepsTillDeath = Integer.parseInt(config.getValue("disease.DISEASED_STEPS_TILL_DEATH"));
+		diseaseProbability = Double.parseDouble(config.getValue("disease.DISEASE_PROBABILITY"));
+		diseaseSpreadProbability = Double.parseDouble(config.getValue("disease.DISEASED_SPREAD_PROBABILITY"));
+		diseaseMutationProbability = Double.parseDouble(config.getValue("disease.DISEASE_MUTATION_PROBABILITY"));
+		expirations = new TimingWheel<>();
+		activeNow = new boolean[0];
+		breedingNow = new boolean[0];
+	}
+	
+	/**
+	 * Return the default context, which uses the configuration loaded from
+	 * config.cfg, creating it if this has not been done yet.
+	 *
+	 * @return The default context.
+	 */
+	public static synchronized SimulationContext getDefault()
+	{
+		if (defaultContext == null) defaultContext = new SimulationContext(Config.getDefault());
+		return defaultContext;
+	}
+	
+	/**
+	 * @return The configuration of the simulation.
+	 */
+	public Config getConfig()
+	{
+		return config;
+	}
+	
+	/**
+	 * Return the random number generator of the simulation. Threads that let
+	 * actors act in parallel each have a generator of their own instead.
+	 *
+	 * @return The random number generator of the simulation.
+	 */
+	public Random getRandom()
+	{
+		Thread thread = Thread.currentThread();
+		if (thread instanceof ParallelStepEngine.Worker) {
+			return ((ParallelStepEngine.Worker) thread).getRandom();
+		}
+		return rand;
+	}
+	
+	/**
+	 * @return The environment of the simulation.
+	 */
+	public Environment getEnvironment()
+	{
+		return environment;
+	}
+	
+	/**
+	 * @return The current step of the simulation.
+	 */
+	public int getStep()
+	{
+		return step;
+	}
+	
+	/**
+	 * Move the simulation on to the given step, letting every actor whose
+	 * time has come die of age, hunger or disease.
+	 *
+	 * @param newStep The step to move on to.
+	 */
+	public void advanceTo(int newStep)
+	{
+		step = newStep;
+		updateSpeciesActivity();
+		expirations.advance(newStep, Actor::expire);
+	}
+	
+	/**
+	 * Go back to step 0 and forget every scheduled death, for when the
+	 * simulation is reset and its actors are thrown away.
+	 */
+	public void resetClock()
+	{
+		step = 0;
+		expirations.clear();
+		updateSpeciesActivity();
+	}
+	
+	/**
+	 * Work out for every species whether it is active at the current time of
+	 * day and whether it breeds in the current weather, so that actors look
+	 * it up rather than check the environment themselves. Called whenever the
+	 * environment may have changed.
+	 */
+	public synchronized void updateSpeciesActivity()
+	{
+		for (SpeciesTraits speciesTraits : traits.values()) {
+			updateSpeciesActivity(speciesTraits);
+		}
+	}
+	
+	/**
+	 * @param speciesTraits The traits of the species to work out the activity of.
+	 */
+	private void updateSpeciesActivity(SpeciesTraits speciesTraits)
+	{
+		int index = speciesTraits.getIndex();
+		activeNow[index] = speciesTraits.getActiveTimes().contains(environment.getTimeOfDay());
+		breedingNow[index] = speciesTraits.getBreedingWeather().contains(environment.getWeather());
+	}
+	
+	/**
+	 * @param speciesTraits The traits of a species.
+	 * @return true If the species is active at the current time of day.
+	 */
+	public boolean isActiveNow(SpeciesTraits speciesTraits)
+	{
+		return activeNow[speciesTraits.getIndex()];
+	}
+	
+	/**
+	 * @param speciesTraits The traits of a species.
+	 * @return true If the species breeds in the current weather.
+	 */
+	public boolean isBreedingNow(SpeciesTraits speciesTraits)
+	{
+		return breedingNow[speciesTraits.getIndex()];
+	}
+	
+	/**
+	 * Schedule an actor to be checked at the step it is due to die. Actors
+	 * acting on several threads schedule under a lock.
+	 *
+	 * @param actor The actor.
+	 * @param when  The step at which the actor is due to die.
+	 */
+	public synchronized void scheduleExpiry(Actor actor, int when)
+	{
+		expirations.schedule(actor, when);
+	}
+	
+	/**
+	 * Return the traits of a species, reading them from the configuration
+	 * the first time they are needed.
+	 *
+	 * @param species The class of the species.
+	 * @return The traits of the species.
+	 */
+	public synchronized SpeciesTraits getTraits(Class species)
+	{
+		SpeciesTraits speciesTraits = traits.get(species);
+		if (speciesTraits == null) {
+			speciesTraits = new SpeciesTraits(species, config, traits.size());
+			traits.put(species, speciesTraits);
+			activeNow = Arrays.copyOf(activeNow, traits.size());
+			breedingNow = Arrays.copyOf(breedingNow, traits.size());
+			updateSpeciesActivity(speciesTraits);
+		}
+		return speciesTraits;
+	}
+	
+	/**
+	 * Return the species a species can eat (CAN_EAT), by their index.
+	 *
+	 * @param speciesTraits The traits of the species.
+	 * @return The indexes (see SpeciesTraits.getIndex) of the species it can eat.
+	 */
+	public synchronized int[] getPreyIndexes(SpeciesTraits speciesTraits)
+	{
+		String[] canEat = speciesTraits.getCanEat();
+		int[] indexes = new int[canEat.length];
+		int count = 0;
+		for (String name : canEat) {
+			try {
+				indexes[count] = getTraits(Class.forName(name)).getIndex();
+				count++;
+			} catch (ClassNotFoundException e) {
+				e.printStackTrace();
+			}
+		}
+		return Arrays.copyOf(indexes, count);
+	}
+	
+	/**
+	 * @return The number of steps an actor lives after becoming diseased.
+	 */
+	public int getDiseasedStepsTillDeath()
+	{
+		return diseasedStepsTillDeath;
+	}
+	
+	/**
+	 * @return The probability of an actor being created diseased.
+	 */
+	public double getDiseaseProbability()
+	{
+		return diseaseProbability;
+	}
+	
+	/**
+	 * @return The probability of an actor getting diseased from an adjacent actor.
+	 */
+	public double getDiseaseSpreadProbability()
+	{
+		return diseaseSpreadProbability;
+	}
+	
+	/**
+	 * @return The probability of a newborn actor being diseased.
+	 */
+	public double getDiseaseMutationProbability()
+	{
+		return diseaseMutationProbability;
+	}
+}
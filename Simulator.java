@@ -1,5 +1,5 @@
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -17,33 +17,72 @@ public class Simulator
 	private static final int DEFAULT_WIDTH = Integer.parseInt(Config.getProperty("simulator.DEFAULT_WIDTH"));
 	// The default depth of the grid.
 	private static final int DEFAULT_DEPTH = Integer.parseInt(Config.getProperty("simulator.DEFAULT_DEPTH"));
+	// One in this many act() calls is recorded as a SpeciesActEvent when Flight Recorder is on.
+	private static final int ACT_SAMPLE_INTERVAL = Integer.parseInt(Config.getProperty("simulator.JFR_ACT_SAMPLE_INTERVAL", "100"));
 	// An instance of the Simulator class.
 	private static Simulator instance;
-	// List of actors in the field.
-	private List<Actor> actors;
+	// The configuration, random number generator and environment of the simulation.
+	private SimulationContext context;
+	// The actors of each species, indexed by SpeciesTraits.getIndex(), or null for a species without actors.
+	private List<SpeciesGroup> speciesGroups;
+	// The number of actors of a species that act before the next species takes its turn, or 0 for all of them.
+	private int actChunk;
+	// The number of steps between sorting the actor lists by location, or 0 to never sort them.
+	private int sortInterval;
 	// The current state of the field.
 	private Field field;
 	// The current step of the simulation.
 	private int step;
-	// A graphical view of the simulation.
+	// A graphical view of the simulation, or null if it runs without one.
 	private SimulatorView view;
+	// The conditions under which the simulation stops early.
+	private List<StopCondition> stopConditions;
+	// Records every step to a file, or null if the run is not recorded.
+	private FrameRecorder recorder;
+	// Exports every few steps as images, or null if the run is not exported.
+	private FrameExporter exporter;
+	// Times the phases of each step, or null if profiling is switched off.
+	private StepProfiler profiler;
+	// Lets the actors act on several threads, or null if they act on this one.
+	private ParallelStepEngine engine;
+	// The number of act() calls left until the next one is recorded as a SpeciesActEvent.
+	private int actsUntilSample = ACT_SAMPLE_INTERVAL;
 	
 	/**
 	 * Construct a simulation field with default size.
 	 */
 	private Simulator()
 	{
-		this(DEFAULT_DEPTH, DEFAULT_WIDTH);
+		this(DEFAULT_DEPTH, DEFAULT_WIDTH, true);
 	}
 	
 	/**
-	 * Create a simulation field with the given size.
+	 * Create a simulation field with the given size in the default simulation context.
+	 * A simulation without a view can run where no display is available,
+	 * for example in benchmarks.
 	 *
-	 * @param depth Depth of the field. Must be greater than zero.
-	 * @param width Width of the field. Must be greater than zero.
+	 * @param depth    Depth of the field. Must be greater than zero.
+	 * @param width    Width of the field. Must be greater than zero.
+	 * @param showView Whether to show the simulation in a SimulatorView.
 	 */
-	private Simulator(int depth, int width)
+	public Simulator(int depth, int width, boolean showView)
 	{
+		this(SimulationContext.getDefault(), depth, width, showView);
+	}
+	
+	/**
+	 * Create a simulation field with the given size in its own simulation context.
+	 * Simulations with different contexts do not share any state, so they can
+	 * run side by side in the same JVM.
+	 *
+	 * @param context  The configuration, random number generator and environment of the simulation.
+	 * @param depth    Depth of the field. Must be greater than zero.
+	 * @param width    Width of the field. Must be greater than zero.
+	 * @param showView Whether to show the simulation in a SimulatorView.
+	 */
+	public Simulator(SimulationContext context, int depth, int width, boolean showView)
+	{
+		this.context = context;
 		if (width <= 0 || depth <= 0) {
 			System.out.println("The dimensions must be greater than zero.");
 			System.out.println("Using default values.");
@@ -51,12 +90,39 @@ public class Simulator
 			width = DEFAULT_WIDTH;
 		}
 		
-		actors = new ArrayList<>();
-		field = new Field(depth, width);
+		speciesGroups = new ArrayList<>();
+		// The species take turns of simulator.ACT_CHUNK actors, or act one after another if it is 0.
+		actChunk = Integer.parseInt(context.getConfig().getValue("simulator.ACT_CHUNK", "64"));
+		// The actor lists are sorted by the Z-order of their locations every simulator.SORT_INTERVAL steps.
+		sortInterval = Integer.parseInt(context.getConfig().getValue("simulator.SORT_INTERVAL", "0"));
+		field = new Field(context, depth, width);
+		
+		// Let the actors act on simulator.THREADS threads if the config file sets more than one.
+		int threads = Integer.parseInt(context.getConfig().getValue("simulator.THREADS", "1"));
+		if (threads > 1) {
+			if (field.isConcurrent()) {
+				engine = new ParallelStepEngine(context, threads);
+			} else {
+				System.out.println("The field storage cannot be shared between threads.");
+				System.out.println("Running on one thread.");
+			}
+		}
 		
 		// Create a view of the state of each location in the field.
-		view = new SimulatorView(depth, width);
+		if (showView) {
+			view = new SimulatorView(depth, width);
+		}
+		
+		// Stop early under the conditions of simulator.STOP_CONDITIONS in the config file.
+		stopConditions = StopCondition.parse(context.getConfig().getValue("simulator.STOP_CONDITIONS"));
 		
+		startRecording(depth, width);
+		startExporting(depth, width);
+		
+		// Profile every step unless simulator.PROFILING is false in the config file.
+		if (Boolean.parseBoolean(context.getConfig().getValue("simulator.PROFILING", "true"))) {
+			profiler = new StepProfiler();
+		}
 		
 		// Setup a valid starting point.
 		reset();
@@ -103,46 +169,285 @@ public class Simulator
 	 */
 	public void runLongSimulation()
 	{
-		simulate(Integer.parseInt(Config.getProperty("simulator.LONG_SIMULATION_LENGTH")));
+		simulate(Integer.parseInt(context.getConfig().getValue("simulator.LONG_SIMULATION_LENGTH")));
 	}
 	
 	/**
 	 * Run the simulation from its current state for the given number of steps.
-	 * Stop before the given number of steps if it ceases to be viable.
+	 * Stop before the given number of steps if it ceases to be viable or one
+	 * of its stop conditions is met.
 	 *
 	 * @param numSteps The number of steps to run for.
 	 */
 	public void simulate(int numSteps)
 	{
-		for (int step = 1; step <= numSteps && view.isViable(field); step++) {
+		for (int step = 1; step <= numSteps && isViable(); step++) {
 			simulateOneStep();
-			delay(Integer.parseInt(Config.getProperty("simulator.DELAY")));
+			delay(Integer.parseInt(context.getConfig().getValue("simulator.DELAY")));
+		}
+		flushRecording();
+		flushExporting();
+	}
+	
+	/**
+	 * End the run, releasing what the simulator holds outside itself: the
+	 * recording is closed, the exporter's threads are stopped once every
+	 * frame is written, and the profiler is unregistered. The simulator is
+	 * not to be used afterwards.
+	 */
+	public void close()
+	{
+		stopRecording();
+		stopExporting();
+		if (profiler != null) {
+			profiler.close();
 		}
 	}
 	
 	/**
 	 * Run the simulation from its current state for a single step.
 	 * Iterate over the whole field updating the state of each actor.
+	 * Animals that are only active at another time of day just rest, without
+	 * going through act(). Once every actor has acted, the diseased animals
+	 * infect their neighbours in one pass.
 	 */
 	public void simulateOneStep()
 	{
+		boolean profiling = profiler != null;
+		if (profiling) {
+			profiler.startStep();
+		}
+		StepEvent stepEvent = new StepEvent();
+		stepEvent.begin();
+		boolean sampleActs = new SpeciesActEvent().isEnabled();
+		
 		step++;
-		Environment.updateEnvironment(step);
+		context.getEnvironment().update(step);
+		// Actors due to die of age, hunger or disease at this step die now.
+		context.advanceTo(step);
+		if (profiling) {
+			profiler.endPhase(StepProfiler.Phase.ENVIRONMENT);
+		}
+		
+		if (field.getVegetation() != null) {
+			field.getVegetation().update();
+		}
+		if (profiling) {
+			profiler.endPhase(StepProfiler.Phase.VEGETATION);
+		}
+		
+		// Index where the actors are, for the species that see further than the adjacent locations,
+		// and lay the scent of food for those that follow it.
+		SpatialIndex spatialIndex = field.getSpatialIndex();
+		FlowField flowField = field.getFlowField();
+		for (SpeciesGroup group : speciesGroups) {
+			if (group != null && spatialIndex != null) {
+				spatialIndex.update(group.traits, group.actors);
+			}
+			if (group != null && flowField != null) {
+				flowField.setActors(group.traits, group.actors);
+			}
+		}
+		if (flowField != null) {
+			flowField.update();
+		}
 		// Provide space for newborn actors.
 		List<Actor> newAnimals = new ArrayList<>();
-		// Let all actors act.
-		for (Iterator<Actor> it = actors.iterator(); it.hasNext(); ) {
-			Actor animal = it.next();
-			animal.act(newAnimals);
-			if (!animal.isActive()) {
-				it.remove();
+		// Let all actors act, then remove those that died.
+		actAll(newAnimals, sampleActs);
+		int deaths = 0;
+		for (SpeciesGroup group : speciesGroups) {
+			if (group != null) {
+				deaths += removeDead(group.actors);
+			}
+		}
+		if (profiling) {
+			profiler.endPhase(StepProfiler.Phase.ACT);
+		}
+		
+		field.spreadDisease();
+		if (profiling) {
+			profiler.endPhase(StepProfiler.Phase.DISEASE);
+		}
+		
+		// Add the newly born actors to the main lists, unless a species that acted after them ate them.
+		for (Actor newAnimal : newAnimals) {
+			if (newAnimal.isActive()) {
+				addActor(newAnimal);
 			}
 		}
+		field.sync();
+		if (profiling) {
+			profiler.endPhase(StepProfiler.Phase.NEWBORNS);
+		}
+		
+		if (sortInterval > 0 && step % sortInterval == 0) {
+			for (SpeciesGroup group : speciesGroups) {
+				if (group != null) {
+					SpatialSort.sort(group.actors);
+				}
+			}
+		}
+		if (profiling) {
+			profiler.endPhase(StepProfiler.Phase.SORT);
+		}
 		
-		// Add the newly born actors to the main lists.
-		actors.addAll(newAnimals);
+		if (view != null) {
+			view.showStatus(step, field);
+		}
+		if (profiling) {
+			profiler.endPhase(StepProfiler.Phase.VIEW);
+		}
+		
+		recordFrame();
+		exportFrame();
+		if (profiling) {
+			profiler.endPhase(StepProfiler.Phase.RECORDING);
+			profiler.endStep(getActorCount());
+		}
+		
+		stepEvent.end();
+		if (stepEvent.shouldCommit()) {
+			stepEvent.step = step;
+			stepEvent.actorCount = getActorCount();
+			stepEvent.births = newAnimals.size();
+			stepEvent.deaths = deaths;
+			stepEvent.commit();
+		}
+	}
+	
+	/**
+	 * Let every actor act, species by species, so that each species' loop
+	 * only calls act() on one class (see Actor.actAll). Species that are only
+	 * active at another time of day are skipped; their animals just rest.
+	 * <p>
+	 * For fairness the species take turns of actChunk actors, and the species
+	 * that goes first changes every step, so that no species always has the
+	 * first pick of food and free locations. Actors acting on several threads
+	 * act one species after another.
+	 *
+	 * @param newAnimals A list to return newly born actors.
+	 * @param sampleActs Whether some act() calls are recorded as SpeciesActEvents.
+	 */
+	private void actAll(List<Actor> newAnimals, boolean sampleActs)
+	{
+		List<SpeciesGroup> acting = new ArrayList<>();
+		int count = speciesGroups.size();
+		for (int i = 0; i < count; i++) {
+			SpeciesGroup group = speciesGroups.get((step + i) % count);
+			if (group != null && (!group.timeSensitive || context.isActiveNow(group.traits))) {
+				group.next = 0;
+				acting.add(group);
+			}
+		}
 		
-		view.showStatus(step, field);
+		if (engine != null) {
+			for (SpeciesGroup group : acting) {
+				engine.actAll(group.actors, newAnimals);
+			}
+			return;
+		}
+		int turn = actChunk > 0 ? actChunk : Integer.MAX_VALUE;
+		boolean actorsLeft = true;
+		while (actorsLeft) {
+			actorsLeft = false;
+			for (SpeciesGroup group : acting) {
+				int from = group.next;
+				int to = (int) Math.min((long) from + turn, group.actors.size());
+				if (from < to) {
+					actRange(group, from, to, newAnimals, sampleActs);
+					group.next = to;
+					actorsLeft |= to < group.actors.size();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Let part of the actors of a species act, timing them together. If
+	 * some act() calls are recorded as SpeciesActEvents, the actors act and
+	 * are timed one by one instead.
+	 *
+	 * @param group      The actors of the species.
+	 * @param from       The index of the first actor to act.
+	 * @param to         The index after the last actor to act.
+	 * @param newAnimals A list to return newly born actors.
+	 * @param sampleActs Whether some act() calls are recorded as SpeciesActEvents.
+	 */
+	private void actRange(SpeciesGroup group, int from, int to, List<Actor> newAnimals, boolean sampleActs)
+	{
+		boolean profiling = profiler != null;
+		if (sampleActs) {
+			for (int i = from; i < to; i++) {
+				actSampled(group.actors.get(i), newAnimals);
+			}
+			return;
+		}
+		long actStart = profiling ? System.nanoTime() : 0;
+		actSpecies(group.actors, from, to, newAnimals);
+		if (profiling) {
+			profiler.recordActs(group.species, System.nanoTime() - actStart, to - from);
+		}
+	}
+	
+	/**
+	 * Let part of the actors of a species act through the species' loop
+	 * (see Actor.actAll). A subclass may let them act another way, as long
+	 * as they act in the same order.
+	 *
+	 * @param sameSpecies The actors, all of one species.
+	 * @param from        The index of the first actor to act.
+	 * @param to          The index after the last actor to act.
+	 * @param newAnimals  A list to return newly born actors.
+	 */
+	protected void actSpecies(List<Actor> sameSpecies, int from, int to, List<Actor> newAnimals)
+	{
+		sameSpecies.get(from).actAll(sameSpecies, from, to, newAnimals);
+	}
+	
+	/**
+	 * Let an actor act, recording one in ACT_SAMPLE_INTERVAL calls as a
+	 * SpeciesActEvent.
+	 *
+	 * @param animal     The actor.
+	 * @param newAnimals A list to return newly born actors.
+	 */
+	private void actSampled(Actor animal, List<Actor> newAnimals)
+	{
+		boolean profiling = profiler != null;
+		SpeciesActEvent actEvent = null;
+		if (--actsUntilSample == 0) {
+			actsUntilSample = ACT_SAMPLE_INTERVAL;
+			actEvent = new SpeciesActEvent();
+			actEvent.begin();
+		}
+		long actStart = profiling ? System.nanoTime() : 0;
+		animal.act(newAnimals);
+		if (profiling) {
+			profiler.recordAct(animal.getClass(), System.nanoTime() - actStart);
+		}
+		if (actEvent != null) {
+			actEvent.end();
+			if (actEvent.shouldCommit()) {
+				actEvent.step = step;
+				actEvent.species = animal.getClass();
+				actEvent.commit();
+			}
+		}
+	}
+	
+	/**
+	 * Remove the actors of a list that died, whether by acting or, for the
+	 * animals that are resting, of age, hunger or disease or by being eaten.
+	 *
+	 * @param list The actors.
+	 * @return The number of actors that died.
+	 */
+	private int removeDead(List<Actor> list)
+	{
+		int before = list.size();
+		list.removeIf(actor -> !actor.isActive());
+		return before - list.size();
 	}
 	
 	/**
@@ -151,11 +456,236 @@ public class Simulator
 	public void reset()
 	{
 		step = 0;
-		actors.clear();
-		PopulationGenerator.populate(field, actors, view);
+		for (SpeciesGroup group : speciesGroups) {
+			if (group != null) {
+				group.actors.clear();
+			}
+		}
+		context.resetClock();
+		List<Actor> population = new ArrayList<>();
+		PopulationGenerator.populate(field, population, view);
+		for (Actor actor : population) {
+			addActor(actor);
+		}
+		field.sync();
+		for (StopCondition condition : stopConditions) {
+			condition.reset();
+		}
 		
 		// Show the starting state in the view.
-		view.showStatus(step, field);
+		if (view != null) {
+			view.showStatus(step, field);
+		}
+		recordFrame();
+		exportFrame();
+	}
+	
+	/**
+	 * Add an actor to the actors that act every step, such as one that moved
+	 * in from another partition of the world. It goes in the list of its
+	 * species.
+	 *
+	 * @param actor The actor, which must already be in the field.
+	 */
+	public void addActor(Actor actor)
+	{
+		int index = actor.getTraits().getIndex();
+		while (speciesGroups.size() <= index) {
+			speciesGroups.add(null);
+		}
+		SpeciesGroup group = speciesGroups.get(index);
+		if (group == null) {
+			group = new SpeciesGroup(actor);
+			speciesGroups.set(index, group);
+		}
+		group.actors.add(actor);
+	}
+	
+	/**
+	 * Add a condition under which the simulation stops early.
+	 *
+	 * @param condition The condition to add.
+	 */
+	public void addStopCondition(StopCondition condition)
+	{
+		stopConditions.add(condition);
+	}
+	
+	/**
+	 * Check the stop conditions against the current step.
+	 *
+	 * @return The first condition that is met, or null if none is.
+	 */
+	public StopCondition checkStopConditions()
+	{
+		for (StopCondition condition : stopConditions) {
+			if (condition.isMet(this)) {
+				return condition;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Determine whether the simulation should continue to run.
+	 *
+	 * @return true If there is at least one actor alive and no stop condition is met.
+	 */
+	private boolean isViable()
+	{
+		long start = System.nanoTime();
+		boolean viable = field.getTotalPopulation() > 0;
+		if (viable) {
+			StopCondition condition = checkStopConditions();
+			if (condition != null) {
+				System.out.println("Stopped at step " + step + ": " + condition);
+				viable = false;
+			}
+		}
+		// Checking the population is charged to the step that follows it.
+		if (profiler != null) {
+			profiler.addPhaseTime(StepProfiler.Phase.STATS, System.nanoTime() - start);
+		}
+		return viable;
+	}
+	
+	/**
+	 * Start recording every step to the file named by simulator.RECORD_FILE in
+	 * the config file. Nothing is recorded if the property is not set or empty.
+	 * The recording can be replayed with the FrameReplayer.
+	 *
+	 * @param depth The depth of the field.
+	 * @param width The width of the field.
+	 */
+	private void startRecording(int depth, int width)
+	{
+		String fileName = context.getConfig().getValue("simulator.RECORD_FILE");
+		if (fileName == null || fileName.trim().isEmpty()) {
+			return;
+		}
+		int keyframeInterval = Integer.parseInt(context.getConfig().getValue("simulator.RECORD_KEYFRAME_INTERVAL", "50"));
+		try {
+			recorder = new FrameRecorder(fileName.trim(), depth, width, keyframeInterval);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Record the current state of the field, if the run is being recorded.
+	 */
+	private void recordFrame()
+	{
+		if (recorder != null) {
+			try {
+				recorder.recordFrame(step, field);
+			} catch (IOException e) {
+				e.printStackTrace();
+				recorder = null;
+			}
+		}
+	}
+	
+	/**
+	 * Write the frames recorded so far, if the run is being recorded. Later
+	 * steps are still recorded.
+	 */
+	private void flushRecording()
+	{
+		if (recorder != null) {
+			try {
+				recorder.flush();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Finish the recording, if the run is being recorded.
+	 */
+	private void stopRecording()
+	{
+		if (recorder != null) {
+			try {
+				recorder.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			recorder = null;
+		}
+	}
+	
+	/**
+	 * Start exporting every simulator.EXPORT_INTERVAL steps as PNG images to
+	 * the directory named by simulator.EXPORT_DIR in the config file, on
+	 * simulator.EXPORT_THREADS threads. Nothing is exported if the property
+	 * is not set or empty.
+	 *
+	 * @param depth The depth of the field.
+	 * @param width The width of the field.
+	 */
+	private void startExporting(int depth, int width)
+	{
+		Config config = context.getConfig();
+		String directory = config.getValue("simulator.EXPORT_DIR");
+		if (directory == null || directory.trim().isEmpty()) {
+			return;
+		}
+		int interval = Integer.parseInt(config.getValue("simulator.EXPORT_INTERVAL", "1"));
+		int scale = Integer.parseInt(config.getValue("simulator.EXPORT_SCALE", "4"));
+		int defaultThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+		int threads = Integer.parseInt(config.getValue("simulator.EXPORT_THREADS", Integer.toString(defaultThreads)));
+		try {
+			exporter = new FrameExporter(config, directory.trim(), depth, width, interval, scale, threads, 2 * threads);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Export the current state of the field, if the run is being exported.
+	 */
+	private void exportFrame()
+	{
+		if (exporter != null) {
+			try {
+				exporter.exportFrame(step, field);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * Wait for the exported frames to be written, if the run is being
+	 * exported. Later steps are still exported.
+	 */
+	private void flushExporting()
+	{
+		if (exporter != null) {
+			try {
+				exporter.flush();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * Wait for the exported frames to be written and stop exporting, if the
+	 * run is being exported.
+	 */
+	private void stopExporting()
+	{
+		if (exporter != null) {
+			try {
+				exporter.close();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exporter = null;
+		}
 	}
 	
 	/**
@@ -172,6 +702,44 @@ public class Simulator
 		}
 	}
 	
+	/**
+	 * @return The configuration, random number generator and environment of the simulation.
+	 */
+	public SimulationContext getContext()
+	{
+		return context;
+	}
+	
+	/**
+	 * @return The field of the simulation.
+	 */
+	public Field getField()
+	{
+		return field;
+	}
+	
+	/**
+	 * @return The profiler timing each step, or null if profiling is switched off.
+	 */
+	public StepProfiler getProfiler()
+	{
+		return profiler;
+	}
+	
+	/**
+	 * @return The number of actors in the simulation.
+	 */
+	public int getActorCount()
+	{
+		int count = 0;
+		for (SpeciesGroup group : speciesGroups) {
+			if (group != null) {
+				count += group.actors.size();
+			}
+		}
+		return count;
+	}
+	
 	/**
 	 * Return the number of steps since the simulation was initiated.
 	 *
@@ -181,4 +749,34 @@ public class Simulator
 	{
 		return step;
 	}
+	
+	/**
+	 * The actors of one species.
+	 */
+	private static class SpeciesGroup
+	{
+		// The class of the species.
+		private Class species;
+		// The traits of the species.
+		private SpeciesTraits traits;
+		// Whether the species is only active at some times of day.
+		private boolean timeSensitive;
+		// The actors of the species.
+		private List<Actor> actors;
+		// The index of the next actor to act in the current step.
+		private int next;
+		
+		/**
+		 * Create an empty group for the species of an actor.
+		 *
+		 * @param actor An actor of the species.
+		 */
+		private SpeciesGroup(Actor actor)
+		{
+			species = actor.getClass();
+			traits = actor.getTraits();
+			timeSensitive = actor instanceof AnimalTimeSensitive;
+			actors = new ArrayList<>();
+		}
+	}
 }
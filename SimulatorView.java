@@ -1,7 +1,15 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -10,6 +18,8 @@ import java.util.Map;
  * representing its contents. It uses a default background color.
  * Colors for each type of species can be defined using the
  * setColor method.
+ * The mouse wheel zooms the view of the field in and out, and dragging it
+ * pans it; only the part of the field in view is drawn.
  * Weather information is displayed in the Container contents, while Current time
  * info is displayed in the infoPane.
  *
@@ -43,6 +53,12 @@ public class SimulatorView extends JFrame
 	private HashMap<String, Color> timeColors;
 	// A hashMap containing the name of the weather as a String and its corresponding color.
 	private HashMap<String, Color> weatherColors;
+	// The codes given to the species shown so far.
+	private HashMap<Class, Integer> speciesCodes;
+	// The species shown so far indexed by their code, code 0 standing for none.
+	private List<Class> species;
+	// The field packed for the view (see CellState), row by row.
+	private byte[] cells;
 	
 	/**
 	 * Create a view of the given width and height.
@@ -55,6 +71,10 @@ public class SimulatorView extends JFrame
 		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		stats = new FieldStats();
 		colors = new LinkedHashMap<>();
+		speciesCodes = new HashMap<>();
+		species = new ArrayList<>();
+		species.add(null);
+		cells = new byte[Field.getArraySize(height, width)];
 		
 		timeColors = new HashMap<>();
 		
@@ -134,96 +154,214 @@ public class SimulatorView extends JFrame
 	public void showStatus(int step, Field field)
 	{
 		Boolean DISPLAY_GENDER = Boolean.parseBoolean(Config.getProperty("simulator.DISPLAY_GENDER"));
-		if (!isVisible()) {
-			setVisible(true);
-		}
-		
-		stepLabel.setText(STEP_PREFIX + step);
-		//Retrieve current time and weather information from environment class and display in JLabel
-		timeLabel.setText(TIME_PREFIX + Environment.getCurrentTimeOfDayString());
-		weatherLabel.setText(WEATHER_PREFIX + Environment.getCurrentWeatherString());
-		//Set the colors for current time and weather
-		infoPane.setBackground(getCurrentTimeColor());
-		statusPane.setBackground(getCurrentWeatherColor());
+		Environment environment = field.getContext().getEnvironment();
+		showEnvironment(step, environment.getTimeOfDayString(), environment.getWeatherString());
 		stats.reset();
 		
-		fieldView.preparePaint();
-		
+		Vegetation vegetation = field.getVegetation();
+		int plantCode = vegetation == null ? 0 : getSpeciesCode(Plant.class);
+		int index = 0;
 		for (int row = 0; row < field.getDepth(); row++) {
 			for (int col = 0; col < field.getWidth(); col++) {
 				Actor actor = field.getActorAt(row, col);
 				if (actor != null) {
 					stats.incrementCount(actor.getClass());
-					fieldView.drawMark(col, row, getColor(actor.getClass()));
-					if (!actor.isHealthy()) {
-						fieldView.drawMark(col, row, getColor(actor.getClass()).darker());
-					}
-					if (actor instanceof Animal && DISPLAY_GENDER) {
-						if (((Animal) actor).getGender() == Animal.Gender.MALE)
-							fieldView.drawOval(col, row, Color.white);
-						else fieldView.drawOval(col, row, Color.black);
-					}
+					cells[index] = CellState.pack(getSpeciesCode(actor.getClass()), actor);
+				} else if (vegetation != null && vegetation.hasPlant(row, col)) {
+					cells[index] = (byte) plantCode;
 				} else {
-					fieldView.drawMark(col, row, EMPTY_COLOR);
+					cells[index] = CellState.EMPTY;
 				}
+				index++;
 			}
 		}
 		stats.countFinished();
 		
 		population.setText(POPULATION_PREFIX + stats.getPopulationDetails(field));
-		fieldView.repaint();
+		fieldView.show(cells, species.toArray(new Class[0]), DISPLAY_GENDER);
 	}
 	
 	/**
-	 * Determine whether the simulation should continue to run.
+	 * Return the code of the given species in the packed field, giving it
+	 * the next code the first time the species is shown.
 	 *
-	 * @return true If there is more than one actor alive.
+	 * @param cls The class of the species.
+	 * @return The code of the species.
 	 */
-	public boolean isViable(Field field)
+	private int getSpeciesCode(Class cls)
 	{
-		return stats.isViable(field);
+		Integer code = speciesCodes.get(cls);
+		if (code == null) {
+			if (species.size() > CellState.MAX_SPECIES_CODE) {
+				throw new IllegalStateException("Too many species to show: " + cls.getName());
+			}
+			code = species.size();
+			speciesCodes.put(cls, code);
+			species.add(cls);
+		}
+		return code;
+	}
+	
+	/**
+	 * Show a recorded frame of the field.
+	 *
+	 * @param step      The step of the frame.
+	 * @param timeOfDay The time of day of the frame.
+	 * @param weather   The weather of the frame.
+	 * @param cells     The packed cells of the field, row by row.
+	 * @param species   The recorded species indexed by their code.
+	 */
+	public void showFrame(int step, Environment.TimeOfDay timeOfDay, Environment.Weather weather, byte[] cells, Class[] species)
+	{
+		Boolean DISPLAY_GENDER = Boolean.parseBoolean(Config.getProperty("simulator.DISPLAY_GENDER"));
+		showEnvironment(step, timeOfDay.getDisplayName(), weather.getDisplayName());
+		stats.reset();
+		
+		for (byte cell : cells) {
+			if (cell != CellState.EMPTY) {
+				Class cls = species[CellState.getSpeciesCode(cell)];
+				if (cls != null) {
+					stats.incrementCount(cls);
+				}
+			}
+		}
+		stats.countFinished();
+		
+		population.setText(POPULATION_PREFIX + stats.getPopulationDetails(null));
+		fieldView.show(cells, species, DISPLAY_GENDER);
 	}
 	
+	/**
+	 * Add controls for a replay, such as a slider to scrub through the recording,
+	 * to the bottom of the window.
+	 *
+	 * @param controls The component holding the controls.
+	 */
+	public void setReplayControls(JComponent controls)
+	{
+		statusPane.add(controls, BorderLayout.CENTER);
+		pack();
+	}
 	
 	/**
-	 * @return a HashMap of the colors associated with a particular weather.
+	 * Show the step, time of day and weather labels.
+	 *
+	 * @param step      Which iteration step it is.
+	 * @param timeOfDay The name of the time of day.
+	 * @param weather   The name of the weather.
 	 */
-	private Color getCurrentWeatherColor()
+	private void showEnvironment(int step, String timeOfDay, String weather)
 	{
-		return weatherColors.get(Environment.getCurrentWeatherString());
+		if (!isVisible()) {
+			setVisible(true);
+		}
+		
+		stepLabel.setText(STEP_PREFIX + step);
+		//Display the time and weather information in JLabel
+		timeLabel.setText(TIME_PREFIX + timeOfDay);
+		weatherLabel.setText(WEATHER_PREFIX + weather);
+		//Set the colors for the time and weather
+		infoPane.setBackground(timeColors.get(timeOfDay));
+		statusPane.setBackground(weatherColors.get(weather));
 	}
 	
 	/**
-	 * @return a HashMap of the colors linked to current time (DAY/NIGHT).
+	 * Determine whether the simulation should continue to run.
+	 *
+	 * @return true If there is more than one actor alive.
 	 */
-	private Color getCurrentTimeColor()
+	public boolean isViable(Field field)
 	{
-		return timeColors.get(Environment.getCurrentTimeOfDayString());
+		return stats.isViable(field);
 	}
 	
+	
 	/**
 	 * Provide a graphical view of a rectangular field. This is
 	 * a nested class (a class defined inside a class) which
 	 * defines a custom component for the user interface. This
-	 * component displays the field.
+	 * component displays the part of the field in view, zoomed in
+	 * to several pixels per location or out to several locations
+	 * per pixel.
+	 * <p>
+	 * Zoomed in, every location in view is drawn as a square. Zoomed
+	 * out, every pixel is a block of locations of a FieldPyramid, drawn
+	 * in the color of the species holding most of it, faded towards the
+	 * empty color as the block empties. Either way the cost of drawing
+	 * grows with the size of the window rather than of the field.
 	 */
 	private class FieldView extends JPanel
 	{
+		// The size in pixels of a location when the field fits the window at it.
 		private final int GRID_VIEW_SCALING_FACTOR = 6;
-		Dimension size;
+		// The largest size in pixels of a location.
+		private final int MAX_CELL_SIZE = 48;
+		// The largest size the view asks for at first.
+		private final int MAX_PREFERRED_WIDTH = 1200, MAX_PREFERRED_HEIGHT = 800;
 		private int gridWidth, gridHeight;
-		private int xScale, yScale;
-		private Graphics g;
-		private Image fieldImage;
+		// The field shown and the summaries of its blocks.
+		private FieldPyramid pyramid;
+		// The color of every packed cell by its color index, and of every species by its code.
+		private int[] cellColors;
+		// Whether the genders of the animals are shown.
+		private boolean displayGender;
+		// The size in pixels of a location, when zoomed in.
+		private int cellSize;
+		// The level of the pyramid shown, 0 when zoomed in.
+		private int level;
+		// The location of the field at the top left corner of the view.
+		private int originRow, originCol;
+		// Where a drag started, and the origin when it did.
+		private Point dragStart;
+		private int dragRow, dragCol;
+		// The image the view is drawn into, and its pixels.
+		private BufferedImage fieldImage;
+		private int[] pixels;
 		
 		/**
-		 * Create a new FieldView component.
+		 * Create a new FieldView component, zoomed so that the whole field
+		 * fits in the size it asks for.
 		 */
 		public FieldView(int height, int width)
 		{
 			gridHeight = height;
 			gridWidth = width;
-			size = new Dimension(0, 0);
+			pyramid = new FieldPyramid(height, width);
+			cellColors = new int[CellState.COLOR_COUNT];
+			Arrays.fill(cellColors, EMPTY_COLOR.getRGB());
+			cellSize = Math.min(GRID_VIEW_SCALING_FACTOR, Math.min(MAX_PREFERRED_WIDTH / width, MAX_PREFERRED_HEIGHT / height));
+			if (cellSize < 1) {
+				cellSize = 1;
+				while (level < pyramid.getLevels() - 1
+						&& (pyramid.getWidth(level) > MAX_PREFERRED_WIDTH || pyramid.getDepth(level) > MAX_PREFERRED_HEIGHT)) {
+					level++;
+				}
+			}
+			
+			MouseAdapter controls = new MouseAdapter()
+			{
+				public void mousePressed(MouseEvent e)
+				{
+					dragStart = e.getPoint();
+					dragRow = originRow;
+					dragCol = originCol;
+				}
+				
+				public void mouseDragged(MouseEvent e)
+				{
+					originRow = dragRow - toLocations(e.getY() - dragStart.y);
+					originCol = dragCol - toLocations(e.getX() - dragStart.x);
+					repaint();
+				}
+				
+				public void mouseWheelMoved(MouseWheelEvent e)
+				{
+					zoom(-e.getWheelRotation(), e.getPoint());
+				}
+			};
+			addMouseListener(controls);
+			addMouseMotionListener(controls);
+			addMouseWheelListener(controls);
 		}
 		
 		/**
@@ -231,66 +369,194 @@ public class SimulatorView extends JFrame
 		 */
 		public Dimension getPreferredSize()
 		{
-			return new Dimension(gridWidth * GRID_VIEW_SCALING_FACTOR,
-					gridHeight * GRID_VIEW_SCALING_FACTOR);
+			if (level > 0) {
+				return new Dimension(pyramid.getWidth(level), pyramid.getDepth(level));
+			}
+			return new Dimension(gridWidth * cellSize, gridHeight * cellSize);
 		}
 		
 		/**
-		 * Prepare for a new round of painting. Since the component
-		 * may be resized, compute the scaling factor again.
+		 * Show a new state of the field.
+		 *
+		 * @param cells         The packed field, row by row.
+		 * @param species       The species indexed by their code.
+		 * @param displayGender Whether the genders of the animals are shown.
 		 */
-		public void preparePaint()
+		public void show(byte[] cells, Class[] species, boolean displayGender)
 		{
-			if (!size.equals(getSize())) {  // if the size has changed...
-				size = getSize();
-				fieldImage = fieldView.createImage(size.width, size.height);
-				g = fieldImage.getGraphics();
-				
-				xScale = size.width / gridWidth;
-				if (xScale < 1) {
-					xScale = GRID_VIEW_SCALING_FACTOR;
+			int[] colors = new int[CellState.COLOR_COUNT];
+			Arrays.fill(colors, EMPTY_COLOR.getRGB());
+			for (int code = 1; code < species.length; code++) {
+				Color color = getColor(species[code]);
+				colors[code] = color.getRGB();
+				colors[CellState.getDiseasedColorIndex(code)] = color.darker().getRGB();
+			}
+			synchronized (pyramid) {
+				pyramid.update(cells, species.length);
+				cellColors = colors;
+				this.displayGender = displayGender;
+			}
+			repaint();
+		}
+		
+		/**
+		 * Zoom in or out, keeping the location under a point of the view
+		 * where it is.
+		 *
+		 * @param steps The number of steps to zoom in, or out if negative.
+		 * @param point The point of the view to zoom around.
+		 */
+		private void zoom(int steps, Point point)
+		{
+			int row = originRow + toLocations(point.y);
+			int col = originCol + toLocations(point.x);
+			for (; steps > 0; steps--) {
+				if (level > 0) {
+					level--;
+				} else {
+					cellSize = Math.min(cellSize * 2, MAX_CELL_SIZE);
 				}
-				yScale = size.height / gridHeight;
-				if (yScale < 1) {
-					yScale = GRID_VIEW_SCALING_FACTOR;
+			}
+			for (; steps < 0; steps++) {
+				if (cellSize > 1) {
+					cellSize /= 2;
+				} else {
+					level = Math.min(level + 1, pyramid.getLevels() - 1);
 				}
 			}
+			originRow = row - toLocations(point.y);
+			originCol = col - toLocations(point.x);
+			repaint();
 		}
 		
 		/**
-		 * Paint on grid location on this field a rectangular in a given color.
+		 * @param pixels A distance in pixels.
+		 * @return The number of locations it spans at the current zoom.
 		 */
-		public void drawMark(int x, int y, Color color)
+		private int toLocations(int pixels)
 		{
-			g.setColor(color);
-			g.fillRect(x * xScale, y * yScale, xScale - 1, yScale - 1);
+			return level > 0 ? pixels << level : Math.floorDiv(pixels, cellSize);
 		}
 		
 		/**
-		 * Paint on grid location on this field an oval in a given color.
+		 * Keep as much of the field in view as fits, with the top left
+		 * corner of the field at the top left of the view if it all fits.
 		 */
-		public void drawOval(int x, int y, Color color)
+		private void clampOrigin()
 		{
-			g.setColor(color);
-			g.fillOval(x * xScale, y * yScale, xScale - 3, yScale - 3);
+			int maxRow = gridHeight - toLocations(getHeight());
+			int maxCol = gridWidth - toLocations(getWidth());
+			originRow = Math.max(0, Math.min(originRow, maxRow));
+			originCol = Math.max(0, Math.min(originCol, maxCol));
 		}
 		
-		
 		/**
-		 * The field view component needs to be redisplayed. Copy the
-		 * internal image to screen.
+		 * The field view component needs to be redisplayed. Draw the
+		 * part of the field in view and copy it to screen.
 		 */
 		public void paintComponent(Graphics g)
 		{
-			if (fieldImage != null) {
-				Dimension currentSize = getSize();
-				if (size.equals(currentSize)) {
-					g.drawImage(fieldImage, 0, 0, null);
+			int width = getWidth();
+			int height = getHeight();
+			if (width <= 0 || height <= 0) {
+				return;
+			}
+			if (fieldImage == null || fieldImage.getWidth() != width || fieldImage.getHeight() != height) {
+				fieldImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+				pixels = ((DataBufferInt) fieldImage.getRaster().getDataBuffer()).getData();
+			}
+			clampOrigin();
+			Arrays.fill(pixels, getBackground().getRGB());
+			synchronized (pyramid) {
+				if (level > 0) {
+					drawBlocks(width, height);
 				} else {
-					// Rescale the previous image.
-					g.drawImage(fieldImage, 0, 0, currentSize.width, currentSize.height, null);
+					drawCells(width, height);
+				}
+			}
+			g.drawImage(fieldImage, 0, 0, null);
+		}
+		
+		/**
+		 * Draw every location in view as a square of cellSize pixels, with a
+		 * line of the background color between them if they are big enough.
+		 *
+		 * @param width  The width of the view.
+		 * @param height The height of the view.
+		 */
+		private void drawCells(int width, int height)
+		{
+			int gap = cellSize >= 3 ? 1 : 0;
+			int rows = Math.min(gridHeight - originRow, (height + cellSize - 1) / cellSize);
+			int cols = Math.min(gridWidth - originCol, (width + cellSize - 1) / cellSize);
+			int lineWidth = Math.min(width, cols * cellSize);
+			for (int row = 0; row < rows; row++) {
+				int lineStart = row * cellSize * width;
+				for (int col = 0; col < cols; col++) {
+					int rgb = cellColors[CellState.getColorIndex(pyramid.getCell(originRow + row, originCol + col))];
+					int x = col * cellSize;
+					Arrays.fill(pixels, lineStart + x, lineStart + Math.min(x + cellSize - gap, lineWidth), rgb);
 				}
+				// The other lines of pixels of the row are copies of the first.
+				int lines = Math.min(cellSize - gap, height - row * cellSize);
+				for (int line = 1; line < lines; line++) {
+					System.arraycopy(pixels, lineStart, pixels, lineStart + line * width, lineWidth);
+				}
+			}
+			
+			if (displayGender && cellSize > 3) {
+				Graphics g = fieldImage.getGraphics();
+				for (int row = 0; row < rows; row++) {
+					for (int col = 0; col < cols; col++) {
+						Animal.Gender gender = CellState.getGender(pyramid.getCell(originRow + row, originCol + col));
+						if (gender != null) {
+							g.setColor(gender == Animal.Gender.MALE ? Color.white : Color.black);
+							g.fillOval(col * cellSize, row * cellSize, cellSize - 3, cellSize - 3);
+						}
+					}
+				}
+				g.dispose();
+			}
+		}
+		
+		/**
+		 * Draw every block of the shown level in view as one pixel, in the
+		 * color of the species holding most of it faded towards the empty
+		 * color by the share of the block that is empty.
+		 *
+		 * @param width  The width of the view.
+		 * @param height The height of the view.
+		 */
+		private void drawBlocks(int width, int height)
+		{
+			int emptyRgb = EMPTY_COLOR.getRGB();
+			int top = originRow >> level;
+			int left = originCol >> level;
+			int rows = Math.min(pyramid.getDepth(level) - top, height);
+			int cols = Math.min(pyramid.getWidth(level) - left, width);
+			for (int row = 0; row < rows; row++) {
+				for (int col = 0; col < cols; col++) {
+					int summary = pyramid.getSummary(level, top + row, left + col);
+					pixels[row * width + col] = blend(emptyRgb, cellColors[summary & 0xFF], summary >> 8);
+				}
+			}
+		}
+		
+		/**
+		 * @param from  A color.
+		 * @param to    Another color.
+		 * @param share How far to go from the first color to the second, from 0 to FieldPyramid.FULL.
+		 * @return The color that far between the two.
+		 */
+		private int blend(int from, int to, int share)
+		{
+			int rgb = 0;
+			for (int shift = 0; shift < 24; shift += 8) {
+				int start = from >> shift & 0xFF;
+				int end = to >> shift & 0xFF;
+				rgb |= start + (end - start) * share / FieldPyramid.FULL << shift;
 			}
+			return rgb;
 		}
 	}
 }
@@ -0,0 +1,221 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An index of where the actors of every species are, so that an animal can
+ * look for prey and mates further away than the adjacent locations without
+ * looking at every location within its sight.
+ * <p>
+ * The field is split into square buckets of a power of two locations, at
+ * least as wide as the furthest any species can see, so the locations an
+ * animal can see overlap at most three buckets each way. The actors of every
+ * species are sorted by bucket with a counting sort at the start of every
+ * step, so a query only looks at the actors of the species it wants in the
+ * buckets it overlaps. Buckets further from the animal than the nearest
+ * actor found so far are skipped.
+ * <p>
+ * The index is not updated while the actors act, so it finds the actors by
+ * where they were at the start of the step. It checks that an actor is
+ * still alive and within sight where it is now before returning it.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class SpatialIndex
+{
+	// The smallest depth and width of a bucket.
+	private static final int MIN_BUCKET_SIZE = 4;
+	
+	// The simulation the index belongs to.
+	private SimulationContext context;
+	// The depth and width of the field.
+	private int depth, width;
+	// The number of bits of a coordinate dropped to find its bucket.
+	private int bucketBits;
+	// The number of rows and columns of buckets.
+	private int bucketRows, bucketCols;
+	// For each species, by SpeciesTraits.getIndex(), where the actors of each bucket start, and where the last ends.
+	private int[][] bucketStarts;
+	// For each species, by SpeciesTraits.getIndex(), its actors bucket by bucket.
+	private Actor[][] actors;
+	// For each species, by SpeciesTraits.getIndex(), the indexes of the species it can eat.
+	private int[][] prey;
+	// The next position of each bucket while the actors of a species are sorted.
+	private int[] cursors;
+	
+	/**
+	 * Create an empty index for a field.
+	 *
+	 * @param context   The simulation the index belongs to.
+	 * @param depth     The depth of the field.
+	 * @param width     The width of the field.
+	 * @param maxRadius The furthest any species can see.
+	 */
+	public SpatialIndex(SimulationContext context, int depth, int width, int maxRadius)
+	{
+		this.context = context;
+		this.depth = depth;
+		this.width = width;
+		bucketBits = 32 - Integer.numberOfLeadingZeros(Math.max(maxRadius, MIN_BUCKET_SIZE) - 1);
+		bucketRows = ((depth - 1) >> bucketBits) + 1;
+		bucketCols = ((width - 1) >> bucketBits) + 1;
+		bucketStarts = new int[0][];
+		actors = new Actor[0][];
+		prey = new int[0][];
+		cursors = new int[bucketRows * bucketCols];
+	}
+	
+	/**
+	 * Sort the live actors of a species into the buckets where they are now.
+	 * Called for every species before the actors act.
+	 *
+	 * @param traits  The traits of the species.
+	 * @param species The actors of the species.
+	 */
+	public void update(SpeciesTraits traits, List<Actor> species)
+	{
+		int index = traits.getIndex();
+		if (index >= actors.length) {
+			bucketStarts = Arrays.copyOf(bucketStarts, index + 1);
+			actors = Arrays.copyOf(actors, index + 1);
+			prey = Arrays.copyOf(prey, index + 1);
+		}
+		if (bucketStarts[index] == null) {
+			bucketStarts[index] = new int[cursors.length + 1];
+			prey[index] = context.getPreyIndexes(traits);
+		}
+		int[] starts = bucketStarts[index];
+		Arrays.fill(starts, 0);
+		int size = species.size();
+		for (int i = 0; i < size; i++) {
+			Actor actor = species.get(i);
+			Location location = actor.getLocation();
+			if (location != null && actor.isActive()) {
+				starts[bucket(location.getRow(), location.getCol()) + 1]++;
+			}
+		}
+		for (int bucket = 0; bucket < cursors.length; bucket++) {
+			starts[bucket + 1] += starts[bucket];
+		}
+		
+		Actor[] sorted = actors[index];
+		if (sorted == null || sorted.length < starts[cursors.length]) {
+			sorted = new Actor[Math.max(starts[cursors.length], 16) * 3 / 2];
+			actors[index] = sorted;
+		}
+		System.arraycopy(starts, 0, cursors, 0, cursors.length);
+		for (int i = 0; i < size; i++) {
+			Actor actor = species.get(i);
+			Location location = actor.getLocation();
+			if (location != null && actor.isActive()) {
+				sorted[cursors[bucket(location.getRow(), location.getCol())]++] = actor;
+			}
+		}
+		// Forget the actors left over from earlier steps.
+		Arrays.fill(sorted, starts[cursors.length], sorted.length, null);
+	}
+	
+	/**
+	 * Find the nearest live actor that an animal can eat within its sight.
+	 * Of several at the same distance, the first found is returned.
+	 *
+	 * @param hunter The animal looking for prey.
+	 * @param radius The furthest the animal can see, in rows or columns.
+	 * @return The location of the nearest prey, or null if there is none within sight.
+	 */
+	public Location findNearestPrey(Animal hunter, int radius)
+	{
+		Location from = hunter.getLocation();
+		int row = from.getRow();
+		int col = from.getCol();
+		int[] species = prey[hunter.getTraits().getIndex()];
+		Location nearest = null;
+		int nearestDistance = radius + 1;
+		for (int bucketRow = Math.max(row - radius, 0) >> bucketBits; bucketRow <= Math.min(row + radius, depth - 1) >> bucketBits; bucketRow++) {
+			for (int bucketCol = Math.max(col - radius, 0) >> bucketBits; bucketCol <= Math.min(col + radius, width - 1) >> bucketBits; bucketCol++) {
+				if (distanceToBucket(row, col, bucketRow, bucketCol) >= nearestDistance) {
+					continue;
+				}
+				int bucket = bucketRow * bucketCols + bucketCol;
+				for (int index : species) {
+					if (index >= actors.length || actors[index] == null) {
+						continue;
+					}
+					Actor[] candidates = actors[index];
+					for (int i = bucketStarts[index][bucket]; i < bucketStarts[index][bucket + 1]; i++) {
+						Location where = candidates[i].getLocation();
+						if (where != null && candidates[i].isActive()) {
+							int distance = Math.max(Math.abs(where.getRow() - row), Math.abs(where.getCol() - col));
+							if (distance < nearestDistance) {
+								nearest = where;
+								nearestDistance = distance;
+							}
+						}
+					}
+				}
+			}
+		}
+		return nearest;
+	}
+	
+	/**
+	 * Find whether there is a live animal of the same species and the
+	 * opposite gender within an animal's sight.
+	 *
+	 * @param animal The animal looking for a mate.
+	 * @param radius The furthest the animal can see, in rows or columns.
+	 * @return true If there is a mate within sight.
+	 */
+	public boolean hasMateWithin(Animal animal, int radius)
+	{
+		int index = animal.getTraits().getIndex();
+		if (index >= actors.length || actors[index] == null) {
+			return false;
+		}
+		Location from = animal.getLocation();
+		int row = from.getRow();
+		int col = from.getCol();
+		Actor[] candidates = actors[index];
+		int[] starts = bucketStarts[index];
+		for (int bucketRow = Math.max(row - radius, 0) >> bucketBits; bucketRow <= Math.min(row + radius, depth - 1) >> bucketBits; bucketRow++) {
+			for (int bucketCol = Math.max(col - radius, 0) >> bucketBits; bucketCol <= Math.min(col + radius, width - 1) >> bucketBits; bucketCol++) {
+				int bucket = bucketRow * bucketCols + bucketCol;
+				for (int i = starts[bucket]; i < starts[bucket + 1]; i++) {
+					Animal mate = (Animal) candidates[i];
+					Location where = mate.getLocation();
+					if (where != null && mate.isActive() && mate.getGender() != animal.getGender()
+							&& Math.abs(where.getRow() - row) <= radius && Math.abs(where.getCol() - col) <= radius) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @param row The row of a location.
+	 * @param col The column of a location.
+	 * @return The bucket the location is in.
+	 */
+	private int bucket(int row, int col)
+	{
+		return (row >> bucketBits) * bucketCols + (col >> bucketBits);
+	}
+	
+	/**
+	 * @param row       The row of a location.
+	 * @param col       The column of a location.
+	 * @param bucketRow The row of a bucket.
+	 * @param bucketCol The column of a bucket.
+	 * @return The least number of rows or columns between the location and any location of the bucket.
+	 */
+	private int distanceToBucket(int row, int col, int bucketRow, int bucketCol)
+	{
+		int top = bucketRow << bucketBits;
+		int left = bucketCol << bucketBits;
+		int rows = Math.max(Math.max(top - row, row - (top + (1 << bucketBits) - 1)), 0);
+		int cols = Math.max(Math.max(left - col, col - (left + (1 << bucketBits) - 1)), 0);
+		return Math.max(rows, cols);
+	}
+}
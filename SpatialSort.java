@@ -0,0 +1,108 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A class containing only static methods that sort actors by the Z-order
+ * (Morton order) of their locations.
+ * <p>
+ * The Z-order key of a location interleaves the bits of its row and column,
+ * so locations that are close in the field mostly have close keys. Actors
+ * sorted by their keys act one part of the field after another, and the
+ * cells and neighbours one of them touches are likely to still be in the
+ * cache when the next one acts. Newborns are appended to the end of the
+ * actor lists, so the order wears off and the lists are sorted again every
+ * few steps.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class SpatialSort
+{
+	// The number of bits sorted by one pass of the radix sort.
+	private static final int DIGIT_BITS = 8;
+	// The mask of one digit of a key.
+	private static final int DIGIT_MASK = (1 << DIGIT_BITS) - 1;
+	
+	/**
+	 * Return the Z-order key of a location.
+	 *
+	 * @param row The row of the location.
+	 * @param col The column of the location.
+	 * @return The bits of the row and column interleaved, those of the row in the odd positions.
+	 */
+	public static long mortonKey(int row, int col)
+	{
+		return spreadBits(row) << 1 | spreadBits(col);
+	}
+	
+	/**
+	 * @param value A non-negative integer.
+	 * @return The integer with a zero bit inserted above each of its bits.
+	 */
+	private static long spreadBits(int value)
+	{
+		long bits = value & 0xFFFFFFFFL;
+		bits = (bits | bits << 16) & 0x0000FFFF0000FFFFL;
+		bits = (bits | bits << 8) & 0x00FF00FF00FF00FFL;
+		bits = (bits | bits << 4) & 0x0F0F0F0F0F0F0F0FL;
+		bits = (bits | bits << 2) & 0x3333333333333333L;
+		bits = (bits | bits << 1) & 0x5555555555555555L;
+		return bits;
+	}
+	
+	/**
+	 * Sort a list of live actors by the Z-order keys of their locations,
+	 * with a least significant digit radix sort. Actors with the same key
+	 * keep their order. Only as many digits are sorted as the largest key
+	 * has, so a small field takes fewer passes.
+	 *
+	 * @param actors The actors, all of which must have a location.
+	 */
+	public static void sort(List<Actor> actors)
+	{
+		int size = actors.size();
+		if (size < 2) {
+			return;
+		}
+		Actor[] sorted = actors.toArray(new Actor[size]);
+		long[] keys = new long[size];
+		long maxKey = 0;
+		for (int i = 0; i < size; i++) {
+			Location location = sorted[i].getLocation();
+			keys[i] = mortonKey(location.getRow(), location.getCol());
+			maxKey |= keys[i];
+		}
+		
+		Actor[] buffer = new Actor[size];
+		long[] keyBuffer = new long[size];
+		int[] starts = new int[DIGIT_MASK + 1];
+		for (int shift = 0; shift < Long.SIZE && (maxKey >>> shift) != 0; shift += DIGIT_BITS) {
+			// Count the keys with each digit, then turn the counts into where each digit starts.
+			Arrays.fill(starts, 0);
+			for (int i = 0; i < size; i++) {
+				starts[(int) (keys[i] >>> shift) & DIGIT_MASK]++;
+			}
+			int start = 0;
+			for (int digit = 0; digit <= DIGIT_MASK; digit++) {
+				int count = starts[digit];
+				starts[digit] = start;
+				start += count;
+			}
+			for (int i = 0; i < size; i++) {
+				int position = starts[(int) (keys[i] >>> shift) & DIGIT_MASK]++;
+				buffer[position] = sorted[i];
+				keyBuffer[position] = keys[i];
+			}
+			Actor[] swapActors = sorted;
+			sorted = buffer;
+			buffer = swapActors;
+			long[] swapKeys = keys;
+			keys = keyBuffer;
+			keyBuffer = swapKeys;
+		}
+		
+		for (int i = 0; i < size; i++) {
+			actors.set(i, sorted[i]);
+		}
+	}
+}
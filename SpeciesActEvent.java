@@ -0,0 +1,28 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event covering a single act() call. Only one in every
+ * simulator.JFR_ACT_SAMPLE_INTERVAL calls is recorded, so that a recording
+ * shows how long each species takes to act without recording every actor.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+@Name("dinosaur.SpeciesAct")
+@Label("Species Act")
+@Category("Dinosaur Simulation")
+@Description("A sampled act() call of an actor")
+@StackTrace(false)
+public class SpeciesActEvent extends jdk.jfr.Event
+{
+	// The number of the step.
+	@Label("Step")
+	int step;
+	// The class of the actor that acted.
+	@Label("Species")
+	Class<?> species;
+}
@@ -0,0 +1,245 @@
+import java.util.Arrays;
+import java.util.EnumSet;
+
+/**
+ * The traits of a species as set in the configuration, such as its maximum age,
+ * what it can eat and when it is active. Properties that are not set for the
+ * species are zero, false or empty.
+ * <p>
+ * The traits are read once per simulation, so that actors do not have to
+ * look them up in the configuration while they act.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class SpeciesTraits
+{
+	// The number of the species within its simulation, counting from zero.
+	private int index;
+	// The age at which the species can start to breed.
+	private int reproductionAge;
+	// The age at which the species stops breeding.
+	private int maxReproductionAge;
+	// The age to which the species can live.
+	private int maxAge;
+	// The likelihood of the species breeding.
+	private double reproductionProbability;
+	// The maximum number of births the species can have at a single step.
+	private int maxOffspring;
+	// The amount of steps an animal can go after eating the species.
+	private int calories;
+	// The level of food the species needs to reach in order to stop eating.
+	private int maxFoodValue;
+	// The type of reproduction the species has.
+	private boolean genderedReproduction;
+	// A list of the type of food the species can eat.
+	private String[] canEat;
+	// Whether the species can eat plants.
+	private boolean plantEater;
+	// Whether the species needs to eat food in order to survive.
+	private boolean disabledHunger;
+	// The times of day during which the species is active.
+	private EnumSet<Environment.TimeOfDay> activeTimes;
+	// The weather during which the species breeds.
+	private EnumSet<Environment.Weather> breedingWeather;
+	// The maximum water level a plant of the species can reach.
+	private int maxWaterLevel;
+	// The distance at which the species sees prey and mates, 1 for the adjacent locations only.
+	private int sightRadius;
+	// The number of steps away from which the species smells food, 0 if it does not follow scent.
+	private int scentRange;
+	
+	/**
+	 * Read the traits of a species from a configuration.
+	 *
+	 * @param species The class of the species.
+	 * @param config  The configuration to read the traits from.
+	 * @param index   The number of the species within its simulation.
+	 */
+	public SpeciesTraits(Class species, Config config, int index)
+	{
+		this.index = index;
+		String propertyPrefix = species.getName().toLowerCase() + ".";
+		reproductionAge = Integer.parseInt(config.getValue(propertyPrefix + "REPRODUCTION_AGE", "0"));
+		maxReproductionAge = Integer.parseInt(config.getValue(propertyPrefix + "MAX_REPRODUCTION_AGE", "0"));
+		maxAge = Integer.parseInt(config.getValue(propertyPrefix + "MAX_AGE", "0"));
+		reproductionProbability = Double.parseDouble(config.getValue(propertyPrefix + "REPRODUCTION_PROBABILITY", "0"));
+		maxOffspring = Integer.parseInt(config.getValue(propertyPrefix + "MAX_OFFSPRING", "0"));
+		calories = Integer.parseInt(config.getValue(propertyPrefix + "CALORIES", "0"));
+		maxFoodValue = Integer.parseInt(config.getValue(propertyPrefix + "MAX_FOOD_VALUE", "0"));
+		genderedReproduction = Boolean.parseBoolean(config.getValue(propertyPrefix + "GENDERED_REPRODUCTION"));
+		canEat = getList(config, propertyPrefix + "CAN_EAT");
+		plantEater = Arrays.asList(canEat).contains(Plant.class.getName());
+		disabledHunger = Boolean.parseBoolean(config.getValue(propertyPrefix + "DISABLE_HUNGER"));
+		activeTimes = getEnumSet(Environment.TimeOfDay.class, getList(config, propertyPrefix + "ACTIVE_TIME"));
+		breedingWeather = getEnumSet(Environment.Weather.class, getList(config, propertyPrefix + "ACTIVE_WEATHER"));
+		if (breedingWeather.isEmpty()) {
+			breedingWeather = EnumSet.allOf(Environment.Weather.class);
+		}
+		maxWaterLevel = Integer.parseInt(config.getValue(propertyPrefix + "MAX_WATER_LEVEL", "0"));
+		sightRadius = Math.max(Integer.parseInt(config.getValue(propertyPrefix + "SIGHT_RADIUS", "1")), 1);
+		scentRange = Integer.parseInt(config.getValue(propertyPrefix + "SCENT_RANGE", "0"));
+		scentRange = Math.min(Math.max(scentRange, 0), FlowField.MAX_RANGE);
+	}
+	
+	/**
+	 * @param config The configuration to read the list from.
+	 * @param key    The name of the property.
+	 * @return The comma separated values of the property, or an empty list if it is not set.
+	 */
+	private static String[] getList(Config config, String key)
+	{
+		String value = config.getValue(key);
+		return value == null ? new String[0] : value.split(", ");
+	}
+	
+	/**
+	 * @param type   The enum the values belong to.
+	 * @param values The names of the values, in any case, such as "Rainy".
+	 * @return The set of the named values.
+	 */
+	private static <E extends Enum<E>> EnumSet<E> getEnumSet(Class<E> type, String[] values)
+	{
+		EnumSet<E> set = EnumSet.noneOf(type);
+		for (String value : values) {
+			set.add(Enum.valueOf(type, value.trim().toUpperCase()));
+		}
+		return set;
+	}
+	
+	/**
+	 * @return The number of the species within its simulation, counting from zero.
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+	
+	/**
+	 * @return The breeding age of the species.
+	 */
+	public int getReproductionAge()
+	{
+		return reproductionAge;
+	}
+	
+	/**
+	 * @return The maximum breeding age of the species.
+	 */
+	public int getMaxReproductionAge()
+	{
+		return maxReproductionAge;
+	}
+	
+	/**
+	 * @return The max age of the species.
+	 */
+	public int getMaxAge()
+	{
+		return maxAge;
+	}
+	
+	/**
+	 * @return The breeding probability of the species.
+	 */
+	public double getReproductionProbability()
+	{
+		return reproductionProbability;
+	}
+	
+	/**
+	 * @return The maximum size of the species's litter.
+	 */
+	public int getMaxOffspring()
+	{
+		return maxOffspring;
+	}
+	
+	/**
+	 * @return The amount of steps an animal can go after eating the species.
+	 */
+	public int getCalories()
+	{
+		return calories;
+	}
+	
+	/**
+	 * @return The maximum food value of the species.
+	 */
+	public int getMaxFoodValue()
+	{
+		return maxFoodValue;
+	}
+	
+	/**
+	 * @return true If the species reproduces sexually.
+	 */
+	public boolean isGenderedReproduction()
+	{
+		return genderedReproduction;
+	}
+	
+	/**
+	 * @return A list of what the species can eat.
+	 */
+	public String[] getCanEat()
+	{
+		return canEat;
+	}
+	
+	/**
+	 * @return true If the species can eat plants.
+	 */
+	public boolean isPlantEater()
+	{
+		return plantEater;
+	}
+	
+	/**
+	 * @return true If the species does not need to eat in order to survive.
+	 */
+	public boolean getDisabledHunger()
+	{
+		return disabledHunger;
+	}
+	
+	/**
+	 * @return The times of day during which the species is active, empty if it is not set.
+	 */
+	public EnumSet<Environment.TimeOfDay> getActiveTimes()
+	{
+		return activeTimes;
+	}
+	
+	/**
+	 * @return The weather during which the species breeds, every weather if it is not set.
+	 */
+	public EnumSet<Environment.Weather> getBreedingWeather()
+	{
+		return breedingWeather;
+	}
+	
+	/**
+	 * @return The maximum water level a plant of the species can reach.
+	 */
+	public int getMaxWaterLevel()
+	{
+		return maxWaterLevel;
+	}
+	
+	/**
+	 * @return The distance at which the species sees prey and mates, 1 if it only sees the adjacent locations.
+	 */
+	public int getSightRadius()
+	{
+		return sightRadius;
+	}
+	
+	/**
+	 * @return The number of steps away from which the species smells food, 0 if it does not follow scent.
+	 */
+	public int getScentRange()
+	{
+		return scentRange;
+	}
+}
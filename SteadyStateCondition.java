@@ -0,0 +1,110 @@
+import java.util.List;
+
+/**
+ * Stops a simulation once its populations have settled down: over the last
+ * steps of a window, the standard deviation of the population of every
+ * species has been at most a given fraction of its mean.
+ * <p>
+ * The populations are kept in a ring buffer with running sums, so each step
+ * costs the same however long the window is.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class SteadyStateCondition implements StopCondition
+{
+	// The number of steps looked at.
+	private int window;
+	// The largest standard deviation allowed, as a fraction of the mean.
+	private double tolerance;
+	// The species watched, in the same order as the columns of history.
+	private List<Class> species;
+	// The population of each species at each step of the window.
+	private int[][] history;
+	// The sum of the populations of each species over the window.
+	private long[] sums;
+	// The sum of the squared populations of each species over the window.
+	private long[] sumsOfSquares;
+	// The number of steps seen since the last reset.
+	private int samples;
+	// The last step seen, so that a step checked twice is only counted once.
+	private int lastStep;
+	
+	/**
+	 * Create a condition that is met when the populations stop changing much.
+	 *
+	 * @param window    The number of steps looked at. Must be greater than one.
+	 * @param tolerance The largest standard deviation allowed, as a fraction of the mean.
+	 */
+	public SteadyStateCondition(int window, double tolerance)
+	{
+		if (window < 2) {
+			throw new IllegalArgumentException("The window of a steady state must be at least 2 steps");
+		}
+		this.window = window;
+		this.tolerance = tolerance;
+		reset();
+	}
+	
+	/**
+	 * Add the populations of the current step to the window and check whether
+	 * every species has been steady over it.
+	 *
+	 * @param simulator The simulation to check.
+	 * @return true If every species has been steady over a full window.
+	 */
+	public boolean isMet(Simulator simulator)
+	{
+		if (species == null) {
+			species = PopulationGenerator.getSpecies(simulator.getContext().getConfig());
+			history = new int[window][species.size()];
+			sums = new long[species.size()];
+			sumsOfSquares = new long[species.size()];
+		}
+		if (simulator.getStep() != lastStep) {
+			lastStep = simulator.getStep();
+			int[] oldest = history[samples % window];
+			Field field = simulator.getField();
+			for (int i = 0; i < oldest.length; i++) {
+				long population = field.getPopulation(species.get(i));
+				if (samples >= window) {
+					sums[i] -= oldest[i];
+					sumsOfSquares[i] -= (long) oldest[i] * oldest[i];
+				}
+				oldest[i] = (int) population;
+				sums[i] += population;
+				sumsOfSquares[i] += population * population;
+			}
+			samples++;
+		}
+		if (samples < window) {
+			return false;
+		}
+		for (int i = 0; i < sums.length; i++) {
+			double mean = (double) sums[i] / window;
+			double variance = Math.max(0, (double) sumsOfSquares[i] / window - mean * mean);
+			if (Math.sqrt(variance) > tolerance * mean) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Empty the window.
+	 */
+	public void reset()
+	{
+		species = null;
+		samples = 0;
+		lastStep = -1;
+	}
+	
+	/**
+	 * @return A description of the condition.
+	 */
+	public String toString()
+	{
+		return "steady:" + window + ":" + tolerance;
+	}
+}
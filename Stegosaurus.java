@@ -1,3 +1,4 @@
+import java.util.EnumSet;
 import java.util.List;
 
 /**
@@ -10,32 +11,6 @@ import java.util.List;
  */
 public class Stegosaurus extends AnimalSeasonalBreeding
 {
-	// Property prefix used in the config file.
-	private static String propertyPrefix = Stegosaurus.class.getName().toLowerCase() + ".";
-	// The age at which a stegosaurus can start to breed.
-	private static final int REPRODUCTION_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "REPRODUCTION_AGE"));
-	// The age at which the stegosaurus stops breeding.
-	private static final int MAX_REPRODUCTION_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_REPRODUCTION_AGE"));
-	// The age to which a stegosaurus can live.
-	private static final int MAX_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_AGE"));
-	// The likelihood of a stegosaurus breeding.
-	private static final double REPRODUCTION_PROBABILITY = Float.parseFloat(Config.getProperty(propertyPrefix + "REPRODUCTION_PROBABILITY"));
-	// The maximum number of births a stegosaurus can have at a single step.
-	private static final int MAX_OFFSPRING = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_OFFSPRING"));
-	// The amount of steps an animal can go after eating the stegosaurus.
-	private static final int CALORIES = Integer.parseInt(Config.getProperty(propertyPrefix + "CALORIES"));
-	// The level of food the stegosaurus needs to reach in order to stop eating.
-	private static final int MAX_FOOD_VALUE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_FOOD_VALUE"));
-	// The type of reproduction the stegosaurus has.
-	private static final boolean GENDERED_REPRODUCTION = Boolean.parseBoolean(Config.getProperty(propertyPrefix + "GENDERED_REPRODUCTION"));
-	// A list of the type of food the stegosaurus can eat.
-	private static final String[] CAN_EAT = Config.getProperty(propertyPrefix + "CAN_EAT").split(", ");
-	// Whether the stegosaurus needs to eat food in order to survive.
-	private static final boolean DISABLED_HUNGER = Boolean.parseBoolean(Config.getProperty(propertyPrefix + "DISABLE_HUNGER"));
-	// The weather during which the stegosaurus is active.
-	private static final String[] ACTIVE_WEATHER = Config.getProperty(propertyPrefix + "ACTIVE_WEATHER").split(", ");
-	
-	
 	/**
 	 * Create a stegosaurus. A stegosaurus can be created as a new born (age zero
 	 * and not hungry) or with a random age and food level.
@@ -51,11 +26,11 @@ public class Stegosaurus extends AnimalSeasonalBreeding
 	}
 	
 	/**
-	 * @return The calories of the stegosaurus.
+	 * @return The calories of the stegosaurus in the default simulation context.
 	 */
 	public static int getCalories()
 	{
-		return CALORIES;
+		return SimulationContext.getDefault().getTraits(Stegosaurus.class).getCalories();
 	}
 	
 	
@@ -75,7 +50,9 @@ public class Stegosaurus extends AnimalSeasonalBreeding
 		for (int b = 0; b < births && free.size() > 0; b++) {
 			Location loc = free.remove(0);
 			Stegosaurus young = new Stegosaurus(false, getField(), loc);
-			newStegosaurus.add(young);
+			if (young.place()) {
+				newStegosaurus.add(young);
+			}
 		}
 	}
 	
@@ -84,7 +61,7 @@ public class Stegosaurus extends AnimalSeasonalBreeding
 	 */
 	public int getMaxFoodValue()
 	{
-		return MAX_FOOD_VALUE;
+		return getTraits().getMaxFoodValue();
 	}
 	
 	/**
@@ -92,7 +69,7 @@ public class Stegosaurus extends AnimalSeasonalBreeding
 	 */
 	public int getMaxAge()
 	{
-		return MAX_AGE;
+		return getTraits().getMaxAge();
 	}
 	
 	/**
@@ -100,7 +77,7 @@ public class Stegosaurus extends AnimalSeasonalBreeding
 	 */
 	public double getReproductionProbability()
 	{
-		return REPRODUCTION_PROBABILITY;
+		return getTraits().getReproductionProbability();
 	}
 	
 	/**
@@ -108,7 +85,7 @@ public class Stegosaurus extends AnimalSeasonalBreeding
 	 */
 	public int getMaxOffspring()
 	{
-		return MAX_OFFSPRING;
+		return getTraits().getMaxOffspring();
 	}
 	
 	/**
@@ -116,7 +93,7 @@ public class Stegosaurus extends AnimalSeasonalBreeding
 	 */
 	public int getReproductionAge()
 	{
-		return REPRODUCTION_AGE;
+		return getTraits().getReproductionAge();
 	}
 	
 	/**
@@ -124,7 +101,7 @@ public class Stegosaurus extends AnimalSeasonalBreeding
 	 */
 	public int getMaxReproductionAge()
 	{
-		return MAX_REPRODUCTION_AGE;
+		return getTraits().getMaxReproductionAge();
 	}
 	
 	/**
@@ -132,15 +109,15 @@ public class Stegosaurus extends AnimalSeasonalBreeding
 	 */
 	public String[] getCanEat()
 	{
-		return CAN_EAT;
+		return getTraits().getCanEat();
 	}
 	
 	/**
-	 * @return A list of the weather during which the stegosaurus is active.
+	 * @return The weather during which the stegosaurus breeds.
 	 */
-	protected String[] getActiveWeather()
+	protected EnumSet<Environment.Weather> getBreedingWeather()
 	{
-		return ACTIVE_WEATHER;
+		return getTraits().getBreedingWeather();
 	}
 	
 	/**
@@ -148,7 +125,7 @@ public class Stegosaurus extends AnimalSeasonalBreeding
 	 */
 	public boolean isGenderedReproduction()
 	{
-		return GENDERED_REPRODUCTION;
+		return getTraits().isGenderedReproduction();
 	}
 	
 	/**
@@ -167,6 +144,6 @@ public class Stegosaurus extends AnimalSeasonalBreeding
 	 */
 	protected boolean getDisabledHunger()
 	{
-		return DISABLED_HUNGER;
+		return getTraits().getDisabledHunger();
 	}
 }
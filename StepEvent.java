@@ -0,0 +1,34 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event covering one step of the simulation, so that
+ * JDK Mission Control can line up the population with GC, allocation and CPU data.
+ * Like all JFR events it costs nothing while it is not enabled in a recording.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+@Name("dinosaur.Step")
+@Label("Simulation Step")
+@Category("Dinosaur Simulation")
+@Description("One step of the simulation")
+@StackTrace(false)
+public class StepEvent extends jdk.jfr.Event
+{
+	// The number of the step.
+	@Label("Step")
+	int step;
+	// The number of actors after the step.
+	@Label("Actors")
+	int actorCount;
+	// The number of actors born during the step.
+	@Label("Births")
+	int births;
+	// The number of actors that died during the step.
+	@Label("Deaths")
+	int deaths;
+}
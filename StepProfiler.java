@@ -0,0 +1,356 @@
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures where the time of a simulation step goes: updating the environment
+ * and the layer of plants, letting each species act, spreading disease, adding the newborns, showing the view, recording
+ * and counting the population. It also keeps a rolling window of step latencies.
+ * <p>
+ * The simulator thread accumulates its timings in private counters, which are
+ * published once per step, so reading the statistics through JMX never slows
+ * down a step. The profiler registers itself with the platform MBean server.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class StepProfiler implements StepProfilerMXBean
+{
+	// The number of most recent steps kept for the latency statistics.
+	private static final int WINDOW = 1024;
+	// The most species the profiler keeps separate act times for.
+	private static final int MAX_SPECIES = 16;
+	// The upper bounds of the latency histogram buckets, in milliseconds.
+	private static final double[] BUCKET_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+	// The number of profilers created, used to name them.
+	private static int profilerCount = 0;
+	
+	// The time the current phase started.
+	private long phaseStart;
+	// The time the current step started.
+	private long stepStart;
+	// Phase times of the current step.
+	private long[] stepPhaseNanos;
+	// Species seen so far, and their act times and counts in the current step.
+	private Class[] species;
+	private int speciesCount;
+	private long[] stepActNanos;
+	private long[] stepActCount;
+	
+	// Published statistics, guarded by this profiler.
+	private long steps;
+	private int actors;
+	private long[] stepNanos;
+	private long[] phaseNanos;
+	private long[] lastPhaseNanos;
+	private long[] actNanos;
+	private long[] actCount;
+	// The name the profiler is registered under, or null if it is not registered.
+	private ObjectName name;
+	
+	/**
+	 * Create a profiler and register it with the platform MBean server.
+	 */
+	public StepProfiler()
+	{
+		stepPhaseNanos = new long[Phase.values().length];
+		species = new Class[MAX_SPECIES];
+		stepActNanos = new long[MAX_SPECIES];
+		stepActCount = new long[MAX_SPECIES];
+		stepNanos = new long[WINDOW];
+		phaseNanos = new long[Phase.values().length];
+		lastPhaseNanos = new long[Phase.values().length];
+		actNanos = new long[MAX_SPECIES];
+		actCount = new long[MAX_SPECIES];
+		
+		try {
+			ObjectName name = new ObjectName("DinosaurSimulation:type=StepProfiler,name=simulator-" + nextProfilerNumber());
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+			this.name = name;
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Unregister the profiler from the platform MBean server, so that
+	 * neither it nor its statistics outlive its simulator.
+	 */
+	public synchronized void close()
+	{
+		if (name == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		name = null;
+	}
+	
+	/**
+	 * @return The number of the next profiler.
+	 */
+	private static synchronized int nextProfilerNumber()
+	{
+		return ++profilerCount;
+	}
+	
+	/**
+	 * Start timing a step and its first phase.
+	 */
+	public void startStep()
+	{
+		stepStart = System.nanoTime();
+		phaseStart = stepStart;
+	}
+	
+	/**
+	 * End the current phase, attributing the time since the previous phase ended
+	 * to it, and start the next one.
+	 *
+	 * @param phase The phase that ended.
+	 */
+	public void endPhase(Phase phase)
+	{
+		long now = System.nanoTime();
+		stepPhaseNanos[phase.ordinal()] += now - phaseStart;
+		phaseStart = now;
+	}
+	
+	/**
+	 * Add time spent outside of a step, such as counting the population
+	 * between steps, to a phase of the next step.
+	 *
+	 * @param phase The phase to add the time to.
+	 * @param nanos The time spent, in nanoseconds.
+	 */
+	public void addPhaseTime(Phase phase, long nanos)
+	{
+		stepPhaseNanos[phase.ordinal()] += nanos;
+	}
+	
+	/**
+	 * Record the duration of one act() call.
+	 *
+	 * @param actorClass The class of the actor that acted.
+	 * @param nanos      The duration of the call, in nanoseconds.
+	 */
+	public void recordAct(Class actorClass, long nanos)
+	{
+		recordActs(actorClass, nanos, 1);
+	}
+	
+	/**
+	 * Record the total duration of several act() calls of the same species,
+	 * timed together.
+	 *
+	 * @param actorClass The class of the actors that acted.
+	 * @param nanos      The duration of the calls, in nanoseconds.
+	 * @param count      The number of calls.
+	 */
+	public void recordActs(Class actorClass, long nanos, int count)
+	{
+		int index = 0;
+		while (index < speciesCount && species[index] != actorClass) {
+			index++;
+		}
+		if (index == speciesCount) {
+			if (speciesCount == MAX_SPECIES) {
+				return;
+			}
+			species[speciesCount++] = actorClass;
+		}
+		stepActNanos[index] += nanos;
+		stepActCount[index] += count;
+	}
+	
+	/**
+	 * End the step and publish its timings.
+	 *
+	 * @param actorCount The number of actors after the step.
+	 */
+	public synchronized void endStep(int actorCount)
+	{
+		stepNanos[(int) (steps % WINDOW)] = System.nanoTime() - stepStart;
+		steps++;
+		actors = actorCount;
+		for (int i = 0; i < stepPhaseNanos.length; i++) {
+			phaseNanos[i] += stepPhaseNanos[i];
+			lastPhaseNanos[i] = stepPhaseNanos[i];
+			stepPhaseNanos[i] = 0;
+		}
+		for (int i = 0; i < speciesCount; i++) {
+			actNanos[i] += stepActNanos[i];
+			actCount[i] += stepActCount[i];
+			stepActNanos[i] = 0;
+			stepActCount[i] = 0;
+		}
+	}
+	
+	public synchronized long getStepCount()
+	{
+		return steps;
+	}
+	
+	public synchronized int getActorCount()
+	{
+		return actors;
+	}
+	
+	public synchronized double getLastStepMillis()
+	{
+		return steps == 0 ? 0 : stepNanos[(int) ((steps - 1) % WINDOW)] / 1e6;
+	}
+	
+	public double getMeanStepMillis()
+	{
+		long[] window = getWindow();
+		long total = 0;
+		for (long nanos : window) {
+			total += nanos;
+		}
+		return window.length == 0 ? 0 : total / 1e6 / window.length;
+	}
+	
+	public double getP50StepMillis()
+	{
+		return getPercentile(0.50);
+	}
+	
+	public double getP90StepMillis()
+	{
+		return getPercentile(0.90);
+	}
+	
+	public double getP99StepMillis()
+	{
+		return getPercentile(0.99);
+	}
+	
+	public double getMaxStepMillis()
+	{
+		return getPercentile(1.0);
+	}
+	
+	public Map<String, Long> getStepLatencyHistogram()
+	{
+		long[] counts = new long[BUCKET_BOUNDS.length + 1];
+		for (long nanos : getWindow()) {
+			int bucket = 0;
+			while (bucket < BUCKET_BOUNDS.length && nanos / 1e6 >= BUCKET_BOUNDS[bucket]) {
+				bucket++;
+			}
+			counts[bucket]++;
+		}
+		Map<String, Long> histogram = new LinkedHashMap<>();
+		for (int i = 0; i < counts.length; i++) {
+			String label = i < BUCKET_BOUNDS.length ? "< " + (int) BUCKET_BOUNDS[i] + " ms" : ">= " + (int) BUCKET_BOUNDS[i - 1] + " ms";
+			histogram.put(label, counts[i]);
+		}
+		return histogram;
+	}
+	
+	public synchronized Map<String, Double> getMeanPhaseMillis()
+	{
+		Map<String, Double> phases = new LinkedHashMap<>();
+		for (Phase phase : Phase.values()) {
+			phases.put(phase.getName(), steps == 0 ? 0 : phaseNanos[phase.ordinal()] / 1e6 / steps);
+		}
+		return phases;
+	}
+	
+	public synchronized Map<String, Double> getLastStepPhaseMillis()
+	{
+		Map<String, Double> phases = new LinkedHashMap<>();
+		for (Phase phase : Phase.values()) {
+			phases.put(phase.getName(), lastPhaseNanos[phase.ordinal()] / 1e6);
+		}
+		return phases;
+	}
+	
+	public synchronized Map<String, Double> getMeanSpeciesActMillis()
+	{
+		Map<String, Double> times = new LinkedHashMap<>();
+		for (int i = 0; i < speciesCount; i++) {
+			times.put(species[i].getName(), steps == 0 ? 0 : actNanos[i] / 1e6 / steps);
+		}
+		return times;
+	}
+	
+	public synchronized Map<String, Double> getMeanActMicros()
+	{
+		Map<String, Double> times = new LinkedHashMap<>();
+		for (int i = 0; i < speciesCount; i++) {
+			times.put(species[i].getName(), actCount[i] == 0 ? 0 : actNanos[i] / 1e3 / actCount[i]);
+		}
+		return times;
+	}
+	
+	public synchronized void reset()
+	{
+		steps = 0;
+		Arrays.fill(phaseNanos, 0);
+		Arrays.fill(lastPhaseNanos, 0);
+		Arrays.fill(actNanos, 0);
+		Arrays.fill(actCount, 0);
+	}
+	
+	/**
+	 * @return A copy of the step latencies in the rolling window.
+	 */
+	private synchronized long[] getWindow()
+	{
+		return Arrays.copyOf(stepNanos, (int) Math.min(steps, WINDOW));
+	}
+	
+	/**
+	 * @param fraction The fraction of steps at or below the percentile.
+	 * @return The step latency at the given percentile of the rolling window, in milliseconds.
+	 */
+	private double getPercentile(double fraction)
+	{
+		long[] window = getWindow();
+		if (window.length == 0) {
+			return 0;
+		}
+		Arrays.sort(window);
+		int rank = (int) Math.ceil(fraction * window.length);
+		return window[Math.max(0, rank - 1)] / 1e6;
+	}
+	
+	/**
+	 * Enum containing the phases of a simulation step.
+	 */
+	public enum Phase
+	{
+		ENVIRONMENT("environment"),
+		VEGETATION("vegetation"),
+		ACT("act"),
+		DISEASE("disease"),
+		NEWBORNS("newborns"),
+		SORT("sort"),
+		VIEW("view"),
+		RECORDING("recording"),
+		STATS("stats");
+		
+		// The name shown in the management console.
+		private final String name;
+		
+		Phase(String name)
+		{
+			this.name = name;
+		}
+		
+		/**
+		 * @return The name shown in the management console.
+		 */
+		public String getName()
+		{
+			return name;
+		}
+	}
+}
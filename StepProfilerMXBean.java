@@ -0,0 +1,84 @@
+import java.util.Map;
+
+/**
+ * The management interface of the StepProfiler, as seen in JConsole or VisualVM
+ * under DinosaurSimulation/StepProfiler.
+ * <p>
+ * Step latencies are taken over a rolling window of the most recent steps. Phase
+ * and species times are accumulated since the profiler was last reset.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public interface StepProfilerMXBean
+{
+	/**
+	 * @return The number of steps profiled since the last reset.
+	 */
+	long getStepCount();
+	
+	/**
+	 * @return The number of actors after the last step.
+	 */
+	int getActorCount();
+	
+	/**
+	 * @return The duration of the last step, in milliseconds.
+	 */
+	double getLastStepMillis();
+	
+	/**
+	 * @return The mean step duration over the rolling window, in milliseconds.
+	 */
+	double getMeanStepMillis();
+	
+	/**
+	 * @return The median step duration over the rolling window, in milliseconds.
+	 */
+	double getP50StepMillis();
+	
+	/**
+	 * @return The 90th percentile step duration over the rolling window, in milliseconds.
+	 */
+	double getP90StepMillis();
+	
+	/**
+	 * @return The 99th percentile step duration over the rolling window, in milliseconds.
+	 */
+	double getP99StepMillis();
+	
+	/**
+	 * @return The longest step in the rolling window, in milliseconds.
+	 */
+	double getMaxStepMillis();
+	
+	/**
+	 * @return The number of steps of the rolling window in each latency bucket.
+	 */
+	Map<String, Long> getStepLatencyHistogram();
+	
+	/**
+	 * @return The mean time per step spent in each phase, in milliseconds.
+	 */
+	Map<String, Double> getMeanPhaseMillis();
+	
+	/**
+	 * @return The time spent in each phase during the last step, in milliseconds.
+	 */
+	Map<String, Double> getLastStepPhaseMillis();
+	
+	/**
+	 * @return The mean time per step each species spent acting, in milliseconds.
+	 */
+	Map<String, Double> getMeanSpeciesActMillis();
+	
+	/**
+	 * @return The mean duration of a single act() call of each species, in microseconds.
+	 */
+	Map<String, Double> getMeanActMicros();
+	
+	/**
+	 * Clear all statistics.
+	 */
+	void reset();
+}
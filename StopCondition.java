@@ -0,0 +1,90 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A condition under which a simulation stops before it has run all of its
+ * steps, such as a species dying out or the populations settling down.
+ * <p>
+ * Conditions are checked once per step against the live population counts
+ * kept by the Field, so checking them does not cost a pass over the field.
+ * A condition may remember earlier steps, so every simulation needs its own.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public interface StopCondition
+{
+	/**
+	 * Check whether the simulation should stop at its current step.
+	 *
+	 * @param simulator The simulation to check.
+	 * @return true If the simulation should stop.
+	 */
+	boolean isMet(Simulator simulator);
+	
+	/**
+	 * Forget everything remembered about earlier steps, for when the
+	 * simulation is reset.
+	 */
+	void reset();
+	
+	/**
+	 * Parse a comma separated list of stop conditions, as used by
+	 * simulator.STOP_CONDITIONS in the config file. Each condition is one of
+	 * <ul>
+	 * <li>extinct or extinct:Species - any species, or the given one, has died out,</li>
+	 * <li>below:n or below:Species:n - fewer than n actors, or actors of the species, are left,</li>
+	 * <li>above:n or above:Species:n - more than n actors, or actors of the species, are alive,</li>
+	 * <li>steady:window:tolerance - over the last window steps the standard deviation of every
+	 * species' population has been at most tolerance times its mean.</li>
+	 * </ul>
+	 *
+	 * @param spec The list of conditions, which may be null or empty.
+	 * @return The conditions.
+	 */
+	static List<StopCondition> parse(String spec)
+	{
+		List<StopCondition> conditions = new ArrayList<>();
+		if (spec == null) {
+			return conditions;
+		}
+		for (String condition : spec.split(",")) {
+			String[] parts = condition.trim().split(":");
+			switch (parts[0].toLowerCase()) {
+				case "":
+					break;
+				case "extinct":
+					conditions.add(new ExtinctionCondition(parts.length > 1 ? getSpecies(parts[1]) : null));
+					break;
+				case "below":
+				case "above":
+					boolean above = parts[0].equalsIgnoreCase("above");
+					if (parts.length > 2) {
+						conditions.add(new PopulationCondition(getSpecies(parts[1]), Integer.parseInt(parts[2]), above));
+					} else {
+						conditions.add(new PopulationCondition(null, Integer.parseInt(parts[1]), above));
+					}
+					break;
+				case "steady":
+					conditions.add(new SteadyStateCondition(Integer.parseInt(parts[1]), Double.parseDouble(parts[2])));
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown stop condition: " + condition.trim());
+			}
+		}
+		return conditions;
+	}
+	
+	/**
+	 * @param name The name of a species.
+	 * @return The class of the species.
+	 */
+	static Class getSpecies(String name)
+	{
+		try {
+			return Class.forName(name.trim());
+		} catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException("Unknown species: " + name.trim(), e);
+		}
+	}
+}
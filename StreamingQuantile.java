@@ -0,0 +1,143 @@
+import java.util.Arrays;
+
+/**
+ * Estimates a quantile of a stream of values without storing them, using the
+ * P-square algorithm of Jain and Chlamtac. Five markers track the minimum, the
+ * maximum, the quantile and the quantiles half way to either end, and are moved
+ * along a parabola fitted through their neighbours as values arrive.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class StreamingQuantile
+{
+	// The quantile estimated, between 0 and 1.
+	private double probability;
+	// The heights of the markers.
+	private double[] heights;
+	// The actual positions of the markers.
+	private int[] positions;
+	// The desired positions of the markers.
+	private double[] desiredPositions;
+	// The increments of the desired positions for every new value.
+	private double[] increments;
+	// The number of values seen.
+	private long count;
+	
+	/**
+	 * Create an estimator of the given quantile.
+	 *
+	 * @param probability The quantile to estimate, between 0 and 1.
+	 */
+	public StreamingQuantile(double probability)
+	{
+		this.probability = probability;
+		heights = new double[5];
+		positions = new int[5];
+		desiredPositions = new double[] {1, 1 + 2 * probability, 1 + 4 * probability, 3 + 2 * probability, 5};
+		increments = new double[] {0, probability / 2, probability, (1 + probability) / 2, 1};
+	}
+	
+	/**
+	 * Add a value to the stream.
+	 *
+	 * @param value The new value.
+	 */
+	public void add(double value)
+	{
+		if (count < 5) {
+			heights[(int) count++] = value;
+			if (count == 5) {
+				Arrays.sort(heights);
+				for (int i = 0; i < 5; i++) {
+					positions[i] = i + 1;
+				}
+			}
+			return;
+		}
+		count++;
+		
+		// Find the cell the value falls in, widening the extremes if needed.
+		int cell;
+		if (value < heights[0]) {
+			heights[0] = value;
+			cell = 0;
+		} else if (value >= heights[4]) {
+			heights[4] = value;
+			cell = 3;
+		} else {
+			cell = 0;
+			while (value >= heights[cell + 1]) {
+				cell++;
+			}
+		}
+		for (int i = cell + 1; i < 5; i++) {
+			positions[i]++;
+		}
+		for (int i = 0; i < 5; i++) {
+			desiredPositions[i] += increments[i];
+		}
+		
+		// Move the middle markers that are off their desired position.
+		for (int i = 1; i <= 3; i++) {
+			double offset = desiredPositions[i] - positions[i];
+			if ((offset >= 1 && positions[i + 1] - positions[i] > 1) || (offset <= -1 && positions[i - 1] - positions[i] < -1)) {
+				int direction = offset >= 0 ? 1 : -1;
+				double height = parabolic(i, direction);
+				if (heights[i - 1] < height && height < heights[i + 1]) {
+					heights[i] = height;
+				} else {
+					heights[i] = linear(i, direction);
+				}
+				positions[i] += direction;
+			}
+		}
+	}
+	
+	/**
+	 * @return The estimate of the quantile, or NaN if no value has been added.
+	 */
+	public double getQuantile()
+	{
+		if (count == 0) {
+			return Double.NaN;
+		}
+		if (count < 5) {
+			// Too few values for the markers: use the exact quantile.
+			double[] values = Arrays.copyOf(heights, (int) count);
+			Arrays.sort(values);
+			return values[(int) Math.round(probability * (count - 1))];
+		}
+		return heights[2];
+	}
+	
+	/**
+	 * @return The quantile estimated, between 0 and 1.
+	 */
+	public double getProbability()
+	{
+		return probability;
+	}
+	
+	/**
+	 * @param i         The marker to move.
+	 * @param direction The direction to move it in, 1 or -1.
+	 * @return The new height of the marker on the parabola through it and its neighbours.
+	 */
+	private double parabolic(int i, int direction)
+	{
+		double below = (positions[i] - positions[i - 1] + direction) * (heights[i + 1] - heights[i]) / (positions[i + 1] - positions[i]);
+		double above = (positions[i + 1] - positions[i] - direction) * (heights[i] - heights[i - 1]) / (positions[i] - positions[i - 1]);
+		return heights[i] + direction * (below + above) / (positions[i + 1] - positions[i - 1]);
+	}
+	
+	/**
+	 * @param i         The marker to move.
+	 * @param direction The direction to move it in, 1 or -1.
+	 * @return The new height of the marker on the line to the neighbour it moves towards.
+	 */
+	private double linear(int i, int direction)
+	{
+		return heights[i] + direction * (heights[i + direction] - heights[i]) / (positions[i + direction] - positions[i]);
+	}
+}
@@ -0,0 +1,26 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event marking the change from day to night or back.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+@Name("dinosaur.TimeOfDayChange")
+@Label("Time Of Day Change")
+@Category("Dinosaur Simulation")
+@Description("The simulation changed from day to night or from night to day")
+@StackTrace(false)
+public class TimeOfDayChangeEvent extends jdk.jfr.Event
+{
+	// The number of the step.
+	@Label("Step")
+	int step;
+	// The time of day after the change.
+	@Label("Time Of Day")
+	String timeOfDay;
+}
@@ -0,0 +1,168 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel that hands back items at the step they were
+ * scheduled for. Scheduling an item and advancing by one step take constant
+ * time, however many items are waiting, so the work per step depends on the
+ * number of items that fall due rather than on the number scheduled.
+ * <p>
+ * Each of the LEVELS wheels has SLOTS slots. The first wheel holds the items
+ * due in the next SLOTS steps, one slot per step, and each further wheel covers
+ * SLOTS times as many steps as the one before it. As the steps go by the items
+ * of a slot of a further wheel are moved down to the wheel below, until they
+ * reach the first wheel and fall due. Items due beyond the last wheel wait in
+ * its last slot and are looked at again each time it comes round.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class TimingWheel<T>
+{
+	// The number of bits of a step that select a slot of a wheel.
+	private static final int SLOT_BITS = 6;
+	// The number of slots of each wheel.
+	private static final int SLOTS = 1 << SLOT_BITS;
+	// The number of wheels.
+	private static final int LEVELS = 4;
+	
+	// The items waiting in each slot of each wheel.
+	private List<List<Entry<T>>> slots;
+	// The step the wheel has advanced to.
+	private long now;
+	// The number of items waiting.
+	private int size;
+	
+	/**
+	 * Create an empty wheel at step 0.
+	 */
+	public TimingWheel()
+	{
+		slots = new ArrayList<>();
+		for (int i = 0; i < SLOTS * LEVELS; i++) {
+			slots.add(new ArrayList<>());
+		}
+	}
+	
+	/**
+	 * Schedule an item. An item scheduled for a step that has already been
+	 * reached falls due at the next step.
+	 *
+	 * @param item The item.
+	 * @param step The step at which the item falls due.
+	 */
+	public void schedule(T item, long step)
+	{
+		insert(new Entry<>(item, Math.max(step, now + 1)));
+		size++;
+	}
+	
+	/**
+	 * Advance the wheel to the given step, handing every item that falls due
+	 * on the way to the given consumer, in the order of their steps.
+	 *
+	 * @param step    The step to advance to.
+	 * @param expired What to do with each item that falls due.
+	 */
+	public void advance(long step, Consumer<T> expired)
+	{
+		while (now < step) {
+			now++;
+			// Move the items of the further wheels whose slot has come round down,
+			// starting with the furthest so that they can pass through the nearer ones.
+			int top = 0;
+			while (top < LEVELS - 1 && (now & ((1L << (SLOT_BITS * (top + 1))) - 1)) == 0) {
+				top++;
+			}
+			for (int level = top; level >= 1; level--) {
+				List<Entry<T>> slot = getSlot(level, now);
+				List<Entry<T>> moved = new ArrayList<>(slot);
+				slot.clear();
+				for (Entry<T> entry : moved) {
+					insert(entry);
+				}
+			}
+			List<Entry<T>> due = getSlot(0, now);
+			if (!due.isEmpty()) {
+				List<Entry<T>> items = new ArrayList<>(due);
+				due.clear();
+				size -= items.size();
+				for (Entry<T> entry : items) {
+					expired.accept(entry.item);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Forget every item and go back to step 0.
+	 */
+	public void clear()
+	{
+		for (List<Entry<T>> slot : slots) {
+			slot.clear();
+		}
+		now = 0;
+		size = 0;
+	}
+	
+	/**
+	 * @return The number of items waiting.
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Put an entry in the slot of the lowest wheel that reaches its step.
+	 *
+	 * @param entry The entry, which is due after the current step.
+	 */
+	private void insert(Entry<T> entry)
+	{
+		long delay = entry.step - now;
+		int level = 0;
+		while (level < LEVELS - 1 && delay >= 1L << (SLOT_BITS * (level + 1))) {
+			level++;
+		}
+		if (delay >= 1L << (SLOT_BITS * LEVELS)) {
+			// Too far ahead for the last wheel: wait in the slot that comes round last.
+			getSlot(LEVELS - 1, now - (1L << (SLOT_BITS * (LEVELS - 1)))).add(entry);
+		} else {
+			getSlot(level, entry.step).add(entry);
+		}
+	}
+	
+	/**
+	 * @param level The wheel.
+	 * @param step  A step.
+	 * @return The slot of the wheel that the step falls in.
+	 */
+	private List<Entry<T>> getSlot(int level, long step)
+	{
+		return slots.get(level * SLOTS + (int) ((step >>> (SLOT_BITS * level)) & (SLOTS - 1)));
+	}
+	
+	/**
+	 * An item and the step it falls due.
+	 */
+	private static class Entry<T>
+	{
+		// The item.
+		private final T item;
+		// The step at which the item falls due.
+		private final long step;
+		
+		/**
+		 * @param item The item.
+		 * @param step The step at which the item falls due.
+		 */
+		private Entry(T item, long step)
+		{
+			this.item = item;
+			this.step = step;
+		}
+	}
+}
@@ -1,3 +1,4 @@
+import java.util.EnumSet;
 import java.util.List;
 
 /**
@@ -10,31 +11,6 @@ import java.util.List;
  */
 public class Tyrannosaurus extends AnimalTimeSensitive
 {
-	// Property prefix used in the config file.
-	private static String propertyPrefix = Tyrannosaurus.class.getName().toLowerCase() + ".";
-	// The age at which a tyrannosaurus can start to reproduce.
-	private static final int REPRODUCTION_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "REPRODUCTION_AGE"));
-	// The age at which the tyrannosaurus stops breeding.
-	private static final int MAX_REPRODUCTION_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_REPRODUCTION_AGE"));
-	// The age to which a tyrannosaurus can live.
-	private static final int MAX_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_AGE"));
-	// The likelihood of a tyrannosaurus breeding.
-	private static final double REPRODUCTION_PROBABILITY = Double.parseDouble(Config.getProperty(propertyPrefix + "REPRODUCTION_PROBABILITY"));
-	// The maximum number of births a tyrannosaurus can have at a single step.
-	private static final int MAX_OFFSPRING = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_OFFSPRING"));
-	// The amount of steps an animal can go after eating the tyrannosaurus.
-	private static final int CALORIES = Integer.parseInt(Config.getProperty(propertyPrefix + "CALORIES"));
-	// The level of food the tyrannosaurus needs to reach in order to stop eating.
-	private static final int MAX_FOOD_VALUE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_FOOD_VALUE"));
-	// The type of reproduction the tyrannosaurus has.
-	private static final boolean GENDERED_REPRODUCTION = Boolean.parseBoolean(Config.getProperty(propertyPrefix + "GENDERED_REPRODUCTION"));
-	// A string specifying the active time of day for the tyrannosaurus.
-	private static final String ACTIVE_TIME = Config.getProperty(propertyPrefix + "ACTIVE_TIME");
-	// A list of the type of food the tyrannosaurus can eat.
-	private static final String[] CAN_EAT = Config.getProperty(propertyPrefix + "CAN_EAT").split(", ");
-	// Whether the tyrannosaurus needs to eat food in order to survive.
-	private static final boolean DISABLED_HUNGER = Boolean.parseBoolean(Config.getProperty(propertyPrefix + "DISABLE_HUNGER"));
-	
 	/**
 	 * Create a new Tyrannosaurus. A tyrannosaurus may be created with age
 	 * zero (a new born) or with a random age.
@@ -50,11 +26,11 @@ public class Tyrannosaurus extends AnimalTimeSensitive
 	}
 	
 	/**
-	 * @return The calories of the tyrannosaurus.
+	 * @return The calories of the tyrannosaurus in the default simulation context.
 	 */
 	public static int getCalories()
 	{
-		return CALORIES;
+		return SimulationContext.getDefault().getTraits(Tyrannosaurus.class).getCalories();
 	}
 	
 	/**
@@ -72,7 +48,9 @@ public class Tyrannosaurus extends AnimalTimeSensitive
 		for (int i = 0; i < births && free.size() > 0; i++) {
 			Location loc = free.remove(0);
 			Tyrannosaurus young = new Tyrannosaurus(false, getField(), loc);
-			newTyrannosauruses.add(young);
+			if (young.place()) {
+				newTyrannosauruses.add(young);
+			}
 		}
 	}
 	
@@ -81,7 +59,7 @@ public class Tyrannosaurus extends AnimalTimeSensitive
 	 */
 	public int getMaxFoodValue()
 	{
-		return MAX_FOOD_VALUE;
+		return getTraits().getMaxFoodValue();
 	}
 	
 	/**
@@ -89,7 +67,7 @@ public class Tyrannosaurus extends AnimalTimeSensitive
 	 */
 	public int getMaxAge()
 	{
-		return MAX_AGE;
+		return getTraits().getMaxAge();
 	}
 	
 	/**
@@ -97,7 +75,7 @@ public class Tyrannosaurus extends AnimalTimeSensitive
 	 */
 	public double getReproductionProbability()
 	{
-		return REPRODUCTION_PROBABILITY;
+		return getTraits().getReproductionProbability();
 	}
 	
 	/**
@@ -105,7 +83,7 @@ public class Tyrannosaurus extends AnimalTimeSensitive
 	 */
 	public int getMaxOffspring()
 	{
-		return MAX_OFFSPRING;
+		return getTraits().getMaxOffspring();
 	}
 	
 	/**
@@ -113,7 +91,7 @@ public class Tyrannosaurus extends AnimalTimeSensitive
 	 */
 	public int getReproductionAge()
 	{
-		return REPRODUCTION_AGE;
+		return getTraits().getReproductionAge();
 	}
 	
 	/**
@@ -121,7 +99,7 @@ public class Tyrannosaurus extends AnimalTimeSensitive
 	 */
 	public int getMaxReproductionAge()
 	{
-		return MAX_REPRODUCTION_AGE;
+		return getTraits().getMaxReproductionAge();
 	}
 	
 	/**
@@ -129,7 +107,7 @@ public class Tyrannosaurus extends AnimalTimeSensitive
 	 */
 	public String[] getCanEat()
 	{
-		return CAN_EAT;
+		return getTraits().getCanEat();
 	}
 	
 	/**
@@ -137,7 +115,7 @@ public class Tyrannosaurus extends AnimalTimeSensitive
 	 */
 	public boolean isGenderedReproduction()
 	{
-		return GENDERED_REPRODUCTION;
+		return getTraits().isGenderedReproduction();
 	}
 	
 	/**
@@ -152,13 +130,13 @@ public class Tyrannosaurus extends AnimalTimeSensitive
 	}
 	
 	/**
-	 * Return the active time of day for the tyrannosaurus as a string.
+	 * Return the times of day the tyrannosaurus is active in.
 	 *
-	 * @return active time of day as string.
+	 * @return The active times of day.
 	 */
-	protected String getActiveTime()
+	protected EnumSet<Environment.TimeOfDay> getActiveTimes()
 	{
-		return ACTIVE_TIME;
+		return getTraits().getActiveTimes();
 	}
 	
 	/**
@@ -166,6 +144,6 @@ public class Tyrannosaurus extends AnimalTimeSensitive
 	 */
 	protected boolean getDisabledHunger()
 	{
-		return DISABLED_HUNGER;
+		return getTraits().getDisabledHunger();
 	}
 }
@@ -0,0 +1,244 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * A layer of plants covering the ground of a field, kept as primitive arrays
+ * rather than one Plant actor per location. A location holds a plant if its
+ * water level is above zero. Animals stand on top of the layer, so a location
+ * can hold both a plant and an animal.
+ * <p>
+ * The plants follow the traits of the Plant species and behave like Plant
+ * actors: every step they age, and refill their water when it rains or lose
+ * some when it is dry, dying of old age or of thirst. In dry weather the plants
+ * of breeding age spread. Rather than each plant picking free locations for its
+ * seedlings, every empty location looks at its eight neighbours and becomes a
+ * seedling with a probability that grows with the number of them that are
+ * spreading. The plants in the layer are never diseased.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class Vegetation
+{
+	// The water level of a new seedling, as that of a newborn Plant.
+	private static final int SEEDLING_WATER_LEVEL = 20;
+	// Atomic access to the water levels, so that two animals cannot eat the same plant.
+	private static final VarHandle WATER = MethodHandles.arrayElementVarHandle(int[].class);
+	
+	// The simulation the layer belongs to.
+	private SimulationContext context;
+	// The depth and width of the layer.
+	private int depth, width;
+	// The water level of the plant at every location, zero where there is none.
+	private int[] water;
+	// The age of the plant at every location.
+	private int[] age;
+	// 1 where the plant at a location spreads at this step, 0 elsewhere.
+	private int[] spreading;
+	// The number of spreading plants in every column of three rows, and every location's spreading neighbours.
+	private int[] columnCounts, neighbours;
+	// The probability of an empty location becoming a seedling, indexed by the number of spreading neighbours.
+	private double[] seedlingProbability;
+	// The traits of the plants.
+	private int maxAge, maxWaterLevel, reproductionAge, maxReproductionAge, calories;
+	// The water level of a new seedling, no more than the maximum water level.
+	private int seedlingWaterLevel;
+	
+	/**
+	 * Create an empty layer of plants.
+	 *
+	 * @param context The simulation the layer belongs to.
+	 * @param depth   The depth of the field.
+	 * @param width   The width of the field.
+	 * @throws IllegalArgumentException If the field is too large for an array of its locations.
+	 */
+	public Vegetation(SimulationContext context, int depth, int width)
+	{
+		this.context = context;
+		this.depth = depth;
+		this.width = width;
+		int size = Field.getArraySize(depth, width);
+		water = new int[size];
+		age = new int[size];
+		spreading = new int[size];
+		columnCounts = new int[width];
+		neighbours = new int[width];
+		
+		SpeciesTraits traits = context.getTraits(Plant.class);
+		maxAge = traits.getMaxAge();
+		maxWaterLevel = traits.getMaxWaterLevel();
+		seedlingWaterLevel = Math.min(SEEDLING_WATER_LEVEL, maxWaterLevel);
+		reproductionAge = Math.max(traits.getReproductionAge(), 1);
+		maxReproductionAge = traits.getMaxReproductionAge();
+		calories = traits.getCalories();
+		
+		// A spreading Plant has on average (MAX_OFFSPRING + 1) / 2 seedlings, shared between its eight neighbours.
+		double chance = traits.getReproductionProbability() * (traits.getMaxOffspring() + 1) / 2 / 8;
+		chance = Math.min(chance, 1);
+		seedlingProbability = new double[9];
+		for (int neighbours = 0; neighbours <= 8; neighbours++) {
+			seedlingProbability[neighbours] = 1 - Math.pow(1 - chance, neighbours);
+		}
+	}
+	
+	/**
+	 * Cover the layer with plants of random age and water level.
+	 *
+	 * @param density The probability of a location holding a plant.
+	 */
+	public void populate(double density)
+	{
+		Random rand = context.getRandom();
+		clear();
+		for (int i = 0; i < water.length; i++) {
+			if (rand.nextDouble() <= density) {
+				water[i] = rand.nextInt(Math.max(maxWaterLevel, 1)) + 1;
+				age[i] = rand.nextInt(Math.max(maxAge, 1));
+			}
+		}
+	}
+	
+	/**
+	 * Remove every plant.
+	 */
+	public void clear()
+	{
+		Arrays.fill(water, 0);
+		Arrays.fill(age, 0);
+	}
+	
+	/**
+	 * Let every plant of the layer act for one step, in one pass over the
+	 * layer followed, in dry weather, by one pass that spreads the plants.
+	 */
+	public void update()
+	{
+		boolean rainy = context.getEnvironment().getWeather() == Environment.Weather.RAINY;
+		// Rain adds one to the water level of a plant, dry weather takes one away.
+		int waterChange = rainy ? 1 : -1;
+		int[] water = this.water;
+		int[] age = this.age;
+		int[] spreading = this.spreading;
+		int maxAge = this.maxAge, maxWaterLevel = this.maxWaterLevel;
+		int reproductionAge = this.reproductionAge, maxReproductionAge = this.maxReproductionAge;
+		for (int row = 0; row < depth; row++) {
+			int start = row * width;
+			// The loop has no branches so that it can be compiled to vector instructions.
+			// (x >> 31) is -1 if x is negative and 0 otherwise.
+			for (int col = 0; col < width; col++) {
+				int level = water[start + col];
+				int alive = -level >> 31;
+				int newAge = age[start + col] - alive;
+				int newWater = level + (waterChange & alive);
+				newWater += (maxWaterLevel - newWater) >> 31;
+				int survives = (newAge - maxAge - 1) >> 31 & -newWater >> 31;
+				water[start + col] = newWater & survives;
+				age[start + col] = newAge & survives;
+				spreading[start + col] = survives & (reproductionAge - 1 - newAge) >> 31 & (newAge - maxReproductionAge - 1) >> 31 & 1;
+			}
+		}
+		if (!rainy) {
+			spread();
+		}
+	}
+	
+	/**
+	 * Turn empty locations next to spreading plants into seedlings. The
+	 * seedlings do not spread at the same step.
+	 */
+	private void spread()
+	{
+		// Seeded from the simulation's generator, but cheaper to draw from for every empty location.
+		SplittableRandom rand = new SplittableRandom(context.getRandom().nextLong());
+		int[] water = this.water;
+		int[] age = this.age;
+		int[] spreading = this.spreading;
+		int[] columnCounts = this.columnCounts;
+		int[] neighbours = this.neighbours;
+		for (int row = 0; row < depth; row++) {
+			int start = row * width;
+			// Count the spreading neighbours of a whole row at once: first the spreading
+			// plants of each column in this row and the rows around it, then of each
+			// column and the columns around it, less the plant at the location itself.
+			System.arraycopy(spreading, start, columnCounts, 0, width);
+			if (row > 0) {
+				for (int col = 0; col < width; col++) {
+					columnCounts[col] += spreading[start - width + col];
+				}
+			}
+			if (row < depth - 1) {
+				for (int col = 0; col < width; col++) {
+					columnCounts[col] += spreading[start + width + col];
+				}
+			}
+			for (int col = 1; col < width - 1; col++) {
+				neighbours[col] = columnCounts[col - 1] + columnCounts[col] + columnCounts[col + 1] - spreading[start + col];
+			}
+			neighbours[0] = columnCounts[0] + (width > 1 ? columnCounts[1] : 0) - spreading[start];
+			if (width > 1) {
+				neighbours[width - 1] = columnCounts[width - 2] + columnCounts[width - 1] - spreading[start + width - 1];
+			}
+			for (int col = 0; col < width; col++) {
+				int count = neighbours[col];
+				if (count != 0 && water[start + col] == 0 && rand.nextDouble() < seedlingProbability[count]) {
+					water[start + col] = seedlingWaterLevel;
+					age[start + col] = 0;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @param row The row of the location.
+	 * @param col The column of the location.
+	 * @return true If there is a plant at the location.
+	 */
+	public boolean hasPlant(int row, int col)
+	{
+		return water[row * width + col] > 0;
+	}
+	
+	/**
+	 * Eat the plant at a location, if there is one. Of several animals trying
+	 * to eat the same plant at once, on several threads, only one succeeds.
+	 *
+	 * @param row The row of the location.
+	 * @param col The column of the location.
+	 * @return true If there was a plant to eat.
+	 */
+	public boolean eat(int row, int col)
+	{
+		int index = row * width + col;
+		int level = water[index];
+		if (level <= 0 || !WATER.compareAndSet(water, index, level, 0)) {
+			return false;
+		}
+		age[index] = 0;
+		return true;
+	}
+	
+	/**
+	 * @return The amount of steps an animal can go after eating a plant.
+	 */
+	public int getCalories()
+	{
+		return calories;
+	}
+	
+	/**
+	 * @return The number of plants in the layer.
+	 */
+	public int getCount()
+	{
+		int count = 0;
+		for (int level : water) {
+			if (level > 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
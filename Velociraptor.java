@@ -1,3 +1,4 @@
+import java.util.EnumSet;
 import java.util.List;
 
 /**
@@ -11,31 +12,6 @@ import java.util.List;
 
 public class Velociraptor extends AnimalTimeSensitive
 {
-	// Property prefix used in the config file.
-	private static String propertyPrefix = Velociraptor.class.getName().toLowerCase() + ".";
-	// The age at which a velociraptor can start to reproduce.
-	private static final int REPRODUCTION_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "REPRODUCTION_AGE"));
-	// The age at which the velociraptor stops breeding.
-	private static final int MAX_REPRODUCTION_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_REPRODUCTION_AGE"));
-	// The age to which a velociraptor can live.
-	private static final int MAX_AGE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_AGE"));
-	// The likelihood of a velociraptor breeding.
-	private static final double REPRODUCTION_PROBABILITY = Double.parseDouble(Config.getProperty(propertyPrefix + "REPRODUCTION_PROBABILITY"));
-	// The maximum number of births a velociraptor can have at a single step.
-	private static final int MAX_OFFSPRING = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_OFFSPRING"));
-	// The amount of steps an animal can go after eating the velociraptor.
-	private static final int CALORIES = Integer.parseInt(Config.getProperty(propertyPrefix + "CALORIES"));
-	// The level of food the velociraptor needs to reach in order to stop eating.
-	private static final int MAX_FOOD_VALUE = Integer.parseInt(Config.getProperty(propertyPrefix + "MAX_FOOD_VALUE"));
-	// The type of reproduction the velociraptor has.
-	private static final boolean GENDERED_REPRODUCTION = Boolean.parseBoolean(Config.getProperty(propertyPrefix + "GENDERED_REPRODUCTION"));
-	// A string specifying the active time of day for the velociraptor.
-	private static final String ACTIVE_TIME = Config.getProperty(propertyPrefix + "ACTIVE_TIME");
-	// A list of the type of food the velociraptor can eat.
-	private static final String[] CAN_EAT = Config.getProperty(propertyPrefix + "CAN_EAT").split(", ");
-	// Whether the velociraptor needs to eat food in order to survive.
-	private static final boolean DISABLED_HUNGER = Boolean.parseBoolean(Config.getProperty(propertyPrefix + "DISABLE_HUNGER"));
-	
 	/**
 	 * Create a new Velociraptor. A velociraptor may be created with age
 	 * zero (a new born) or with a random age.
@@ -51,11 +27,11 @@ public class Velociraptor extends AnimalTimeSensitive
 	}
 	
 	/**
-	 * @return The calories of the velociraptor.
+	 * @return The calories of the velociraptor in the default simulation context.
 	 */
 	public static int getCalories()
 	{
-		return CALORIES;
+		return SimulationContext.getDefault().getTraits(Velociraptor.class).getCalories();
 	}
 	
 	/**
@@ -73,7 +49,9 @@ public class Velociraptor extends AnimalTimeSensitive
 		for (int i = 0; i < births && free.size() > 0; i++) {
 			Location loc = free.remove(0);
 			Velociraptor young = new Velociraptor(false, getField(), loc);
-			newVelociraptors.add(young);
+			if (young.place()) {
+				newVelociraptors.add(young);
+			}
 		}
 	}
 	
@@ -82,7 +60,7 @@ public class Velociraptor extends AnimalTimeSensitive
 	 */
 	public int getMaxFoodValue()
 	{
-		return MAX_FOOD_VALUE;
+		return getTraits().getMaxFoodValue();
 	}
 	
 	/**
@@ -90,7 +68,7 @@ public class Velociraptor extends AnimalTimeSensitive
 	 */
 	public int getMaxAge()
 	{
-		return MAX_AGE;
+		return getTraits().getMaxAge();
 	}
 	
 	/**
@@ -98,7 +76,7 @@ public class Velociraptor extends AnimalTimeSensitive
 	 */
 	public double getReproductionProbability()
 	{
-		return REPRODUCTION_PROBABILITY;
+		return getTraits().getReproductionProbability();
 	}
 	
 	/**
@@ -106,7 +84,7 @@ public class Velociraptor extends AnimalTimeSensitive
 	 */
 	public int getMaxOffspring()
 	{
-		return MAX_OFFSPRING;
+		return getTraits().getMaxOffspring();
 	}
 	
 	/**
@@ -114,7 +92,7 @@ public class Velociraptor extends AnimalTimeSensitive
 	 */
 	public int getReproductionAge()
 	{
-		return REPRODUCTION_AGE;
+		return getTraits().getReproductionAge();
 	}
 	
 	/**
@@ -122,7 +100,7 @@ public class Velociraptor extends AnimalTimeSensitive
 	 */
 	public int getMaxReproductionAge()
 	{
-		return MAX_REPRODUCTION_AGE;
+		return getTraits().getMaxReproductionAge();
 	}
 	
 	/**
@@ -130,7 +108,7 @@ public class Velociraptor extends AnimalTimeSensitive
 	 */
 	public String[] getCanEat()
 	{
-		return CAN_EAT;
+		return getTraits().getCanEat();
 	}
 	
 	/**
@@ -138,7 +116,7 @@ public class Velociraptor extends AnimalTimeSensitive
 	 */
 	public boolean isGenderedReproduction()
 	{
-		return GENDERED_REPRODUCTION;
+		return getTraits().isGenderedReproduction();
 	}
 	
 	/**
@@ -153,13 +131,13 @@ public class Velociraptor extends AnimalTimeSensitive
 	}
 	
 	/**
-	 * Return the active time of day for the velociraptor as a string.
+	 * Return the times of day the velociraptor is active in.
 	 *
-	 * @return active time of day as string.
+	 * @return The active times of day.
 	 */
-	protected String getActiveTime()
+	protected EnumSet<Environment.TimeOfDay> getActiveTimes()
 	{
-		return ACTIVE_TIME;
+		return getTraits().getActiveTimes();
 	}
 	
 	/**
@@ -167,7 +145,7 @@ public class Velociraptor extends AnimalTimeSensitive
 	 */
 	protected boolean getDisabledHunger()
 	{
-		return DISABLED_HUNGER;
+		return getTraits().getDisabledHunger();
 	}
 }
 
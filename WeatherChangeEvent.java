@@ -0,0 +1,29 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event marking a change of the weather.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+@Name("dinosaur.WeatherChange")
+@Label("Weather Change")
+@Category("Dinosaur Simulation")
+@Description("The weather of the simulation changed")
+@StackTrace(false)
+public class WeatherChangeEvent extends jdk.jfr.Event
+{
+	// The number of the step.
+	@Label("Step")
+	int step;
+	// The weather before the change.
+	@Label("Previous Weather")
+	String previousWeather;
+	// The weather after the change.
+	@Label("Weather")
+	String weather;
+}
@@ -0,0 +1,262 @@
+import benchmarks.Workload;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The implementation of the benchmark workload. It lives in the default package
+ * so that it can reach the simulation classes and their protected methods.
+ * <p>
+ * Every operation works on the next element of a fixed array of locations or
+ * actors, so that consecutive calls touch different parts of the field.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public class SimulationWorkload implements Workload
+{
+	// The field used by the operations on single actors and locations.
+	private Field field;
+	// The actors in the field.
+	private List<Actor> actors;
+	// The animals in the field.
+	private Animal[] animals;
+	// Locations spread over the whole field.
+	private Location[] locations;
+	// The simulator used to simulate whole steps.
+	private Simulator simulator;
+	// The statistics used to count the actors.
+	private FieldStats stats;
+	// The position of the next location and animal to use.
+	private int nextLocation, nextAnimal;
+	// The properties overriding those of the default configuration.
+	private HashMap<String, String> properties = new HashMap<>();
+	// Whether the simulator lets every actor act through one loop.
+	private boolean mixedOrder;
+	
+	/**
+	 * Override a property of the configuration of the workload. Takes effect
+	 * at the next setUp.
+	 *
+	 * @param key   The key of the property.
+	 * @param value The value of the property.
+	 */
+	public void setProperty(String key, String value)
+	{
+		properties.put(key, value);
+	}
+	
+	/**
+	 * Choose whether the simulator lets every actor act through one loop of
+	 * the workload instead of through Actor.actAll, as before the actors were
+	 * grouped by species. The actors act in the same order either way. Takes
+	 * effect at the next setUp.
+	 *
+	 * @param mixed Whether the actors act through one loop.
+	 */
+	public void setMixedOrder(boolean mixed)
+	{
+		mixedOrder = mixed;
+	}
+	
+	/**
+	 * Build a square field of the given size populated with the given density of
+	 * actors, and a simulator of the same size and density.
+	 *
+	 * @param size    The depth and width of the field.
+	 * @param density The probability of a cell holding an actor.
+	 */
+	public void setUp(int size, double density)
+	{
+		Config config = new Config(Config.getDefault());
+		for (Map.Entry<String, String> property : properties.entrySet()) {
+			config.setValue(property.getKey(), property.getValue());
+		}
+		// Measure the simulation, not the profiler.
+		config.setValue("simulator.PROFILING", "false");
+		PopulationGenerator.setDensity(config, density);
+		SimulationContext context = new SimulationContext(config);
+		field = new Field(context, size, size);
+		actors = new ArrayList<>();
+		PopulationGenerator.populate(field, actors, null);
+		
+		List<Animal> animalList = new ArrayList<>();
+		for (Actor actor : actors) {
+			if (actor instanceof Animal) {
+				animalList.add((Animal) actor);
+			}
+		}
+		animals = animalList.toArray(new Animal[0]);
+		
+		locations = new Location[4096];
+		for (int i = 0; i < locations.length; i++) {
+			locations[i] = new Location(context.getRandom().nextInt(size), context.getRandom().nextInt(size));
+		}
+		stats = new FieldStats();
+		SimulationContext simulatorContext = new SimulationContext(config);
+		if (mixedOrder) {
+			simulator = new MixedOrderSimulator(simulatorContext, size, size);
+		} else {
+			simulator = new Simulator(simulatorContext, size, size, false);
+		}
+	}
+	
+	/**
+	 * Release what the simulator holds outside the workload.
+	 */
+	public void tearDown()
+	{
+		simulator.close();
+	}
+	
+	/**
+	 * @return The locations adjacent to the next location.
+	 */
+	public Object adjacentLocations()
+	{
+		return field.adjacentLocations(nextLocation());
+	}
+	
+	/**
+	 * @return The free locations adjacent to the next location.
+	 */
+	public Object freeAdjacentLocations()
+	{
+		return field.getFreeAdjacentLocations(nextLocation());
+	}
+	
+	/**
+	 * Let the next live animal look for food.
+	 *
+	 * @return Where food was found, or null if it wasn't.
+	 */
+	public Object findFood()
+	{
+		Animal animal = nextAnimal();
+		return animal == null ? null : animal.findFood();
+	}
+	
+	/**
+	 * @return Whether the next live animal can reproduce.
+	 */
+	public boolean canReproduce()
+	{
+		Animal animal = nextAnimal();
+		return animal != null && animal.canReproduce();
+	}
+	
+	/**
+	 * Let every diseased actor of the field infect its neighbours.
+	 */
+	public void spreadDisease()
+	{
+		field.spreadDisease();
+	}
+	
+	/**
+	 * Count the actors in the field.
+	 *
+	 * @return Whether the field is viable.
+	 */
+	public boolean generateCounts()
+	{
+		stats.reset();
+		return stats.isViable(field);
+	}
+	
+	/**
+	 * Populate the field from scratch.
+	 *
+	 * @return The number of actors created.
+	 */
+	public int populate()
+	{
+		actors.clear();
+		PopulationGenerator.populate(field, actors, null);
+		return actors.size();
+	}
+	
+	/**
+	 * Reset the simulator to a freshly populated field.
+	 *
+	 * @return The number of actors in the field.
+	 */
+	public int resetSimulator()
+	{
+		simulator.reset();
+		return simulator.getActorCount();
+	}
+	
+	/**
+	 * Simulate one step.
+	 *
+	 * @return The number of actors after the step.
+	 */
+	public int simulateOneStep()
+	{
+		simulator.simulateOneStep();
+		return simulator.getActorCount();
+	}
+	
+	/**
+	 * @return The next location to use.
+	 */
+	private Location nextLocation()
+	{
+		nextLocation = (nextLocation + 1) & (locations.length - 1);
+		return locations[nextLocation];
+	}
+	
+	/**
+	 * @return The next live animal, or null if every animal is dead.
+	 */
+	private Animal nextAnimal()
+	{
+		for (int i = 0; i < animals.length; i++) {
+			nextAnimal = nextAnimal + 1 < animals.length ? nextAnimal + 1 : 0;
+			if (animals[nextAnimal].isActive()) {
+				return animals[nextAnimal];
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * A simulator that lets the actors of every species act through the same
+	 * act() call site, as before the actors were grouped by species, to
+	 * compare with Actor.actAll.
+	 */
+	private static class MixedOrderSimulator extends Simulator
+	{
+		/**
+		 * Create a simulator without a view.
+		 *
+		 * @param context The context of the simulation.
+		 * @param depth   The depth of the field.
+		 * @param width   The width of the field.
+		 */
+		private MixedOrderSimulator(SimulationContext context, int depth, int width)
+		{
+			super(context, depth, width, false);
+		}
+		
+		/**
+		 * Let part of the actors of a species act through the loop shared by
+		 * every species.
+		 *
+		 * @param sameSpecies The actors, all of one species.
+		 * @param from        The index of the first actor to act.
+		 * @param to          The index after the last actor to act.
+		 * @param newAnimals  A list to return newly born actors.
+		 */
+		@Override
+		protected void actSpecies(List<Actor> sameSpecies, int from, int to, List<Actor> newAnimals)
+		{
+			for (int i = from; i < to; i++) {
+				sameSpecies.get(i).act(newAnimals);
+			}
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of a full step with the species taking turns of different sizes
+ * (see simulator.ACT_CHUNK), either acting through Actor.actAll (grouped) or,
+ * as before the actors were grouped by species, through one loop of the
+ * workload whose act() call site sees every species (mixed, see
+ * Workload.setMixedOrder). Both act the same actors in the same order, so they
+ * differ only in how act() is called. The simulator is reset to a freshly
+ * populated field before every step, so that every step starts from the same
+ * mixed ecosystem.
+ * <p>
+ * Besides the time per step, the time per actor is reported as "actors".
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActOrderBenchmark
+{
+	// The number of actors of a species that act before the next species, 0 for all of them.
+	@Param({"1", "64", "0"})
+	private int actChunk;
+	
+	// "grouped" for Actor.actAll, "mixed" for one loop over all species.
+	@Param({"grouped", "mixed"})
+	private String order;
+	
+	private Workload workload;
+	// The number of actors acting in the next step.
+	private int actors;
+	
+	/**
+	 * Counts the actors that acted, so that JMH also reports the time per actor.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class ActorCount
+	{
+		public long actors;
+		
+		@Setup(Level.Iteration)
+		public void reset()
+		{
+			actors = 0;
+		}
+	}
+	
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		workload = Workload.create();
+		workload.setProperty("simulator.ACT_CHUNK", Integer.toString(actChunk));
+		workload.setMixedOrder(order.equals("mixed"));
+		workload.setUp(500, 0.3);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		workload.tearDown();
+	}
+	
+	@Setup(Level.Invocation)
+	public void resetSimulator()
+	{
+		actors = workload.resetSimulator();
+	}
+	
+	@Benchmark
+	public int simulateOneStep(ActorCount count)
+	{
+		count.actors += actors;
+		return workload.simulateOneStep();
+	}
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the per-actor behaviour: looking for food, looking for a mate
+ * and spreading disease. The field is populated again before every iteration,
+ * as eating and infecting change it.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActorBenchmark
+{
+	// The depth and width of the field.
+	@Param({"100", "500", "2000"})
+	private int size;
+	// The probability of a cell holding an actor.
+	@Param({"0.05", "0.3", "0.7"})
+	private double density;
+	
+	private Workload workload;
+	
+	@Setup(Level.Iteration)
+	public void setUp()
+	{
+		workload = Workload.create();
+		workload.setUp(size, density);
+	}
+	
+	@TearDown(Level.Iteration)
+	public void tearDown()
+	{
+		workload.tearDown();
+	}
+	
+	@Benchmark
+	public Object findFood()
+	{
+		return workload.findFood();
+	}
+	
+	@Benchmark
+	public boolean canReproduce()
+	{
+		return workload.canReproduce();
+	}
+	
+	@Benchmark
+	public void spreadDisease()
+	{
+		workload.spreadDisease();
+	}
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the neighbourhood queries of the Field.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldBenchmark
+{
+	// The depth and width of the field.
+	@Param({"100", "500", "2000"})
+	private int size;
+	// The probability of a cell holding an actor.
+	@Param({"0.05", "0.3", "0.7"})
+	private double density;
+	
+	private Workload workload;
+	
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		workload = Workload.create();
+		workload.setUp(size, density);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		workload.tearDown();
+	}
+	
+	@Benchmark
+	public Object adjacentLocations()
+	{
+		return workload.adjacentLocations();
+	}
+	
+	@Benchmark
+	public Object getFreeAdjacentLocations()
+	{
+		return workload.freeAdjacentLocations();
+	}
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the operations on the whole field: counting the actors,
+ * populating the field and simulating a full step. The simulator is reset to a
+ * freshly populated field before every step, so that every step starts from
+ * the same mixed ecosystem instead of one the earlier steps have thinned out.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulatorBenchmark
+{
+	// The depth and width of the field.
+	@Param({"100", "500", "2000"})
+	private int size;
+	// The probability of a cell holding an actor.
+	@Param({"0.05", "0.3", "0.7"})
+	private double density;
+	
+	private Workload workload;
+	
+	/**
+	 * Resets the simulator before every step. Kept apart from the benchmark,
+	 * so that counting and populating, which do not use the simulator, are
+	 * not reset at every call.
+	 */
+	@State(Scope.Thread)
+	public static class FreshSimulator
+	{
+		@Setup(Level.Invocation)
+		public void reset(SimulatorBenchmark benchmark)
+		{
+			benchmark.workload.resetSimulator();
+		}
+	}
+	
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		workload = Workload.create();
+		workload.setUp(size, density);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		workload.tearDown();
+	}
+	
+	@Benchmark
+	public boolean generateCounts()
+	{
+		return workload.generateCounts();
+	}
+	
+	@Benchmark
+	public int populate()
+	{
+		return workload.populate();
+	}
+	
+	@Benchmark
+	public int simulateOneStep(FreshSimulator fresh)
+	{
+		return workload.simulateOneStep();
+	}
+}
@@ -0,0 +1,119 @@
+package benchmarks;
+
+/**
+ * The operations of the simulation measured by the benchmarks.
+ * <p>
+ * JMH does not accept benchmarks in the default package, while the simulation
+ * classes live in the default package and cannot be imported from a named one.
+ * The benchmarks therefore call the simulation through this interface, which
+ * is implemented by SimulationWorkload in the default package. As there is only
+ * one implementation, the JIT compiler inlines the calls.
+ *
+ * @author David Simon Tetruashvili, Yeshvanth Prabakar, Emiliyana Tsanova
+ * @version 2018.02.21
+ */
+public interface Workload
+{
+	/**
+	 * Create the workload implemented in the default package.
+	 *
+	 * @return A new workload.
+	 */
+	static Workload create()
+	{
+		try {
+			return (Workload) Class.forName("SimulationWorkload").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("SimulationWorkload is not on the class path.", e);
+		}
+	}
+	
+	/**
+	 * Override a property of the configuration of the workload. Takes effect
+	 * at the next setUp.
+	 *
+	 * @param key   The key of the property.
+	 * @param value The value of the property.
+	 */
+	void setProperty(String key, String value);
+	
+	/**
+	 * Choose whether the simulator lets every actor act through one loop of
+	 * the workload instead of through Actor.actAll, as before the actors were
+	 * grouped by species. The actors act in the same order either way. Takes
+	 * effect at the next setUp.
+	 *
+	 * @param mixed Whether the actors act through one loop.
+	 */
+	void setMixedOrder(boolean mixed);
+	
+	/**
+	 * Build a square field of the given size populated with the given density of
+	 * actors, and a simulator of the same size and density.
+	 *
+	 * @param size    The depth and width of the field.
+	 * @param density The probability of a cell holding an actor.
+	 */
+	void setUp(int size, double density);
+	
+	/**
+	 * @return The locations adjacent to the next location.
+	 */
+	Object adjacentLocations();
+	
+	/**
+	 * @return The free locations adjacent to the next location.
+	 */
+	Object freeAdjacentLocations();
+	
+	/**
+	 * Let the next live animal look for food.
+	 *
+	 * @return Where food was found, or null if it wasn't.
+	 */
+	Object findFood();
+	
+	/**
+	 * @return Whether the next live animal can reproduce.
+	 */
+	boolean canReproduce();
+	
+	/**
+	 * Let every diseased actor of the field infect its neighbours.
+	 */
+	void spreadDisease();
+	
+	/**
+	 * Count the actors in the field.
+	 *
+	 * @return Whether the field is viable.
+	 */
+	boolean generateCounts();
+	
+	/**
+	 * Populate the field from scratch.
+	 *
+	 * @return The number of actors created.
+	 */
+	int populate();
+	
+	/**
+	 * Release what the workload holds outside itself, such as the simulator's
+	 * threads. Called once the workload is no longer used.
+	 */
+	void tearDown();
+	
+	/**
+	 * Reset the simulator to a freshly populated field.
+	 *
+	 * @return The number of actors in the field.
+	 */
+	int resetSimulator();
+	
+	/**
+	 * Simulate one step.
+	 *
+	 * @return The number of actors after the step.
+	 */
+	int simulateOneStep();
+}